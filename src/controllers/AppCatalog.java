@@ -0,0 +1,78 @@
+package controllers;
+
+import models.App;
+import utils.PersistentVector;
+
+import java.util.List;
+
+/**
+ * An immutable version of the list of apps of an {@link AppStoreAPI}, see {@link AppStoreAPI#snapshot()}.
+ * <p>Every modification of the store publishes a new catalog that shares all the unchanged apps with the previous
+ * one, so taking a catalog costs nothing and a report run on it sees one consistent list for as long as it takes,
+ * without any lock. The apps of a catalog are copies that must not be modified, and so are their
+ * {@link models.Developer developers}: a catalog is built again once the developers have changed.</p>
+ * @author Ryker Zhu
+ */
+public final class AppCatalog {
+
+    private final PersistentVector<App> apps;
+    private final long version;
+
+    AppCatalog(PersistentVector<App> apps, long version) {
+        this.apps = apps;
+        this.version = version;
+    }
+
+    AppCatalog append(App app, long version) {
+        return new AppCatalog(apps.append(app), version);
+    }
+
+    AppCatalog set(int index, App app, long version) {
+        return new AppCatalog(apps.set(index, app), version);
+    }
+
+    AppCatalog remove(int index, long version) {
+        return new AppCatalog(apps.remove(index), version);
+    }
+
+    /**
+     * @return the number of modifications of the store this catalog includes, a later catalog has a higher version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int numberOfApps() {
+        return apps.size();
+    }
+
+    /**
+     * @return the App at the given index, null if the index is not valid
+     */
+    public App getAppByIndex(int index) {
+        return index >= 0 && index < apps.size() ? apps.get(index) : null;
+    }
+
+    /**
+     * @return a read-only list of the apps of this catalog
+     */
+    public List<App> getApps() {
+        return apps.asList();
+    }
+
+    public String listAllApps() {
+        if(apps.isEmpty()) return "No apps";
+        StringBuilder sb = new StringBuilder();
+        int i = 0;
+        for(App app : apps) sb.append(i++).append(": ").append(app).append('\n');
+        return sb.toString();
+    }
+
+    public String listSummaryOfAllApps() {
+        if(apps.isEmpty()) return "No apps";
+        StringBuilder sb = new StringBuilder();
+        int i = 0;
+        for(App app : apps) sb.append(i++).append(": ").append(app.appSummary()).append('\n');
+        return sb.toString();
+    }
+}
@@ -1,16 +1,31 @@
 package controllers;
 
 import com.thoughtworks.xstream.XStream;
-import com.thoughtworks.xstream.io.xml.DomDriver;
 import models.*;
-import utils.FoundationClassUtilities;
-import utils.ISerializer;
-import utils.RatingUtility;
+import utils.*;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 import static utils.RatingUtility.generateRandomRating;
 
@@ -27,6 +42,42 @@ public class AppStoreAPI implements ISerializer {
      */
     private List<App> apps = new ArrayList<>();
 
+    /**
+     * <strong>Private Field</strong>
+     * <p>Observes every App in the store, the modifications of the apps are recorded in the journal and the apps are
+     * copied before being modified while a snapshot is being saved in the background</p>
+     */
+    private final AppObserver observer = new AppObserver() {
+        @Override
+        public void appChanged(App app, String mutator, Object argument) {
+            modified();
+            if(mutator.equals(App.SET_APP_NAME)) appRenamed(app, nameBeforeChange);
+            else if(mutator.equals(App.SET_DEVELOPER)) developerChanged(app, developerBeforeChange);
+            else if(mutator.equals(App.ADD_RATING) || mutator.equals(App.REMOVE_RATING)
+                    || mutator.equals(App.ADD_RATINGS)) ratingChanged(app);
+            if(RECOMMENDATION_MUTATORS.contains(mutator)) recommendationChanged(app);
+            catalogChanged(app);
+            if(feeding()) {
+                int index = positionOf(app);
+                if(mutator.equals(App.ADD_RATING)) {
+                    changeFeed.publish(sequence -> new StoreEvent.RatingAdded(sequence, index, frozenCopy(app, null),
+                            copyOf((Rating) argument)));
+                } else {
+                    changeFeed.publish(sequence -> new StoreEvent.AppChanged(sequence, index, frozenCopy(app, null),
+                            mutator, eventArgument(argument)));
+                }
+            }
+            AppStoreAPI.this.appChanged(app, mutator, argument);
+        }
+
+        @Override
+        public void appChanging(App app) {
+            nameBeforeChange = app.getAppName();
+            developerBeforeChange = app.getDeveloper();
+            for(SnapshotCapture capture : captures) capture.preserve(app);
+        }
+    };
+
     /**
      * <strong>CRUD Method</strong>
      * <p>Add a new App object to the ArrayList</p>
@@ -34,7 +85,26 @@ public class AppStoreAPI implements ISerializer {
      * @return Boolean indicating whether the App is successfully added
      */
     public boolean addApp(App app) {
-        return apps.add(app);
+        ensureLoaded();
+        copyOnWrite();
+        if(!apps.add(app)) return false;
+        modified();
+        app.addObserver(observer);
+        indexApp(app, apps.size() - 1);
+        if(catalog != null) catalog = catalog.append(frozenCopy(app, null), modificationVersion);
+        if(feeding()) {
+            int index = apps.size() - 1;
+            changeFeed.publish(sequence -> new StoreEvent.AppAdded(sequence, index, frozenCopy(app, null)));
+        }
+        if(isJournaling()) {
+            try {
+                BinarySnapshot.writeApps(List.of(app), journal.begin(OP_ADD_APP), developerResolver);
+                journal.commit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return true;
     }
 
     /**
@@ -45,8 +115,23 @@ public class AppStoreAPI implements ISerializer {
      */
     public App deleteAppByIndex(int index) {
         if(!isValidIndex(index)) return null;
-        App app = apps.get(index);
-        apps.remove(app);
+        ensureLoaded();
+        copyOnWrite();
+        App app = apps.remove(index);
+        modified();
+        boolean stillListed = apps.contains(app);
+        if(!stillListed) app.removeObserver(observer);
+        unindexApp(app, index, stillListed);
+        if(catalog != null) catalog = catalog.remove(index, modificationVersion);
+        if(feeding()) changeFeed.publish(sequence -> new StoreEvent.AppDeleted(sequence, index, frozenCopy(app, null)));
+        if(isJournaling()) {
+            try {
+                BinarySnapshot.writeVarInt(journal.begin(OP_DELETE_APP), index);
+                journal.commit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
         return app;
     }
 
@@ -57,6 +142,7 @@ public class AppStoreAPI implements ISerializer {
      */
     public App getAppByIndex(int index) {
         if(!isValidIndex(index)) return null;
+        ensureLoaded(index);
         return apps.get(index);
     }
 
@@ -67,12 +153,8 @@ public class AppStoreAPI implements ISerializer {
      */
     public App getAppByName(String name) {
         if(name == null) return null;
-        for(App app : apps) {
-            if(app.getAppName().equalsIgnoreCase(name)) {
-                return app;
-            }
-        }
-        return null;
+        int position = nameIndex().first(normalizeName(name));
+        return position < 0 ? null : apps.get(position);
     }
 
     /**
@@ -80,12 +162,15 @@ public class AppStoreAPI implements ISerializer {
      * @return String containing the details of all the apps in apps along with the index number associated with each app
      */
     public String listAllApps() {
+        ensureLoaded();
         if(apps.isEmpty()) return "No apps";
-        StringBuilder sb = new StringBuilder();
-        for(int i = 0; i < apps.size(); i++) {
-            sb.append(i).append(": ").append(apps.get(i)).append('\n');
-        }
-        return sb.toString();
+        return cached("listAllApps", null, () -> {
+            StringBuilder sb = new StringBuilder();
+            for(int i = 0; i < apps.size(); i++) {
+                sb.append(i).append(": ").append(apps.get(i)).append('\n');
+            }
+            return sb.toString();
+        });
     }
 
     /**
@@ -94,12 +179,15 @@ public class AppStoreAPI implements ISerializer {
      * @see App#appSummary()
      */
     public String listSummaryOfAllApps() {
+        ensureLoaded();
         if(apps.isEmpty()) return "No apps";
-        StringBuilder sb = new StringBuilder();
-        for(int i = 0; i < apps.size(); i++) {
-            sb.append(i).append(": ").append(apps.get(i).appSummary()).append('\n');
-        }
-        return sb.toString();
+        return cached("listSummaryOfAllApps", null, () -> {
+            StringBuilder sb = new StringBuilder();
+            for(int i = 0; i < apps.size(); i++) {
+                sb.append(i).append(": ").append(apps.get(i).appSummary()).append('\n');
+            }
+            return sb.toString();
+        });
     }
 
     /**
@@ -107,15 +195,7 @@ public class AppStoreAPI implements ISerializer {
      * @return String containing the details of all the {@link GameApp} in apps along with the index number associated with each app
      */
     public String listAllGameApps() {
-        if(apps.isEmpty()) return "No Game apps";
-        StringBuilder sb = new StringBuilder();
-        for(int i = 0; i < apps.size(); i++) {
-            if(apps.get(i) instanceof GameApp) {
-                sb.append(i).append(": ").append(apps.get(i)).append('\n');
-            }
-        }
-        if(sb.isEmpty()) sb.append("No Game apps");
-        return sb.toString();
+        return listAllAppsOfType(GameApp.class, "No Game apps");
     }
 
     /**
@@ -123,15 +203,7 @@ public class AppStoreAPI implements ISerializer {
      * @return String containing the details of all the {@link EducationApp} in apps along with the index number associated with each app
      */
     public String listAllEducationApps() {
-        if(apps.isEmpty()) return "No Education apps";
-        StringBuilder sb = new StringBuilder();
-        for(int i = 0; i < apps.size(); i++) {
-            if(apps.get(i) instanceof EducationApp) {
-                sb.append(i).append(": ").append(apps.get(i)).append('\n');
-            }
-        }
-        if(sb.isEmpty()) sb.append("No Education apps");
-        return sb.toString();
+        return listAllAppsOfType(EducationApp.class, "No Education apps");
     }
 
     /**
@@ -139,15 +211,32 @@ public class AppStoreAPI implements ISerializer {
      * @return String containing the details of all the {@link ProductivityApp} in apps along with the index number associated with each app
      */
     public String listAllProductivityApps() {
-        if(apps.isEmpty()) return "No Productivity apps";
-        StringBuilder sb = new StringBuilder();
-        for(int i = 0; i < apps.size(); i++) {
-            if(apps.get(i) instanceof ProductivityApp) {
+        return listAllAppsOfType(ProductivityApp.class, "No Productivity apps");
+    }
+
+    /**
+     * <strong>Report Method</strong>
+     * <p>The Productivity, Education and Game apps under a heading each. Each App is visited once, since every
+     * listing only goes through the apps of its type.</p>
+     * @return String containing the overview of the apps by type
+     */
+    public String listAppsOverview() {
+        return "-------------- Productivity Apps --------------\n" + listAllProductivityApps() + '\n'
+                + "--------------- Education Apps ---------------\n" + listAllEducationApps() + '\n'
+                + "-------------------- Games --------------------\n" + listAllGameApps() + '\n';
+    }
+
+    private String listAllAppsOfType(Class<? extends App> type, String none) {
+        ensureLoaded(type);
+        if(apps.isEmpty()) return none;
+        return cached("listAllAppsOfType", type, () -> {
+            StringBuilder sb = new StringBuilder();
+            for(int i : positionsOfType(type)) {
                 sb.append(i).append(": ").append(apps.get(i)).append('\n');
             }
-        }
-        if(sb.isEmpty()) sb.append("No Productivity apps");
-        return sb.toString();
+            if(sb.isEmpty()) sb.append(none);
+            return sb.toString();
+        });
     }
 
     /**
@@ -157,15 +246,14 @@ public class AppStoreAPI implements ISerializer {
      * @return List of all the matched {@link App}
      */
     public String listAllAppsByName(String name) {
+        ensureLoaded();
         if(apps.isEmpty() || !isValidAppName(name)) return "No apps for name " + name + " exists";
-        StringBuilder sb = new StringBuilder();
-        for(int i = 0; i < apps.size(); i++) {
-            if(apps.get(i).getAppName().equalsIgnoreCase(name)) {
-                sb.append(i).append(": ").append(apps.get(i)).append('\n');
-            }
-        }
-        if(sb.isEmpty()) sb.append("No apps for name ").append(name).append(" exists");
-        return sb.toString();
+        return cached("listAllAppsByName", name, () -> {
+            StringBuilder sb = new StringBuilder();
+            nameIndex().forEach(normalizeName(name), i -> sb.append(i).append(": ").append(apps.get(i)).append('\n'));
+            if(sb.isEmpty()) sb.append("No apps for name ").append(name).append(" exists");
+            return sb.toString();
+        });
     }
 
     /**
@@ -175,13 +263,27 @@ public class AppStoreAPI implements ISerializer {
      */
     public String listAllAppsAboveOrEqualAGivenStarRating(int rating) {
         if(apps.isEmpty() || rating < 1 || rating > 5) return "No apps have a rating of " + rating + " or above";
-        StringBuilder sb = new StringBuilder();
-        for(int i = 0; i < apps.size(); i++) {
-            if(apps.get(i).calculateRating() >= rating)
+        return cached("listAllAppsAboveOrEqualAGivenStarRating", rating, () -> {
+            StringBuilder sb = new StringBuilder();
+            for(int i : ratingIndex().positionsFrom((double) rating)) {
                 sb.append(i).append(": ").append(apps.get(i)).append('\n');
-        }
-        if(sb.isEmpty()) return "No apps have a rating of " + rating + " or above";
-        return sb.toString();
+            }
+            if(sb.isEmpty()) return "No apps have a rating of " + rating + " or above";
+            return sb.toString();
+        });
+    }
+
+    /**
+     * <strong>Report Method</strong>
+     * @return String containing all the apps from the highest rating to the lowest, along with the index number associated with each app
+     */
+    public String listAllAppsByRatingDescending() {
+        if(apps.isEmpty()) return "No apps";
+        return cached("listAllAppsByRatingDescending", null, () -> {
+            StringBuilder sb = new StringBuilder();
+            ratingIndex().forEachDescending(i -> sb.append(i).append(": ").append(apps.get(i)).append('\n'));
+            return sb.toString();
+        });
     }
 
     /**
@@ -190,14 +292,14 @@ public class AppStoreAPI implements ISerializer {
      */
     public String listAllRecommendedApps() {
         if(apps.isEmpty()) return "No recommended apps";
-        StringBuilder sb = new StringBuilder();
-        for(int i = 0; i < apps.size(); i++) {
-            if(apps.get(i).isRecommendedApp()) {
+        return cached("listAllRecommendedApps", null, () -> {
+            StringBuilder sb = new StringBuilder();
+            for(int i : recommendedIndex().positions(Boolean.TRUE)) {
                 sb.append(i).append(": ").append(apps.get(i)).append('\n');
             }
-        }
-        if(sb.isEmpty()) sb.append("No recommended apps");
-        return sb.toString();
+            if(sb.isEmpty()) sb.append("No recommended apps");
+            return sb.toString();
+        });
     }
 
     /**
@@ -208,14 +310,17 @@ public class AppStoreAPI implements ISerializer {
      */
     public String listAllAppsByChosenDeveloper(Developer developer) {
         if(apps.isEmpty()) return "No apps for developer: " + developer;
-        StringBuilder sb = new StringBuilder();
-        for(int i = 0; i < apps.size(); i++) {
-            if(apps.get(i).getDeveloper().equals(developer)) {
+        // the developer may be changed later, so the key holds its current values instead of the developer
+        Object key = developer == null ? null : Arrays.asList(developer.getDeveloperId(), developer.getDeveloperName(),
+                developer.getDeveloperWebsite());
+        return cached("listAllAppsByChosenDeveloper", key, () -> {
+            StringBuilder sb = new StringBuilder();
+            for(int i : positionsOfDeveloper(developer)) {
                 sb.append(i).append(": ").append(apps.get(i)).append('\n');
             }
-        }
-        if(sb.isEmpty()) sb.append("No apps for developer: ").append(developer);
-        return sb.toString();
+            if(sb.isEmpty()) sb.append("No apps for developer: ").append(developer);
+            return sb.toString();
+        });
     }
 
     /**
@@ -225,8 +330,7 @@ public class AppStoreAPI implements ISerializer {
      */
     public int numberOfAppsByChosenDeveloper(Developer developer) {
         if(apps.isEmpty()) return 0;
-        return new FoundationClassUtilities.Statistics<>(apps).total(
-                (App app) -> app.getDeveloper().equals(developer));
+        return positionsOfDeveloper(developer).length;
     }
 
     /**
@@ -235,7 +339,9 @@ public class AppStoreAPI implements ISerializer {
      */
     public App randomApp() {
         if(apps.isEmpty()) return null;
-        return apps.get(new Random().nextInt(apps.size()));
+        int index = new Random().nextInt(apps.size());
+        ensureLoaded(index);
+        return apps.get(index);
     }
 
     /**
@@ -243,11 +349,35 @@ public class AppStoreAPI implements ISerializer {
      * This will be called from the {@link main.Driver} (see skeleton code)
     */
     public void simulateRatings(){
+        ensureLoaded();
         for (App app :apps) {
             app.addRating(generateRandomRating());
         }
     }
 
+    /**
+     * Simulate many ratings for every App, e.g. to build a large data set. The ratings are generated on all the cores,
+     * every App with its own generator split from the seeded one, so the same seed gives the same ratings. They are
+     * then added to the apps on the calling thread, one {@link App#addRatings} per App.
+     * @param ratingsPerApp the number of ratings to add to every App
+     * @param seed the seed of the generators
+     * @param stars the distribution of the number of stars, see {@link StarDistribution#skewed(double)}
+     */
+    public void simulateRatings(int ratingsPerApp, long seed, StarDistribution stars) {
+        ensureLoaded();
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] generators = new SplittableRandom[apps.size()];
+        for(int i = 0; i < generators.length; i++) generators[i] = root.split(); // in order, for reproducibility
+        RatingStore[] simulated = new RatingStore[generators.length];
+        IntStream.range(0, generators.length).parallel().forEach(i -> {
+            RatingStore ratings = new RatingStore();
+            ratings.ensureCapacity(ratingsPerApp);
+            for(int j = 0; j < ratingsPerApp; j++) ratings.add(generateRandomRating(generators[i], stars));
+            simulated[i] = ratings;
+        });
+        for(int i = 0; i < simulated.length; i++) apps.get(i).addRatings(simulated[i]);
+    }
+
     /**
      * <strong>Validation Method</strong>
      * <p>Checks whether the given index is valid</p>
@@ -260,47 +390,688 @@ public class AppStoreAPI implements ISerializer {
 
     /**
      * <strong>Validation Method</strong>
-     * <p>Checks whether the given appName is valid</p>
+     * <p>Checks whether an App has the given appName (case insensitive)</p>
      * @param appName The name of the App
      * @return true if the name of the App is valid
      */
     public boolean isValidAppName(String appName) {
-        for(App app : apps) {
-            if(app.getAppName().equals(appName))
-                return true;
+        if(appName == null) return false;
+        return nameIndex().count(normalizeName(appName)) > 0;
+    }
+
+    //---------------------
+    // Name index
+    //---------------------
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The positions of the apps by their normalised name, built on first use and then kept up to date by the
+     * changes to the store and to the apps. Null when it has to be built again, e.g. after a sort.</p>
+     */
+    private PositionIndex<String> nameIndex;
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The name of the App being modified, captured before the change so that a renamed App can be found in the
+     * name index</p>
+     */
+    private String nameBeforeChange;
+
+    /**
+     * @return the key of the given name in the name index, the lookups by name are case insensitive
+     */
+    private static String normalizeName(String name) {
+        return name == null ? null : name.toLowerCase(Locale.ROOT);
+    }
+
+    private PositionIndex<String> nameIndex() {
+        if(nameIndex == null) {
+            ensureLoaded();
+            nameIndex = new PositionIndex<>();
+            for(int i = 0; i < apps.size(); i++) nameIndex.add(normalizeName(apps.get(i).getAppName()), i);
+        }
+        return nameIndex;
+    }
+
+    /**
+     * Move every position of the renamed App to its new name in the name index
+     */
+    private void appRenamed(App app, String previousName) {
+        if(nameIndex == null) return;
+        String from = normalizeName(previousName), to = normalizeName(app.getAppName());
+        if(Objects.equals(from, to)) return;
+        for(int position : nameIndex.positions(from)) {
+            if(apps.get(position) == app) {
+                nameIndex.remove(from, position);
+                nameIndex.add(to, position);
+            }
+        }
+    }
+
+    //---------------------
+    // Developer index
+    //---------------------
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The positions of the apps by the identifier of their developer ({@link Developer#getDeveloperId()}), which
+     * does not change when the developer is renamed. The apps whose developer is not registered (or was not when they
+     * were indexed) are under 0, and the apps without a developer under null.</p>
+     */
+    private PositionIndex<Integer> developerIndex;
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The developer of the App being modified, captured before the change</p>
+     */
+    private Developer developerBeforeChange;
+
+    private static Integer developerKey(Developer developer) {
+        return developer == null ? null : developer.getDeveloperId();
+    }
+
+    private PositionIndex<Integer> developerIndex() {
+        if(developerIndex == null) {
+            ensureLoaded();
+            developerIndex = new PositionIndex<>();
+            for(int i = 0; i < apps.size(); i++) developerIndex.add(developerKey(apps.get(i).getDeveloper()), i);
+        }
+        return developerIndex;
+    }
+
+    /**
+     * The apps of a registered developer are looked up by its identifier; only the apps indexed under 0 are compared
+     * one by one, and every App is when the given developer is not registered
+     * @return the positions of the apps whose developer is the same as the given one (see {@link Developer#sameAs}),
+     * in ascending order
+     */
+    private int[] positionsOfDeveloper(Developer developer) {
+        PositionIndex<Integer> index = developerIndex();
+        if(developer == null) return index.positions((Integer) null);
+        IntPredicate sameDeveloper = position -> developer.sameAs(apps.get(position).getDeveloper());
+        if(developer.getDeveloperId() == 0) return IntStream.range(0, apps.size()).filter(sameDeveloper).toArray();
+        int[] registered = Arrays.stream(index.positions(developer.getDeveloperId())).filter(sameDeveloper).toArray();
+        int[] unregistered = Arrays.stream(index.positions(0)).filter(sameDeveloper).toArray();
+        if(unregistered.length == 0) return registered;
+        return IntStream.concat(Arrays.stream(registered), Arrays.stream(unregistered)).sorted().toArray();
+    }
+
+    /**
+     * @return a predicate that matches the developers that are the same as the given developer
+     */
+    static Predicate<Developer> sameDeveloperAs(Developer developer) {
+        return indexed -> indexed == developer || (indexed != null && indexed.sameAs(developer));
+    }
+
+    /**
+     * Remove the position from the key of the developer, and from 0 in case the App was indexed before its developer
+     * was registered
+     * @param deleted whether the App has been removed from the list, the positions after it then move down
+     */
+    private void unindexDeveloper(Developer developer, int position, boolean deleted) {
+        Integer key = developerKey(developer);
+        if(key != null && key != 0) developerIndex.remove(0, position);
+        if(deleted) developerIndex.delete(key, position);
+        else developerIndex.remove(key, position);
+    }
+
+    private void developerChanged(App app, Developer previousDeveloper) {
+        if(developerIndex == null || previousDeveloper == app.getDeveloper()) return;
+        for(int position : positionsOf(app)) {
+            unindexDeveloper(previousDeveloper, position, false);
+            developerIndex.add(developerKey(app.getDeveloper()), position);
         }
-        return false;
+    }
+
+    //---------------------
+    // Type partitions
+    //---------------------
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The positions of the apps by their class, i.e. one partition per subclass of App</p>
+     */
+    private PositionIndex<Class<? extends App>> typeIndex;
+
+    /**
+     * @return the positions of the apps of the given type, in ascending order
+     */
+    private int[] positionsOfType(Class<? extends App> type) {
+        if(!unloadedShards.isEmpty()) { // the other types may not be loaded yet, so the partitions cannot be built
+            return IntStream.range(0, apps.size()).filter(i -> type.isInstance(apps.get(i))).toArray();
+        }
+        if(typeIndex == null) {
+            typeIndex = new PositionIndex<>();
+            for(int i = 0; i < apps.size(); i++) typeIndex.add(apps.get(i).getClass(), i);
+        }
+        return typeIndex.positions(type::isAssignableFrom);
+    }
+
+    //---------------------
+    // Rating index
+    //---------------------
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The positions of the apps sorted by their average rating ({@link App#calculateRating()})</p>
+     */
+    private PositionIndex<Double> ratingIndex;
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The rating every App is indexed under, i.e. its average rating when it was last indexed</p>
+     */
+    private IdentityHashMap<App, Double> ratingKeys;
+
+    /**
+     * @return the key of the App in the rating index, an App whose ratings all have 0 stars is below every rating
+     */
+    static double ratingKey(App app) {
+        double rating = app.calculateRating();
+        return Double.isNaN(rating) ? -1 : rating;
+    }
+
+    private PositionIndex<Double> ratingIndex() {
+        if(ratingIndex == null) {
+            ensureLoaded();
+            ratingIndex = new PositionIndex<>(Comparator.naturalOrder());
+            ratingKeys = new IdentityHashMap<>();
+            for(int i = 0; i < apps.size(); i++) {
+                ratingIndex.add(ratingKeys.computeIfAbsent(apps.get(i), AppStoreAPI::ratingKey), i);
+            }
+        }
+        return ratingIndex;
+    }
+
+    /**
+     * Move every position of the App to its new average rating in the rating index
+     */
+    private void ratingChanged(App app) {
+        if(ratingIndex == null) return;
+        Double from = ratingKeys.get(app);
+        double to = ratingKey(app);
+        if(from == null || from == to) return;
+        for(int position : ratingIndex.positions(from)) {
+            if(apps.get(position) == app) {
+                ratingIndex.remove(from, position);
+                ratingIndex.add(to, position);
+            }
+        }
+        ratingKeys.put(app, to);
+    }
+
+    //---------------------
+    // Recommended apps
+    //---------------------
+
+    /**
+     * The mutators that can change whether an App is recommended, see {@link App#isRecommendedApp()}
+     */
+    private static final Set<String> RECOMMENDATION_MUTATORS = Set.of(
+            App.ADD_RATING, App.REMOVE_RATING, App.ADD_RATINGS, App.SET_APP_COST, EducationApp.SET_LEVEL, GameApp.SET_MULTIPLAYER);
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The positions of the recommended apps, all under the key {@link Boolean#TRUE}</p>
+     */
+    private PositionIndex<Boolean> recommendedIndex;
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The recommended apps, an App is only evaluated again when one of the {@link #RECOMMENDATION_MUTATORS} is
+     * called on it</p>
+     */
+    private Set<App> recommendedApps;
+
+    private PositionIndex<Boolean> recommendedIndex() {
+        if(recommendedIndex == null) {
+            ensureLoaded();
+            recommendedIndex = new PositionIndex<>();
+            recommendedApps = Collections.newSetFromMap(new IdentityHashMap<>());
+            for(int i = 0; i < apps.size(); i++) {
+                App app = apps.get(i);
+                if(recommendedApps.contains(app) || app.isRecommendedApp()) {
+                    recommendedApps.add(app);
+                    recommendedIndex.add(Boolean.TRUE, i);
+                }
+            }
+        }
+        return recommendedIndex;
+    }
+
+    private void recommendationChanged(App app) {
+        if(recommendedIndex == null) return;
+        boolean recommended = app.isRecommendedApp();
+        if(recommended == recommendedApps.contains(app)) return;
+        for(int position : positionsOf(app)) {
+            if(recommended) recommendedIndex.add(Boolean.TRUE, position);
+            else recommendedIndex.remove(Boolean.TRUE, position);
+        }
+        if(recommended) recommendedApps.add(app);
+        else recommendedApps.remove(app);
+    }
+
+    /**
+     * @return the positions of the given App, found through the name index instead of a scan of the list
+     */
+    private int[] positionsOf(App app) {
+        return Arrays.stream(nameIndex().positions(normalizeName(app.getAppName())))
+                .filter(position -> apps.get(position) == app).toArray();
+    }
+
+    //---------------------
+    // Index maintenance
+    //---------------------
+
+    /**
+     * Add the App that has just been added at the given position to the indexes that have been built
+     */
+    private void indexApp(App app, int position) {
+        if(nameIndex != null) nameIndex.add(normalizeName(app.getAppName()), position);
+        if(developerIndex != null) developerIndex.add(developerKey(app.getDeveloper()), position);
+        if(typeIndex != null) typeIndex.add(app.getClass(), position);
+        if(ratingIndex != null) ratingIndex.add(ratingKeys.computeIfAbsent(app, AppStoreAPI::ratingKey), position);
+        if(recommendedIndex != null && (recommendedApps.contains(app) || app.isRecommendedApp())) {
+            recommendedApps.add(app);
+            recommendedIndex.add(Boolean.TRUE, position);
+        }
+    }
+
+    /**
+     * Remove the App that has just been removed from the given position from the indexes that have been built
+     * @param stillListed whether the same App is still at another position
+     */
+    private void unindexApp(App app, int position, boolean stillListed) {
+        if(nameIndex != null) nameIndex.delete(normalizeName(app.getAppName()), position);
+        if(developerIndex != null) unindexDeveloper(app.getDeveloper(), position, true);
+        if(typeIndex != null) typeIndex.delete(app.getClass(), position);
+        if(ratingIndex != null) {
+            ratingIndex.delete(ratingKeys.get(app), position);
+            if(!stillListed) ratingKeys.remove(app);
+        }
+        if(recommendedIndex != null) {
+            recommendedIndex.delete(Boolean.TRUE, position);
+            if(!stillListed) recommendedApps.remove(app);
+        }
+    }
+
+    //---------------------
+    // Result cache
+    //---------------------
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The results of the report methods, until the apps or the developers are modified</p>
+     */
+    private final ResultCache resultCache = new ResultCache(64, 1 << 22);
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>Increased by every modification of the list of apps or of an App</p>
+     */
+    private long modificationVersion;
+
+    private void modified() {
+        ++modificationVersion;
+    }
+
+    /**
+     * @return the version of everything the listings show: the apps, and the developers they print as counted by the
+     * {@link #setDeveloperResolver developer resolver}
+     */
+    private long version() {
+        return modificationVersion + developerModifications();
+    }
+
+    /**
+     * @param query the name of the report method
+     * @param parameter its parameter, null if there is none
+     * @param listing builds the result when it is not cached for the current version
+     */
+    private String cached(String query, Object parameter, Supplier<String> listing) {
+        return resultCache.get(Arrays.asList(query, parameter), version(), listing);
+    }
+
+    /**
+     * @return the cache of the report methods, e.g. to read its hit rate
+     */
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    //---------------------
+    // Change feed
+    //---------------------
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>Publishes the modifications of the store, null if they are not published</p>
+     */
+    private ChangeFeed changeFeed;
+
+    /**
+     * Publish every modification of the apps to the subscribers of the feed, from now on
+     * @param changeFeed the feed, e.g. shared with the {@link DeveloperAPI}; null to stop publishing
+     */
+    public void setChangeFeed(ChangeFeed changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+
+    /**
+     * The replayed modifications are part of a load, which is published as a whole
+     */
+    private boolean feeding() {
+        return changeFeed != null && !replaying && changeFeed.hasSubscribers();
+    }
+
+    private static Rating copyOf(Rating rating) {
+        return new Rating(rating.getNumberOfStars(), rating.getRaterName(), rating.getRatingComment());
+    }
+
+    /**
+     * The events are read by the subscribers on other threads, so the arguments that can still be changed (a
+     * developer, ratings) are copied; the others (names, numbers, languages) are immutable
+     */
+    private static Object eventArgument(Object argument) {
+        if(argument instanceof Rating rating) return copyOf(rating);
+        if(argument instanceof RatingStore ratings) {
+            RatingStore copy = new RatingStore();
+            copy.addAll(ratings);
+            return copy;
+        }
+        if(argument instanceof Developer developer) return copyOf(developer);
+        return argument;
+    }
+
+    private static Developer copyOf(Developer developer) {
+        Developer copy = new Developer(developer.getDeveloperName(), developer.getDeveloperWebsite());
+        copy.setDeveloperId(developer.getDeveloperId());
+        return copy;
+    }
+
+    /**
+     * Copy an App together with its developer, so the copy can be read on another thread while the developers change
+     * @param developers the copies of the developers already made, so that the copies of the apps of a developer share
+     * one copy of it; null to copy the developer anyway
+     */
+    private static App frozenCopy(App app, Map<Developer, Developer> developers) {
+        App copy = app.copy();
+        Developer developer = app.getDeveloper();
+        if(developer != null) {
+            copy.setDeveloper(developers == null ? copyOf(developer)
+                    : developers.computeIfAbsent(developer, AppStoreAPI::copyOf));
+        }
+        return copy;
+    }
+
+    //---------------------
+    // Catalog
+    //---------------------
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The latest immutable version of the list of apps, null until {@link #snapshot()} is called and again after
+     * the whole list has changed (load, sort). While it is set, every modification publishes a new catalog.</p>
+     */
+    private volatile AppCatalog catalog;
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The {@link IDeveloperResolver#getModificationCount() modification count} of the developers when the catalog
+     * was built: the catalog holds copies of the developers, so it is built again once they have changed</p>
+     */
+    private volatile long catalogDevelopers;
+
+    /**
+     * <strong>Snapshot Method</strong>
+     * <p>Take a consistent, immutable view of all the apps, e.g. to run a long report while the store keeps being
+     * modified. The first call (and the first after a load, a sort or a change of the developers) copies every App and
+     * developer; after that the store keeps the catalog up to date at the cost of copying only the changed App, and
+     * taking it costs nothing.</p>
+     * @return the catalog of the apps as they are now
+     */
+    public AppCatalog snapshot() {
+        AppCatalog current = publishedCatalog();
+        if(current != null) return current;
+        ensureLoaded();
+        Map<Developer, Developer> developers = new IdentityHashMap<>();
+        List<App> copies = new ArrayList<>(apps.size());
+        for(App app : apps) copies.add(frozenCopy(app, developers));
+        catalogDevelopers = developerModifications();
+        return catalog = new AppCatalog(PersistentVector.of(copies), modificationVersion);
+    }
+
+    /**
+     * @return the catalog published by the last modification, null if it has to be built by {@link #snapshot()}
+     */
+    AppCatalog publishedCatalog() {
+        AppCatalog current = catalog;
+        return current != null && catalogDevelopers == developerModifications() ? current : null;
+    }
+
+    private long developerModifications() {
+        return developerResolver == null ? 0 : developerResolver.getModificationCount();
+    }
+
+    private void catalogChanged(App app) {
+        if(catalog == null) return;
+        App copy = frozenCopy(app, null);
+        AppCatalog changed = catalog;
+        for(int position : positionsOf(app)) changed = changed.set(position, copy, modificationVersion);
+        catalog = changed;
+    }
+
+    /**
+     * Drop the indexes that are built from the positions of the apps, called when the whole list changes
+     */
+    private void invalidateIndexes() {
+        nameIndex = null;
+        developerIndex = null;
+        typeIndex = null;
+        ratingIndex = null;
+        ratingKeys = null;
+        recommendedIndex = null;
+        recommendedApps = null;
+    }
+
+    /**
+     * Load every shard and build every index, so that the queries that follow only read the store until the next
+     * modification, e.g. from several threads in {@link ConcurrentAppStoreAPI}
+     */
+    void prepareForReads() {
+        ensureLoaded();
+        nameIndex();
+        developerIndex();
+        positionsOfType(App.class);
+        ratingIndex();
+        recommendedIndex();
     }
 
     //---------------------
     // Persistence methods
     //---------------------
 
-    @SuppressWarnings("unchecked")
+    /**
+     * The load method reads all the apps from the file in the selected {@link SnapshotFormat}. XML files are read
+     * with a streaming pull parser, so every App is created while the file is being read instead of after the whole
+     * document has been parsed into memory. When the journal is enabled, the saved mutations are then applied again,
+     * and the mutations made since the last save are discarded like the rest of the apps in memory.
+     * @throws Exception An exception is thrown if an error occurred during the load e.g. a missing file.
+     * @see XMLStreamLoader
+     * @see BinarySnapshot
+     */
     public void load() throws Exception {
-        //list of classes that you wish to include in the serialisation, separated by a comma
-        Class<?>[] classes = new Class[]
-                {App.class, EducationApp.class, GameApp.class, ProductivityApp.class, Rating.class,
-                int.class, boolean.class, String.class, double.class};
+        List<App> loaded;
+        unloadedShards.clear();
+        if(shardSize > 0) {
+            shardedSnapshot = ShardedSnapshot.read(fileName());
+            loaded = new ArrayList<>(Collections.nCopies(shardedSnapshot.size(), null));
+            if(lazyLoading && (journal == null || journal.savedLength() == 0)) {
+                unloadedShards.addAll(shardedSnapshot.getShards()); // loaded by ensureLoaded()
+            } else {
+                shardedSnapshot.load(shardedSnapshot.getShards(), loaded);
+            }
+        } else if(snapshotFormat == SnapshotFormat.BINARY) {
+            try (InputStream in = new FileInputStream(fileName())) {
+                loaded = BinarySnapshot.readApps(in);
+            }
+        } else {
+            try (Reader reader = new InputStreamReader(new FileInputStream(fileName()), StandardCharsets.UTF_8)) {
+                loaded = XMLStreamLoader.loadApps(reader);
+            }
+        }
+        resolveDevelopers(loaded);
+        for(App app : apps) if(app != null) app.removeObserver(observer);
+        apps = loaded;
+        modified();
+        invalidateIndexes();
+        catalog = null;
+        for(App app : apps) if(app != null) app.addObserver(observer);
+        if(journal != null) {
+            replaying = true;
+            try {
+                journal.replay(this::replay);
+            } finally {
+                replaying = false;
+            }
+            journalInSync = true;
+        }
+        if(feeding()) changeFeed.publish(sequence -> new StoreEvent.AppsReplaced(sequence, "load"));
+    }
 
-        XStream xstream = new XStream(new DomDriver());
-        xstream.allowTypes(classes);
+    /**
+     * The save method writes all the apps to the file in the selected {@link SnapshotFormat}. When the journal is
+     * enabled, only the mutations appended to the journal since the last save are forced to the disk, and a full
+     * snapshot (a checkpoint) is written once the journal has grown past the checkpoint interval.
+     * @throws Exception An exception is thrown if an error occurred during the save e.g. drive is full.
+     * @see #enableJournal(int)
+     */
+    public void save() throws Exception {
+        if(journal != null && journalInSync && journal.size() < checkpointInterval) {
+            journal.flush();
+        } else {
+            checkpoint();
+        }
+    }
 
-        //doing the actual serialisation to an XML file
-        ObjectInputStream in = xstream.createObjectInputStream(new FileReader(fileName()));
-        apps = (List<App>) in.readObject();
-        in.close();
+    /**
+     * Save a snapshot of the apps on a background thread. The snapshot is the apps as they are when this method is
+     * called: the list is copied on write and every App is copied right before it is modified for the first time,
+     * so the store can keep being used at full speed while the snapshot is written. When the journal is enabled, the
+     * records covered by the snapshot are then discarded from the journal.
+     * @return a future that completes once the snapshot is on the disk
+     */
+    public CompletableFuture<Void> saveAsync() {
+        ensureLoaded();
+        SnapshotCapture capture = new SnapshotCapture(apps);
+        captures.add(capture);
+        File file = new File(fileName());
+        MutationJournal journal = this.journal;
+        long journalLength = journal == null ? 0 : journal.length();
+        int journalSize = journal == null ? 0 : journal.size();
+        if(snapshotExecutor == null) {
+            snapshotExecutor = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "AppStoreAPI-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return lastSnapshot = CompletableFuture.runAsync(() -> {
+            try {
+                List<App> snapshot = new ArrayList<>(capture.apps.size());
+                for(App app : capture.apps) snapshot.add(capture.frozen(app));
+                captures.remove(capture); // the apps can be modified without being copied from now on
+                writeSnapshot(file, snapshot);
+                if(journal != null) {
+                    journal.discardBefore(journalLength, journalSize);
+                    journalInSync = true;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                captures.remove(capture);
+            }
+        }, snapshotExecutor);
     }
 
-    public void save() throws Exception {
-        XStream xstream = new XStream(new DomDriver());
-        ObjectOutputStream out = xstream.createObjectOutputStream(new FileWriter(fileName()));
-        out.writeObject(apps);
-        out.close();
+    /**
+     * Write all the apps to the file in the selected {@link SnapshotFormat} and empty the journal (if enabled)
+     * @throws Exception An exception is thrown if an error occurred during the save e.g. drive is full.
+     */
+    public void checkpoint() throws Exception {
+        ensureLoaded();
+        lastSnapshot.exceptionally(e -> null).join(); // an older snapshot must not overwrite this one
+        writeSnapshot(new File(fileName()), apps);
+        if(journal != null) {
+            journal.truncate();
+            journalInSync = true;
+        }
+    }
+
+    private void writeSnapshot(File file, List<App> apps) throws IOException {
+        if(shardSize > 0) {
+            ShardedSnapshot.write(apps, file.getPath(), snapshotFormat, shardSize, developerResolver);
+        } else if(snapshotFormat == SnapshotFormat.BINARY) {
+            try (OutputStream out = new FileOutputStream(file)) {
+                BinarySnapshot.writeApps(apps, out, developerResolver);
+            }
+        } else {
+            XStream xstream = DeveloperReferenceConverter.appsXStream(developerResolver);
+            Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
+            ObjectOutputStream out = xstream.createObjectOutputStream(writer);
+            out.writeObject(apps);
+            out.close();
+        }
     }
 
     private String xmlFileName = "apps.xml";
 
+    /**
+     * <strong>Private Field</strong>
+     * <p>The developers the apps refer to by their identifier, null if the developers are saved with every App</p>
+     */
+    private IDeveloperResolver developerResolver;
+
+    /**
+     * Save the developers of the apps as their identifier in the given resolver (e.g. the {@link DeveloperAPI})
+     * instead of a copy of the developer, and replace the developers of the loaded apps by the instances held by the
+     * resolver, so that all the apps of a developer share a single instance. The developers must be loaded before
+     * the apps.
+     * @param developerResolver the registered developers, null to save every developer in full
+     */
+    public void setDeveloperResolver(IDeveloperResolver developerResolver) {
+        long before = version();
+        this.developerResolver = developerResolver;
+        modificationVersion += before + 1 - version(); // the version keeps increasing whatever the new resolver counts
+    }
+
+    /**
+     * Replace the developers of the loaded apps by the registered ones
+     */
+    private void resolveDevelopers(List<App> loaded) {
+        if(developerResolver == null) return;
+        for(App app : loaded) {
+            if(app != null) app.setDeveloper(developerResolver.resolve(app.getDeveloper()));
+        }
+    }
+
+    private SnapshotFormat snapshotFormat = SnapshotFormat.XML;
+
+    @Override
+    public SnapshotFormat getSnapshotFormat() {
+        return snapshotFormat;
+    }
+
+    /**
+     * Select the format of the file, e.g. apps.xml for {@link SnapshotFormat#XML} or apps.bin for
+     * {@link SnapshotFormat#BINARY}
+     * @param snapshotFormat the format used by {@link #save()} and {@link #load()}
+     */
+    @Override
+    public void setSnapshotFormat(SnapshotFormat snapshotFormat) {
+        this.snapshotFormat = snapshotFormat;
+    }
+
     /**
      * <strong>Test Only</strong>
      * <p>DO NOT CALL THIS METHOD UNLESS YOU WANT TO TEST EXCEPTION</p>
@@ -308,22 +1079,369 @@ public class AppStoreAPI implements ISerializer {
      */
     public void setFileName(String fileName) {
         this.xmlFileName = fileName;
+        if(journal != null) { // the journal follows the file it belongs to
+            journal.close();
+            journal = new MutationJournal(journalFileName());
+            journalInSync = false;
+        }
     }
 
     @SuppressWarnings("ResultOfMethodCallIgnored")
     public String fileName() {
-        File xmlFile = new File(xmlFileName);
-        if(!xmlFile.exists()) { // If the file doesn't exist then create it
+        File file = new File(shardSize > 0 ? xmlFileName.replaceFirst("\\.xml$", "") + ".shards" : snapshotFormat.fileName(xmlFileName));
+        if(!file.exists()) { // If the file doesn't exist then create it
             try {
-                xmlFile.createNewFile(); // The return value cannot be false
-                ObjectOutputStream out = new XStream(new DomDriver()).createObjectOutputStream(new FileWriter("apps.xml"));
-                out.writeObject(apps);
-                out.close();
+                file.createNewFile(); // The return value cannot be false
+                if(shardSize == 0) writeSnapshot(file, apps);
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
         }
-        return xmlFile.getName();
+        return file.getName();
+    }
+
+    //---------------------
+    // Sharded persistence
+    //---------------------
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The maximum number of apps in a shard, 0 if the apps are saved in a single file</p>
+     */
+    private int shardSize;
+
+    private boolean lazyLoading;
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The manifest read by the last {@link #load()} of a sharded snapshot</p>
+     */
+    private ShardedSnapshot shardedSnapshot;
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The shards that have not been loaded yet in lazy mode, their apps are null in the list of apps</p>
+     */
+    private final List<ShardedSnapshot.Shard> unloadedShards = new ArrayList<>();
+
+    /**
+     * Save the apps as shards (e.g. apps-GameApp-0.xml, apps-GameApp-1.xml, ...) listed by a manifest (e.g.
+     * apps.shards) instead of a single file. The shards are written and loaded in parallel. In lazy mode,
+     * {@link #load()} only reads the manifest and a shard is loaded the first time a query needs one of its apps, e.g.
+     * {@link #listAllGameApps()} only loads the shards of the {@link GameApp}s. The shards are loaded eagerly if the
+     * journal has records to replay.
+     * @param shardSize the maximum number of apps in a shard
+     * @param lazyLoading whether the shards are loaded on demand
+     * @see ShardedSnapshot
+     */
+    public void enableSharding(int shardSize, boolean lazyLoading) {
+        if(shardSize < 1) throw new IllegalArgumentException("The size of a shard must be positive");
+        this.shardSize = shardSize;
+        this.lazyLoading = lazyLoading;
+    }
+
+    public void disableSharding() {
+        ensureLoaded();
+        shardSize = 0;
+    }
+
+    /**
+     * Load all the shards that have not been loaded yet, must be called before any access to the list of apps that
+     * is not covered by {@link #ensureLoaded(Class)} or {@link #ensureLoaded(int)}
+     */
+    private void ensureLoaded() {
+        if(!unloadedShards.isEmpty()) loadShards(new ArrayList<>(unloadedShards));
+    }
+
+    /**
+     * Load the shards of the given type of App that have not been loaded yet
+     */
+    private void ensureLoaded(Class<? extends App> type) {
+        if(unloadedShards.isEmpty()) return;
+        List<ShardedSnapshot.Shard> shards = new ArrayList<>();
+        for(ShardedSnapshot.Shard shard : unloadedShards) {
+            if(type.isAssignableFrom(shard.getType())) shards.add(shard);
+        }
+        loadShards(shards);
+    }
+
+    /**
+     * Load the shard of the App at the given index if it has not been loaded yet
+     */
+    private void ensureLoaded(int index) {
+        if(unloadedShards.isEmpty() || apps.get(index) != null) return;
+        for(ShardedSnapshot.Shard shard : unloadedShards) {
+            if(shard.contains(index)) {
+                loadShards(List.of(shard));
+                return;
+            }
+        }
+    }
+
+    private void loadShards(List<ShardedSnapshot.Shard> shards) {
+        if(shards.isEmpty()) return;
+        try {
+            List<App> loaded = shardedSnapshot.load(shards, apps);
+            resolveDevelopers(loaded);
+            for(App app : loaded) app.addObserver(observer);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        unloadedShards.removeAll(shards);
+        modified();
+    }
+
+    //---------------------
+    // Background snapshots
+    //---------------------
+
+    /**
+     * A point-in-time view of the apps that is being saved by a background thread. The list it refers to is never
+     * modified (see {@link #copyOnWrite()}) and each App is replaced by a copy taken before its first modification.
+     */
+    private static class SnapshotCapture {
+        private final List<App> apps;
+        private final IdentityHashMap<App, App> copies = new IdentityHashMap<>();
+
+        SnapshotCapture(List<App> apps) {
+            this.apps = apps;
+        }
+
+        /**
+         * Called before the App is modified, keeps a copy of the App as it was unless a copy has already been taken
+         */
+        synchronized void preserve(App app) {
+            if(!copies.containsKey(app)) copies.put(app, app.copy());
+        }
+
+        /**
+         * @return the App as it was when the snapshot was captured
+         */
+        synchronized App frozen(App app) {
+            return copies.computeIfAbsent(app, App::copy);
+        }
+    }
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The snapshots that are being saved in the background</p>
+     */
+    private final List<SnapshotCapture> captures = new CopyOnWriteArrayList<>();
+
+    private ExecutorService snapshotExecutor;
+
+    private CompletableFuture<Void> lastSnapshot = CompletableFuture.completedFuture(null);
+
+    /**
+     * Replace the list of apps by a copy if the list is part of a snapshot being saved, must be called before any
+     * change to the list itself
+     */
+    private void copyOnWrite() {
+        for(SnapshotCapture capture : captures) {
+            if(capture.apps == apps) {
+                apps = new ArrayList<>(apps);
+                return;
+            }
+        }
+    }
+
+    //---------------------
+    // Journal methods
+    //---------------------
+
+    private static final int OP_ADD_APP = 1, OP_DELETE_APP = 2, OP_SORT = 3, OP_CHANGE_APP = 4;
+
+    /**
+     * The mutators of the apps that are recorded in the journal, a record refers to a mutator by its index
+     */
+    private static final List<String> MUTATORS = List.of(
+            App.SET_DEVELOPER, App.SET_APP_NAME, App.SET_APP_SIZE, App.SET_APP_VERSION, App.SET_APP_COST,
+            App.SET_DESCRIPTION, App.SET_CURRENCY_SYMBOL, App.ADD_LANGUAGE, App.REMOVE_LANGUAGE, App.ADD_RATING,
+            EducationApp.SET_LEVEL, GameApp.SET_MULTIPLAYER, GameApp.ADD_GENRE, GameApp.REMOVE_GENRE, App.REMOVE_RATING,
+            App.ADD_RATINGS);
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The journal of the mutations since the last checkpoint, null if the journal is disabled</p>
+     */
+    private MutationJournal journal;
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The number of records after which {@link #save()} writes a full snapshot</p>
+     */
+    private int checkpointInterval;
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>Whether the file on the disk followed by the journal is the same as the apps in memory, which is only known
+     * after a {@link #load()} or a {@link #checkpoint()}</p>
+     */
+    private volatile boolean journalInSync;
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>True while the journal is being replayed, so that the replayed mutations are not recorded again</p>
+     */
+    private boolean replaying;
+
+    /**
+     * Record every mutation of the store in an append-only journal (e.g. apps.journal) instead of rewriting the whole
+     * file on every {@link #save()}. The first save after enabling the journal, unless {@link #load()} is called
+     * before, writes a full snapshot.
+     * @param checkpointInterval the number of mutations after which {@link #save()} writes a full snapshot again
+     */
+    public void enableJournal(int checkpointInterval) {
+        this.journal = new MutationJournal(journalFileName());
+        this.checkpointInterval = checkpointInterval;
+        this.journalInSync = false;
+    }
+
+    /**
+     * @return the name of the journal of the current file, e.g. apps.journal for apps.xml
+     */
+    private String journalFileName() {
+        return xmlFileName.replaceFirst("\\.xml$", "") + ".journal";
+    }
+
+    public void disableJournal() throws IOException {
+        if(journal != null) journal.close();
+        journal = null;
+    }
+
+    private boolean isJournaling() {
+        return journal != null && !replaying;
+    }
+
+    /**
+     * Called by the {@link AppObserver} of every App in the store
+     */
+    private void appChanged(App app, String mutator, Object argument) {
+        if(!isJournaling()) return;
+        try {
+            DataOutputStream out = journal.begin(OP_CHANGE_APP);
+            BinarySnapshot.writeVarInt(out, positionOf(app));
+            out.writeByte(MUTATORS.indexOf(mutator));
+            writeArgument(out, argument);
+            journal.commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the first position of the App, found through the name index unless some shards are not loaded yet
+     * (building the index would load them all)
+     */
+    private int positionOf(App app) {
+        if(!unloadedShards.isEmpty()) return apps.indexOf(app);
+        int[] positions = positionsOf(app);
+        return positions.length == 0 ? -1 : positions[0];
+    }
+
+    private void replay(int operation, DataInputStream in) throws IOException {
+        switch (operation) {
+            case OP_ADD_APP -> {
+                App app = BinarySnapshot.readApps(in).get(0);
+                resolveDevelopers(List.of(app));
+                addApp(app);
+            }
+            case OP_DELETE_APP -> deleteAppByIndex(BinarySnapshot.readVarInt(in));
+            case OP_SORT -> sortAppsByNameAscending();
+            case OP_CHANGE_APP -> {
+                App app = apps.get(BinarySnapshot.readVarInt(in));
+                String mutator = MUTATORS.get(in.readUnsignedByte());
+                Object argument = readArgument(in);
+                switch (mutator) {
+                    case App.SET_DEVELOPER -> app.setDeveloper(developerResolver == null ? (Developer) argument
+                            : developerResolver.resolve((Developer) argument));
+                    case App.SET_APP_NAME -> app.setAppName((String) argument);
+                    case App.SET_APP_SIZE -> app.setAppSize((Double) argument);
+                    case App.SET_APP_VERSION -> app.setAppVersion((Double) argument);
+                    case App.SET_APP_COST -> app.setAppCost((Double) argument);
+                    case App.SET_DESCRIPTION -> app.setDescription((String) argument);
+                    case App.SET_CURRENCY_SYMBOL -> app.setCurrencySymbol((String) argument);
+                    case App.ADD_LANGUAGE -> app.addLanguage((Language) argument);
+                    case App.REMOVE_LANGUAGE -> app.removeLanguage((Language) argument);
+                    case App.ADD_RATING -> app.addRating((Rating) argument);
+                    case App.REMOVE_RATING -> app.removeRating((Rating) argument);
+                    case App.ADD_RATINGS -> app.addRatings((RatingStore) argument);
+                    case EducationApp.SET_LEVEL -> ((EducationApp) app).setLevel((Integer) argument);
+                    case GameApp.SET_MULTIPLAYER -> ((GameApp) app).setMultiplayer((Boolean) argument);
+                    case GameApp.ADD_GENRE -> ((GameApp) app).addGenre((GameApp.Genre) argument);
+                    case GameApp.REMOVE_GENRE -> ((GameApp) app).removeGenre((GameApp.Genre) argument);
+                }
+            }
+            default -> throw new IOException("Unknown journal record: " + operation);
+        }
+    }
+
+    private static void writeArgument(DataOutputStream out, Object argument) throws IOException {
+        if(argument instanceof String string) {
+            out.writeByte('S');
+            out.writeUTF(string);
+        } else if(argument instanceof Double number) {
+            out.writeByte('D');
+            out.writeDouble(number);
+        } else if(argument instanceof Integer number) {
+            out.writeByte('I');
+            BinarySnapshot.writeVarInt(out, number);
+        } else if(argument instanceof Boolean bool) {
+            out.writeByte(bool ? 'T' : 'F');
+        } else if(argument instanceof Language language) {
+            out.writeByte('L');
+            out.writeByte(language.ordinal());
+        } else if(argument instanceof GameApp.Genre genre) {
+            out.writeByte('G');
+            out.writeByte(genre.ordinal());
+        } else if(argument instanceof Developer developer) {
+            out.writeByte('P');
+            BinarySnapshot.writeVarInt(out, developer.getDeveloperId());
+            out.writeUTF(developer.getDeveloperName());
+            out.writeUTF(developer.getDeveloperWebsite());
+        } else if(argument instanceof Rating rating) {
+            out.writeByte('R');
+            out.writeByte(rating.getNumberOfStars());
+            out.writeUTF(rating.getRaterName());
+            out.writeUTF(rating.getRatingComment());
+        } else if(argument instanceof RatingStore ratings) {
+            out.writeByte('A');
+            BinarySnapshot.writeVarInt(out, ratings.size());
+            for(Rating rating : ratings.asList()) {
+                out.writeByte(rating.getNumberOfStars());
+                out.writeUTF(rating.getRaterName());
+                out.writeUTF(rating.getRatingComment());
+            }
+        } else {
+            out.writeByte('N');
+        }
+    }
+
+    private static Object readArgument(DataInputStream in) throws IOException {
+        return switch (in.readUnsignedByte()) {
+            case 'S' -> in.readUTF();
+            case 'D' -> in.readDouble();
+            case 'I' -> BinarySnapshot.readVarInt(in);
+            case 'T' -> true;
+            case 'F' -> false;
+            case 'L' -> Language.values()[in.readUnsignedByte()];
+            case 'G' -> GameApp.Genre.values()[in.readUnsignedByte()];
+            case 'P' -> {
+                int developerId = BinarySnapshot.readVarInt(in);
+                Developer developer = new Developer(in.readUTF(), in.readUTF());
+                developer.setDeveloperId(developerId);
+                yield developer;
+            }
+            case 'R' -> new Rating(in.readUnsignedByte(), in.readUTF(), in.readUTF());
+            case 'A' -> {
+                int size = BinarySnapshot.readVarInt(in);
+                RatingStore ratings = new RatingStore();
+                ratings.ensureCapacity(size);
+                for(int i = 0; i < size; i++) ratings.add(new Rating(in.readUnsignedByte(), in.readUTF(), in.readUTF()));
+                yield ratings;
+            }
+            default -> null;
+        };
     }
 
     /**
@@ -344,6 +1462,8 @@ public class AppStoreAPI implements ISerializer {
      * <p>This method should change the apps object so that it is sorted by name in ascending order.</p>
      */
     public void sortAppsByNameAscending() {
+        ensureLoaded();
+        copyOnWrite();
         // Selection sort
         for(int i = apps.size() - 1; i >= 0; i--) {
             int highestIndex = 0;
@@ -354,6 +1474,18 @@ public class AppStoreAPI implements ISerializer {
             }
             swapApps(apps, i, highestIndex);
         }
+        modified();
+        invalidateIndexes();
+        catalog = null;
+        if(feeding()) changeFeed.publish(sequence -> new StoreEvent.AppsReplaced(sequence, "sort"));
+        if(isJournaling()) {
+            try {
+                journal.begin(OP_SORT);
+                journal.commit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
     }
 
     /**
@@ -363,4 +1495,59 @@ public class AppStoreAPI implements ISerializer {
     public int numberOfApps() {
         return apps.size();
     }
+
+    /**
+     * @return a read-only view of all the apps once every shard is loaded, e.g. for {@link StoreAnalytics}
+     */
+    List<App> loadedApps() {
+        ensureLoaded();
+        return Collections.unmodifiableList(apps);
+    }
+
+    //---------------------
+    // Indexed queries
+    //---------------------
+    // The apps the listings are made of, found through the same indexes, so that a store made of several stores
+    // (see ShardedAppStoreAPI) can merge their listings
+
+    /**
+     * Remove the App without knowing its position
+     * @return the App, null if it is not in the store
+     */
+    App deleteApp(App app) {
+        int position = positionOf(app);
+        return position < 0 ? null : deleteAppByIndex(position);
+    }
+
+    List<App> appsOfType(Class<? extends App> type) {
+        ensureLoaded(type);
+        return appsAt(positionsOfType(type));
+    }
+
+    List<App> appsFromRating(int rating) {
+        return appsAt(ratingIndex().positionsFrom((double) rating));
+    }
+
+    /**
+     * @return the apps from the highest rating to the lowest
+     */
+    List<App> appsByRatingDescending() {
+        List<App> found = new ArrayList<>(apps.size());
+        ratingIndex().forEachDescending(i -> found.add(apps.get(i)));
+        return found;
+    }
+
+    List<App> recommendedApps() {
+        return appsAt(recommendedIndex().positions(Boolean.TRUE));
+    }
+
+    List<App> appsOfDeveloper(Developer developer) {
+        return appsAt(positionsOfDeveloper(developer));
+    }
+
+    private List<App> appsAt(int[] positions) {
+        List<App> found = new ArrayList<>(positions.length);
+        for(int position : positions) found.add(apps.get(position));
+        return found;
+    }
 }
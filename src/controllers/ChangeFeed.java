@@ -0,0 +1,163 @@
+package controllers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+/**
+ * Publishes the modifications of an {@link AppStoreAPI} and a {@link DeveloperAPI} as batches of {@link StoreEvent},
+ * so that caches and exports can be kept up to date from the changes instead of scanning the store again. Give the
+ * same feed to both with {@link AppStoreAPI#setChangeFeed(ChangeFeed)} and {@link DeveloperAPI#setChangeFeed(ChangeFeed)}.
+ * <p>The events are collected into a batch, which is published once it is full or once it is older than the maximum
+ * delay. The batches are delivered by a {@link SubmissionPublisher}: every subscriber receives them in order on a
+ * thread of the common pool, as fast as it requests them. When a subscriber falls a whole buffer behind, the thread
+ * that publishes the next batch (the one modifying the store, or the timer) waits for it, so a slow subscriber slows
+ * the store down instead of losing events. The other threads can still add events to the next batch meanwhile. A
+ * subscriber must therefore not wait for a lock of the store, which may be held by the thread waiting for it.</p>
+ * <p>No event is made while there is no subscriber (the subscribers that cancelled are noticed when the next batch
+ * is published), and a subscriber only receives the events made after it subscribed.</p>
+ * @author Ryker Zhu
+ */
+public class ChangeFeed implements Flow.Publisher<List<StoreEvent>>, AutoCloseable {
+
+    private final SubmissionPublisher<List<StoreEvent>> publisher;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService timer;
+
+    private List<StoreEvent> batch = new ArrayList<>();
+    private long sequence;
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The full batches waiting to be submitted, in the order of their events</p>
+     */
+    private final Queue<List<StoreEvent>> sealed = new ArrayDeque<>();
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>Held while the batches are submitted, so that only one thread submits them at a time and in order</p>
+     */
+    private final Object submitting = new Object();
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>Whether the publisher had subscribers the last time the batches were submitted, or has one since</p>
+     */
+    private volatile boolean subscribed;
+
+    /**
+     * Batches of up to 256 events, published at most 50 ms after their first event
+     */
+    public ChangeFeed() {
+        this(256, Duration.ofMillis(50), Flow.defaultBufferSize());
+    }
+
+    /**
+     * @param maxBatchSize the number of events after which a batch is published
+     * @param maxDelay the time after which a batch is published even if it is not full
+     * @param bufferSize the number of batches a subscriber can fall behind before the store waits for it
+     */
+    public ChangeFeed(int maxBatchSize, Duration maxDelay, int bufferSize) {
+        if(maxBatchSize < 1) throw new IllegalArgumentException("Invalid batch size: " + maxBatchSize);
+        this.maxBatchSize = maxBatchSize;
+        // like the default publisher: the common pool, unless it has a single thread
+        Executor executor = ForkJoinPool.getCommonPoolParallelism() > 1 ? ForkJoinPool.commonPool()
+                : runnable -> new Thread(runnable).start();
+        publisher = new SubmissionPublisher<>(executor, bufferSize);
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Change feed timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long delay = maxDelay.toNanos();
+        timer.scheduleWithFixedDelay(this::flush, delay, delay, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super List<StoreEvent>> subscriber) {
+        synchronized(submitting) {
+            publisher.subscribe(subscriber);
+            subscribed = true;
+        }
+    }
+
+    /**
+     * Does not ask the publisher, which holds its lock while a submission waits for a slow subscriber
+     * @return false if no event would be delivered, then the stores do not make them
+     */
+    public boolean hasSubscribers() {
+        return subscribed && !publisher.isClosed();
+    }
+
+    /**
+     * Add an event to the current batch
+     * @param event makes the event with its sequence, called under the lock of the feed
+     */
+    void publish(LongFunction<StoreEvent> event) {
+        synchronized(this) {
+            if(publisher.isClosed()) return;
+            batch.add(event.apply(sequence++));
+            if(batch.size() < maxBatchSize) return;
+            seal();
+        }
+        submit();
+    }
+
+    /**
+     * Publish the current batch now, e.g. before reading the views kept by the subscribers
+     */
+    public void flush() {
+        synchronized(this) {
+            if(!batch.isEmpty() && !publisher.isClosed()) seal();
+        }
+        submit(); // also waits for the batches sealed by other threads
+    }
+
+    /**
+     * Queue the current batch, called under the lock of the feed so that the batches are queued in order
+     */
+    private void seal() {
+        sealed.add(List.copyOf(batch));
+        batch = new ArrayList<>();
+    }
+
+    /**
+     * Submit the queued batches in order. The publisher may block until a slow subscriber catches up, so it is not
+     * called under the lock of the feed: the other threads can still add events meanwhile.
+     */
+    private void submit() {
+        synchronized(submitting) {
+            for(;;) {
+                List<StoreEvent> next;
+                synchronized(this) {
+                    next = sealed.poll();
+                }
+                if(next == null) break;
+                if(!publisher.isClosed()) publisher.submit(next);
+            }
+            subscribed = publisher.hasSubscribers(); // the subscribers that cancelled are gone
+        }
+    }
+
+    /**
+     * Publish the current batch and complete the subscriptions
+     */
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        flush();
+        synchronized(submitting) {
+            publisher.close();
+        }
+    }
+}
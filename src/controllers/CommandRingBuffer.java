@@ -0,0 +1,234 @@
+package controllers;
+
+import models.App;
+import models.Developer;
+import models.Rating;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Applies the modifications of an {@link AppStoreAPI} and a {@link DeveloperAPI} on a single writer thread, so that
+ * the threads that modify the store never wait for a lock.
+ * <p>The producers claim a slot of a ring buffer allocated once, write their command into it and publish it. The
+ * writer applies all the commands published since its last pass in one batch, in the order of their slots, and
+ * completes the future of every command with its result. A producer only waits when the ring is full.</p>
+ * <p>The store must only be used through this buffer while it is running. A query can also be submitted as a
+ * command, it then sees every modification submitted before it. The futures are completed on the writer thread, so
+ * the long continuations should use the {@code ...Async} methods of {@link CompletableFuture}.</p>
+ * @author Ryker Zhu
+ */
+public class CommandRingBuffer implements AutoCloseable {
+
+    /**
+     * A modification (or a query) of the store, applied on the writer thread
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    public interface Command<T> {
+        T apply(AppStoreAPI appStoreAPI, DeveloperAPI developerAPI);
+    }
+
+    private static final class Slot {
+        Command<?> command;
+        CompletableFuture<Object> future;
+
+        /**
+         * The sequence of the command in the slot once it is published, written last by the producer
+         */
+        volatile long sequence = -1;
+    }
+
+    /**
+     * Set in {@link #claimed} by {@link #close()}, after which no slot can be claimed
+     */
+    private static final long CLOSED = 1L << 62;
+
+    /**
+     * The number of times the writer checks for new commands before it parks
+     */
+    private static final int SPINS = 100;
+
+    private final AppStoreAPI appStoreAPI;
+    private final DeveloperAPI developerAPI;
+    private final Slot[] slots;
+    private final int mask;
+
+    /**
+     * Private Field
+     * <p>The number of slots claimed by the producers, plus {@link #CLOSED} once the buffer is closed</p>
+     */
+    private final AtomicLong claimed = new AtomicLong();
+
+    /**
+     * Private Field
+     * <p>The number of commands applied, a slot can be claimed again once its command is applied</p>
+     */
+    private volatile long applied;
+
+    private volatile boolean writerParked;
+    private final Thread writer;
+    private long batches;
+
+    /**
+     * Start the writer thread
+     * @param capacity the number of slots, rounded up to a power of two
+     */
+    public CommandRingBuffer(AppStoreAPI appStoreAPI, DeveloperAPI developerAPI, int capacity) {
+        if(capacity < 1 || capacity > 1 << 30) throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        this.appStoreAPI = appStoreAPI;
+        this.developerAPI = developerAPI;
+        int size = 1;
+        while(size < capacity) size <<= 1;
+        slots = new Slot[size];
+        for(int i = 0; i < slots.length; i++) slots[i] = new Slot();
+        mask = slots.length - 1;
+        writer = new Thread(this::write, "App Store writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    //---------------------
+    // Producers
+    //---------------------
+
+    /**
+     * Submit a command, safe to call from any thread
+     * @return the future of the result of the command, failed with an {@link IllegalStateException} if the buffer is
+     * closed or with the exception thrown by the command
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> submit(Command<T> command) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if((sequence & CLOSED) != 0) {
+                future.completeExceptionally(new IllegalStateException("The command buffer is closed"));
+                return (CompletableFuture<T>) future;
+            }
+        } while(!claimed.compareAndSet(sequence, sequence + 1));
+        while(sequence - applied >= slots.length) { // the ring is full
+            Thread.onSpinWait();
+            wakeWriter();
+            Thread.yield();
+        }
+        Slot slot = slots[(int) sequence & mask];
+        slot.command = command;
+        slot.future = future;
+        slot.sequence = sequence;
+        wakeWriter();
+        return (CompletableFuture<T>) future;
+    }
+
+    private void wakeWriter() {
+        if(writerParked) LockSupport.unpark(writer);
+    }
+
+    public CompletableFuture<Boolean> addApp(App app) {
+        return submit((apps, developers) -> apps.addApp(app));
+    }
+
+    public CompletableFuture<App> deleteAppByIndex(int index) {
+        return submit((apps, developers) -> apps.deleteAppByIndex(index));
+    }
+
+    /**
+     * @return the future of false if there is no App with the name
+     */
+    public CompletableFuture<Boolean> addRating(String appName, Rating rating) {
+        return submit((apps, developers) -> {
+            App app = apps.getAppByName(appName);
+            return app != null && app.addRating(rating);
+        });
+    }
+
+    public CompletableFuture<Boolean> addDeveloper(Developer developer) {
+        return submit((apps, developers) -> developers.addDeveloper(developer));
+    }
+
+    public CompletableFuture<Developer> removeDeveloper(String developerName) {
+        return submit((apps, developers) -> developers.removeDeveloper(developerName));
+    }
+
+    //---------------------
+    // Writer
+    //---------------------
+
+    private void write() {
+        long next = 0;
+        int idle = 0;
+        for(;;) {
+            long end = next;
+            while(end - next < slots.length && slots[(int) end & mask].sequence == end) ++end;
+            if(end == next) {
+                long claims = claimed.get();
+                if((claims & CLOSED) != 0 && next == (claims & ~CLOSED)) return;
+                if(++idle < SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    writerParked = true;
+                    if(slots[(int) next & mask].sequence != next && claimed.get() == claims) LockSupport.park(this);
+                    writerParked = false;
+                    idle = 0;
+                }
+                continue;
+            }
+            idle = 0;
+            for(long sequence = next; sequence < end; sequence++) apply(slots[(int) sequence & mask]);
+            ++batches;
+            applied = next = end;
+        }
+    }
+
+    private void apply(Slot slot) {
+        Command<?> command = slot.command;
+        CompletableFuture<Object> future = slot.future;
+        slot.command = null;
+        slot.future = null;
+        try {
+            future.complete(command.apply(appStoreAPI, developerAPI));
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * @return the number of commands applied so far
+     */
+    public long getNumberOfCommands() {
+        return applied;
+    }
+
+    /**
+     * Only exact once the buffer is closed
+     * @return the number of batches the commands were applied in
+     */
+    public long getNumberOfBatches() {
+        return batches;
+    }
+
+    /**
+     * Stop accepting commands, and wait until the writer has applied all the commands submitted before. If the
+     * calling thread is interrupted meanwhile, it stops waiting with its interrupt status set while the writer goes on
+     * applying the remaining commands.
+     */
+    @Override
+    public void close() {
+        long claims;
+        do {
+            claims = claimed.get();
+        } while((claims & CLOSED) == 0 && !claimed.compareAndSet(claims, claims | CLOSED));
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
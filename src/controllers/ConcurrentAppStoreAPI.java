@@ -0,0 +1,313 @@
+package controllers;
+
+import models.App;
+import models.Developer;
+import models.Rating;
+import utils.StarDistribution;
+
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A thread-safe front of an {@link AppStoreAPI} and a {@link DeveloperAPI}, which can then be served to many threads.
+ * <p>The modifications are serialised by the write lock of a {@link StampedLock}. Once a modification is done, all
+ * the indexes of the store are built under the same lock, so the queries only read the store: the cheap ones
+ * ({@link #numberOfApps()}, {@link #getAppByIndex(int)}) are tried without any lock and validated afterwards
+ * (optimistic reads), the others share the read lock.</p>
+ * <p>The apps must only be changed through {@link #updateApp(int, Consumer)}, since an App has no lock of its own.
+ * Long reports can instead be run on a {@link #snapshot()}, which needs no lock at all.</p>
+ * @author Ryker Zhu
+ */
+public class ConcurrentAppStoreAPI {
+
+    private final AppStoreAPI appStoreAPI;
+    private final DeveloperAPI developerAPI;
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * @param appStoreAPI the apps, not to be used directly any more
+     * @param developerAPI the developers, not to be used directly any more
+     */
+    public ConcurrentAppStoreAPI(AppStoreAPI appStoreAPI, DeveloperAPI developerAPI) {
+        this.appStoreAPI = appStoreAPI;
+        this.developerAPI = developerAPI;
+        write(() -> null);
+    }
+
+    //---------------------
+    // Locking
+    //---------------------
+
+    /**
+     * Run a cheap query without locking, and again under the read lock if a modification happened meanwhile. The
+     * store may be inconsistent while it is being modified, so an exception only counts if no modification happened.
+     */
+    private <T> T readOptimistically(Supplier<T> query) {
+        long stamp = lock.tryOptimisticRead();
+        if(stamp != 0) {
+            try {
+                T result = query.get();
+                if(lock.validate(stamp)) return result;
+            } catch (RuntimeException e) {
+                if(lock.validate(stamp)) throw e;
+            }
+        }
+        return read(query);
+    }
+
+    private <T> T read(Supplier<T> query) {
+        long stamp = lock.readLock();
+        try {
+            return query.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private <T> T write(Supplier<T> modification) {
+        long stamp = lock.writeLock();
+        try {
+            T result = modification.get();
+            appStoreAPI.prepareForReads();
+            return result;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void write(Runnable modification) {
+        write(() -> {
+            modification.run();
+            return null;
+        });
+    }
+
+    //---------------------
+    // Apps
+    //---------------------
+
+    public boolean addApp(App app) {
+        return write(() -> appStoreAPI.addApp(app));
+    }
+
+    public App deleteAppByIndex(int index) {
+        return write(() -> appStoreAPI.deleteAppByIndex(index));
+    }
+
+    /**
+     * Change the App at the given index under the write lock
+     * @param index the index of the App
+     * @param modification e.g. {@code app -> app.setAppCost(1.99)}
+     * @return false if there is no App at the index
+     */
+    public boolean updateApp(int index, Consumer<App> modification) {
+        return write(() -> {
+            App app = appStoreAPI.getAppByIndex(index);
+            if(app == null) return false;
+            modification.accept(app);
+            return true;
+        });
+    }
+
+    /**
+     * Add a rating to the App with the given name under the write lock
+     * @return false if there is no App with the name
+     */
+    public boolean addRating(String appName, Rating rating) {
+        return write(() -> {
+            App app = appStoreAPI.getAppByName(appName);
+            return app != null && app.addRating(rating);
+        });
+    }
+
+    public void sortAppsByNameAscending() {
+        write(appStoreAPI::sortAppsByNameAscending);
+    }
+
+    public void simulateRatings(int ratingsPerApp, long seed, StarDistribution stars) {
+        write(() -> appStoreAPI.simulateRatings(ratingsPerApp, seed, stars));
+    }
+
+    public int numberOfApps() {
+        return readOptimistically(appStoreAPI::numberOfApps);
+    }
+
+    public App getAppByIndex(int index) {
+        return readOptimistically(() -> appStoreAPI.getAppByIndex(index));
+    }
+
+    public App getAppByName(String name) {
+        return read(() -> appStoreAPI.getAppByName(name));
+    }
+
+    /**
+     * Read the App with the given name under the read lock, e.g. to write it out while no rating can be added to it
+     * @param reader e.g. {@code app -> app.listRatings()}, given null if there is no App with the name
+     * @return the result of the reader
+     */
+    public <T> T readAppByName(String name, Function<App, T> reader) {
+        return read(() -> reader.apply(appStoreAPI.getAppByName(name)));
+    }
+
+    public boolean isValidAppName(String name) {
+        return read(() -> appStoreAPI.isValidAppName(name));
+    }
+
+    public String listAllApps() {
+        return read(appStoreAPI::listAllApps);
+    }
+
+    public String listSummaryOfAllApps() {
+        return read(appStoreAPI::listSummaryOfAllApps);
+    }
+
+    public String listAllGameApps() {
+        return read(appStoreAPI::listAllGameApps);
+    }
+
+    public String listAllEducationApps() {
+        return read(appStoreAPI::listAllEducationApps);
+    }
+
+    public String listAllProductivityApps() {
+        return read(appStoreAPI::listAllProductivityApps);
+    }
+
+    public String listAppsOverview() {
+        return read(appStoreAPI::listAppsOverview);
+    }
+
+    public String listAllAppsByName(String name) {
+        return read(() -> appStoreAPI.listAllAppsByName(name));
+    }
+
+    public String listAllAppsAboveOrEqualAGivenStarRating(int rating) {
+        return read(() -> appStoreAPI.listAllAppsAboveOrEqualAGivenStarRating(rating));
+    }
+
+    public String listAllAppsByRatingDescending() {
+        return read(appStoreAPI::listAllAppsByRatingDescending);
+    }
+
+    public String listAllRecommendedApps() {
+        return read(appStoreAPI::listAllRecommendedApps);
+    }
+
+    public String listAllAppsByChosenDeveloper(Developer developer) {
+        return read(() -> appStoreAPI.listAllAppsByChosenDeveloper(developer));
+    }
+
+    public int numberOfAppsByChosenDeveloper(Developer developer) {
+        return read(() -> appStoreAPI.numberOfAppsByChosenDeveloper(developer));
+    }
+
+    /**
+     * Take the latest catalog without any lock, it is only built under the write lock the first time and after a load
+     * or a sort. Reports run on the catalog do not hold the read lock, so they do not delay the modifications.
+     * @see AppStoreAPI#snapshot()
+     */
+    public AppCatalog snapshot() {
+        AppCatalog catalog = appStoreAPI.publishedCatalog();
+        return catalog != null ? catalog : write(appStoreAPI::snapshot);
+    }
+
+    public StoreAnalytics.Report analyse() {
+        return read(() -> new StoreAnalytics(appStoreAPI, developerAPI).analyse());
+    }
+
+    //---------------------
+    // Developers
+    //---------------------
+
+    public boolean addDeveloper(Developer developer) {
+        return write(() -> developerAPI.addDeveloper(developer));
+    }
+
+    public boolean updateDeveloperWebsite(String developerName, String developerWebsite) {
+        return write(() -> developerAPI.updateDeveloperWebsite(developerName, developerWebsite));
+    }
+
+    public boolean renameDeveloper(String developerName, String newDeveloperName) {
+        return write(() -> developerAPI.renameDeveloper(developerName, newDeveloperName));
+    }
+
+    public Developer removeDeveloper(String developerName) {
+        return write(() -> developerAPI.removeDeveloper(developerName));
+    }
+
+    public Developer getDeveloperByName(String developerName) {
+        return read(() -> developerAPI.getDeveloperByName(developerName));
+    }
+
+    /**
+     * Read the developer with the given name under the read lock, e.g. to write it out while it cannot be renamed
+     * @param reader given the developer (null if there is no developer with the name) and the number of its apps
+     * @return the result of the reader
+     */
+    public <T> T readDeveloperByName(String developerName, BiFunction<Developer, Integer, T> reader) {
+        return read(() -> {
+            Developer developer = developerAPI.getDeveloperByName(developerName);
+            return reader.apply(developer, developer == null ? 0 : appStoreAPI.numberOfAppsByChosenDeveloper(developer));
+        });
+    }
+
+    public String listDevelopers() {
+        return read(developerAPI::listDevelopers);
+    }
+
+    /**
+     * @return a copy of the list of developers
+     */
+    public List<Developer> getDevelopers() {
+        return read(() -> List.copyOf(developerAPI.getDevelopers()));
+    }
+
+    /**
+     * Read all the developers under the read lock
+     * @param reader e.g. to write them out
+     * @return the result of the reader
+     */
+    public <T> T readDevelopers(Function<List<Developer>, T> reader) {
+        return read(() -> reader.apply(developerAPI.getDevelopers()));
+    }
+
+    //---------------------
+    // Persistence
+    //---------------------
+
+    /**
+     * Save the apps and the developers, the modifications wait until the files are written
+     */
+    public void save() throws Exception {
+        writeChecked(() -> {
+            developerAPI.save();
+            appStoreAPI.save();
+        });
+    }
+
+    public void load() throws Exception {
+        writeChecked(() -> {
+            developerAPI.load();
+            appStoreAPI.load();
+        });
+    }
+
+    @FunctionalInterface
+    private interface Persistence {
+        void run() throws Exception;
+    }
+
+    private void writeChecked(Persistence persistence) throws Exception {
+        long stamp = lock.writeLock();
+        try {
+            persistence.run();
+            appStoreAPI.prepareForReads();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+}
@@ -3,17 +3,65 @@ package controllers;
 import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.io.xml.DomDriver;
 import models.*;
-import utils.ISerializer;
-import utils.Utilities;
+import utils.*;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 
-public class DeveloperAPI implements ISerializer {
+public class DeveloperAPI implements ISerializer, IDeveloperResolver {
 
     private List<Developer> developers = new ArrayList<>();
 
+    /**
+     * The developers by their identifier, the apps refer to the developers by their identifier when saved
+     */
+    private final Map<Integer, Developer> developersById = new HashMap<>();
+
+    /**
+     * The last identifier given to a developer, identifiers are never reused within a run
+     */
+    private int lastDeveloperId;
+
+    /**
+     * The first developer with each name (in lower case), so that finding a developer by its name does not scan the
+     * list. It is only changed when developers are added, renamed (through this API or not, see {@link #observer}),
+     * removed or loaded, so the lookups never write to it and can run at the same time (e.g. under the read lock of
+     * {@link ConcurrentAppStoreAPI}).
+     */
+    private final Map<String, Developer> developersByName = new HashMap<>();
+
+    /**
+     * Whether two developers may have the same name, e.g. in a loaded file or after a direct rename. Only then does
+     * removing or renaming the developer found by a name look for another developer with that name.
+     */
+    private boolean duplicateNames;
+
+    /**
+     * The position of every developer in the list, built by the first {@link #retrieveDeveloperIndex} after the list
+     * has changed. It is never changed once built but replaced, so the lookups running at the same time may build it
+     * and publish it in turn.
+     */
+    private volatile Map<Developer, Integer> positions;
+
+    /**
+     * Keeps the developers found by their name when they are renamed directly with {@link Developer#setDeveloperName}
+     */
+    private final DeveloperObserver observer = this::developerRenamed;
+
+    /**
+     * The number of changes made to the developers through this API, see {@link #getModificationCount()}. It is read
+     * without a lock by {@link ConcurrentAppStoreAPI#snapshot()}.
+     */
+    private volatile long modifications;
+
     //---------------------
     // Create methods
     //---------------------
@@ -21,7 +69,29 @@ public class DeveloperAPI implements ISerializer {
         if (isValidDeveloper(developer.getDeveloperName())){
             return false;
         }
-        return developers.add(developer);
+        developers.add(developer);
+        mapName(developer);
+        positions = null;
+        register(developer);
+        ++modifications;
+        journal(OP_ADD_DEVELOPER, developer.getDeveloperName(), developer.getDeveloperWebsite(),
+                String.valueOf(developer.getDeveloperId()));
+        if (feeding()) changeFeed.publish(sequence -> new StoreEvent.DeveloperAdded(sequence, copyOf(developer)));
+        return true;
+    }
+
+    /**
+     * Give the developer an identifier unless it already has one that is free
+     */
+    private void register(Developer developer) {
+        int id = developer.getDeveloperId();
+        if (id <= 0 || developersById.containsKey(id)) {
+            id = ++lastDeveloperId;
+            developer.setDeveloperId(id);
+        }
+        lastDeveloperId = Math.max(lastDeveloperId, id);
+        developersById.put(id, developer);
+        developer.addObserver(observer);
     }
 
     //---------------------
@@ -36,46 +106,113 @@ public class DeveloperAPI implements ISerializer {
         }
     }
 
+    @Override
+    public Developer getDeveloperById(int developerId) {
+        return developersById.get(developerId);
+    }
+
+    /**
+     * Find the registered developer that a loaded developer stands for: by its identifier, or by its name for the
+     * files saved before developers had identifiers
+     * @param developer a developer that has just been loaded
+     * @return the registered developer, or the given developer if it is not registered
+     */
+    @Override
+    public Developer resolve(Developer developer) {
+        if (developer == null) return null;
+        Developer registered = developersById.get(developer.getDeveloperId());
+        if (registered != null && (developer.getDeveloperName() == null
+                || developer.getDeveloperName().equals(registered.getDeveloperName()))) {
+            return registered;
+        }
+        if (developer.getDeveloperId() == 0) {
+            registered = getDeveloperByName(developer.getDeveloperName());
+            if (developer.equals(registered)) return registered;
+        }
+        return developer;
+    }
+
+    /**
+     * @return the first developer with the given name (case insensitive), null if there is none
+     */
     public Developer getDeveloperByName (String developerName){
-        int index = retrieveDeveloperIndex(developerName);
-        if (index != -1){
-            return developers.get(index);
+        if (developerName == null) {
+            return null;
         }
-        return null;
+        return developersByName.get(nameKey(developerName));
     }
 
 
     public String listDevelopers(){
-        StringBuilder listDevelopers = new StringBuilder();
-        for (Developer developer : developers){
-            listDevelopers.append(developers.indexOf(developer)).append(": ").append(developer).append("\n");
-        }
-        if (listDevelopers.toString().equals("")){
+        if (developers.isEmpty()) {
             return "No developers";
-        } else {
-            return listDevelopers.toString();
         }
+        StringBuilder listDevelopers = new StringBuilder();
+        for (int i = 0; i < developers.size(); i++){
+            listDevelopers.append(i).append(": ").append(developers.get(i)).append("\n");
+        }
+        return listDevelopers.toString();
     }
 
     //---------------------
     // Update methods
     //---------------------
     public boolean updateDeveloperWebsite(String developerName, String developerWebsite){
-        if (isValidDeveloper(developerName)){
-            Developer developerToUpdate = getDeveloperByName(developerName);
+        Developer developerToUpdate = getDeveloperByName(developerName);
+        if (developerToUpdate != null){
             developerToUpdate.setDeveloperWebsite(developerWebsite);
+            ++modifications;
+            journal(OP_UPDATE_DEVELOPER_WEBSITE, developerName, developerWebsite);
+            if (feeding()) {
+                changeFeed.publish(sequence -> new StoreEvent.DeveloperUpdated(sequence, copyOf(developerToUpdate)));
+            }
             return true;
         }
         return false;
     }
 
+    /**
+     * Rename a developer unless its new name is taken. A developer renamed directly with
+     * {@link Developer#setDeveloperName} is found by its new name too, but only the renames through this method are
+     * journaled and published to the change feed.
+     *
+     * @return false if there is no developer with the old name, or if another developer already has the new name
+     */
+    public boolean renameDeveloper(String developerName, String newDeveloperName){
+        Developer developer = getDeveloperByName(developerName);
+        if (developer == null || newDeveloperName == null || newDeveloperName.isEmpty()) {
+            return false;
+        }
+        Developer existing = getDeveloperByName(newDeveloperName);
+        if (existing != null && existing != developer) {
+            return false;
+        }
+        developer.setDeveloperName(newDeveloperName); // see developerRenamed
+        journal(OP_RENAME_DEVELOPER, developerName, newDeveloperName);
+        if (feeding()) changeFeed.publish(sequence -> new StoreEvent.DeveloperUpdated(sequence, copyOf(developer)));
+        return true;
+    }
+
     //---------------------
     // Delete methods
     //---------------------
     public Developer removeDeveloper(String developerName){
-        int index = retrieveDeveloperIndex(developerName);
-        if (index != -1) {
-            return developers.remove(index);
+        Developer developer = getDeveloperByName(developerName);
+        if (developer != null) {
+            journal(OP_REMOVE_DEVELOPER, developerName);
+            for (int i = 0; i < developers.size(); i++) {
+                if (developers.get(i) == developer) { // not equals(), an equal developer may be before it
+                    developers.remove(i);
+                    break;
+                }
+            }
+            positions = null;
+            unmapName(developer, developer.getDeveloperName());
+            developer.removeObserver(observer);
+            developersById.remove(developer.getDeveloperId());
+            ++modifications;
+            if (feeding()) changeFeed.publish(sequence -> new StoreEvent.DeveloperRemoved(sequence, copyOf(developer)));
+            return developer;
         }
         return null;
     }
@@ -84,79 +221,301 @@ public class DeveloperAPI implements ISerializer {
     // Validation Methods
     //---------------------
     public boolean isValidDeveloper(String developerName){
-        for (Developer developer : developers){
-            if (developer.getDeveloperName().equalsIgnoreCase(developerName)){
-                return true;
+        return getDeveloperByName(developerName) != null;
+    }
+
+    /**
+     * @return the index of the first developer with the given name (case insensitive), -1 if there is none
+     */
+    public int retrieveDeveloperIndex(String developerName){
+        Developer developer = getDeveloperByName(developerName);
+        if (developer == null) {
+            return -1;
+        }
+        Map<Developer, Integer> built = positions;
+        if (built == null) {
+            built = new IdentityHashMap<>();
+            for (int i = 0; i < developers.size(); i++) {
+                built.putIfAbsent(developers.get(i), i);
             }
+            positions = built;
         }
-        return false;
+        return built.get(developer);
     }
 
-    public int retrieveDeveloperIndex(String developerName){
-        for (Developer developer : developers){
-            if (developer.getDeveloperName().equalsIgnoreCase(developerName)){
-                return developers.indexOf(developer);
+    @Override
+    public long getModificationCount() {
+        return modifications;
+    }
+
+    private static String nameKey(String developerName) {
+        return developerName == null ? null : developerName.toLowerCase(Locale.ROOT);
+    }
+
+    private void mapName(Developer developer) {
+        if (developersByName.putIfAbsent(nameKey(developer.getDeveloperName()), developer) != null) {
+            duplicateNames = true;
+        }
+    }
+
+    /**
+     * Remove the developer from the name map, another developer with the same name then takes its place
+     */
+    private void unmapName(Developer developer, String name) {
+        String key = nameKey(name);
+        if (!developersByName.remove(key, developer) || !duplicateNames) {
+            return;
+        }
+        for (Developer other : developers) {
+            if (other != developer && Objects.equals(nameKey(other.getDeveloperName()), key)) {
+                developersByName.put(key, other);
+                return;
             }
         }
-        return -1;
+    }
+
+    /**
+     * Move the developer from its previous name to its new name in the name map, however it was renamed
+     */
+    private void developerRenamed(Developer developer, String previousName) {
+        if (!Objects.equals(nameKey(previousName), nameKey(developer.getDeveloperName()))) {
+            unmapName(developer, previousName);
+            mapName(developer);
+        }
+        ++modifications;
+    }
+
+    private void rebuildNameIndex() {
+        developersByName.clear();
+        duplicateNames = false;
+        for (Developer developer : developers) {
+            mapName(developer);
+        }
+        positions = null;
     }
 
     //---------------------
     // Getters/Setters
     //---------------------
+    /**
+     * @return a read-only view of the developers, they are added and removed through this API so that the name index
+     * stays up to date
+     */
     public List<Developer> getDevelopers() {
-        return developers;
+        return Collections.unmodifiableList(developers);
     }
 
     //---------------------
     // Persistence Methods
     //---------------------
     /**
-     * The load method uses the XStream component to read all the objects from the xml
-     * file stored on the hard disk.  The read objects are loaded into the associated ArrayList
+     * The load method reads all the developers from the file stored on the hard disk, in the selected
+     * {@link SnapshotFormat}. XML files are read with a streaming pull parser. The read objects are loaded into the
+     * associated ArrayList, then the saved mutations of the journal (if enabled) are applied again
      *
      * @throws Exception An exception is thrown if an error occurred during the load e.g. a missing file.
+     * @see XMLStreamLoader
+     * @see BinarySnapshot
      */
-    @SuppressWarnings("unchecked")
     public void load() throws Exception {
-        //list of classes that you wish to include in the serialisation, separated by a comma
-        Class<?>[] classes = new Class[]{Developer.class, String.class, boolean.class, int.class, double.class};
-        XStream xstream = new XStream(new DomDriver());
-        xstream.allowTypes(classes);
-
-        //doing the actual serialisation to an XML file
-        ObjectInputStream in = xstream.createObjectInputStream(new FileReader(fileName()));
-        developers = (List<Developer>) in.readObject();
-        in.close();
+        List<Developer> previous = developers;
+        if (snapshotFormat == SnapshotFormat.BINARY) {
+            try (InputStream in = new FileInputStream(fileName())) {
+                developers = BinarySnapshot.readDevelopers(in);
+            }
+        } else {
+            try (Reader reader = new InputStreamReader(new FileInputStream(fileName()), StandardCharsets.UTF_8)) {
+                developers = XMLStreamLoader.loadDevelopers(reader);
+            }
+        }
+        for (Developer developer : previous) {
+            developer.removeObserver(observer);
+        }
+        developersById.clear();
+        lastDeveloperId = 0;
+        for (Developer developer : developers) {
+            lastDeveloperId = Math.max(lastDeveloperId, developer.getDeveloperId());
+        }
+        for (Developer developer : developers) {
+            register(developer); // files saved before developers had identifiers get new ones
+        }
+        rebuildNameIndex();
+        ++modifications;
+        if (journal != null) {
+            replaying = true;
+            try {
+                journal.replay(this::replay);
+            } finally {
+                replaying = false;
+            }
+            journalInSync = true;
+        }
+        if (feeding()) changeFeed.publish(StoreEvent.DevelopersReplaced::new);
     }
 
     /**
-     * The save method uses the XStream component to write all the objects in the ArrayList
-     * to the xml file stored on the hard disk.
+     * The save method writes all the objects in the ArrayList to the file stored on the hard disk, either with the
+     * XStream component or as a {@link BinarySnapshot}. When the journal is enabled, only the mutations since the last
+     * save are forced to the disk until the journal grows past the checkpoint interval.
      *
      * @throws Exception An exception is thrown if an error occurred during the save e.g. drive is full.
      */
     public void save() throws Exception {
-        XStream xstream = new XStream(new DomDriver());
-        ObjectOutputStream out = xstream.createObjectOutputStream(new FileWriter(fileName()));
-        out.writeObject(developers);
-        out.close();
+        if (journal != null && journalInSync && journal.size() < checkpointInterval) {
+            journal.flush();
+        } else {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Write all the developers to the file and empty the journal (if enabled)
+     *
+     * @throws Exception An exception is thrown if an error occurred during the save e.g. drive is full.
+     */
+    public void checkpoint() throws Exception {
+        writeSnapshot(new File(fileName()));
+        if (journal != null) {
+            journal.truncate();
+            journalInSync = true;
+        }
+    }
+
+    private void writeSnapshot(File file) throws IOException {
+        if (snapshotFormat == SnapshotFormat.BINARY) {
+            try (OutputStream out = new FileOutputStream(file)) {
+                BinarySnapshot.writeDevelopers(developers, out);
+            }
+        } else {
+            XStream xstream = new XStream(new DomDriver());
+            Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
+            ObjectOutputStream out = xstream.createObjectOutputStream(writer);
+            out.writeObject(developers);
+            out.close();
+        }
+    }
+
+    private SnapshotFormat snapshotFormat = SnapshotFormat.XML;
+
+    @Override
+    public SnapshotFormat getSnapshotFormat() {
+        return snapshotFormat;
+    }
+
+    @Override
+    public void setSnapshotFormat(SnapshotFormat snapshotFormat) {
+        this.snapshotFormat = snapshotFormat;
+    }
+
+    private String xmlFileName = "developers.xml";
+
+    /**
+     * @param fileName the name of the XML file of the developers, e.g. developers.xml; the binary snapshot and the
+     *                 journal are named after it
+     */
+    public void setFileName(String fileName) {
+        this.xmlFileName = fileName;
+        if (journal != null) {
+            journal.close();
+            journal = new MutationJournal(journalFileName());
+            journalInSync = false;
+        }
     }
 
     public String fileName(){
-        File xmlFile = new File("developers.xml");
-        if(!xmlFile.exists()) {
+        File file = new File(snapshotFormat.fileName(xmlFileName));
+        if(!file.exists()) {
             try {
-                xmlFile.createNewFile();
-                ObjectOutputStream out = new XStream(new DomDriver()).createObjectOutputStream(new FileWriter("developers.xml"));
-                out.writeObject(developers);
-                out.close();
+                file.createNewFile();
+                writeSnapshot(file);
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
         }
-        return xmlFile.getName();
+        return file.getName();
     }
 
+    //---------------------
+    // Change Feed Methods
+    //---------------------
+    private ChangeFeed changeFeed;
 
+    /**
+     * Publish every modification of the developers to the subscribers of the feed, from now on
+     *
+     * @param changeFeed the feed, e.g. shared with the {@link AppStoreAPI}; null to stop publishing
+     */
+    public void setChangeFeed(ChangeFeed changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+
+    private boolean feeding() {
+        return changeFeed != null && !replaying && changeFeed.hasSubscribers();
+    }
+
+    private static Developer copyOf(Developer developer) {
+        Developer copy = new Developer(developer.getDeveloperName(), developer.getDeveloperWebsite());
+        copy.setDeveloperId(developer.getDeveloperId());
+        return copy;
+    }
+
+    //---------------------
+    // Journal Methods
+    //---------------------
+    private static final int OP_ADD_DEVELOPER = 1, OP_UPDATE_DEVELOPER_WEBSITE = 2, OP_REMOVE_DEVELOPER = 3,
+            OP_RENAME_DEVELOPER = 4;
+
+    private MutationJournal journal;
+    private int checkpointInterval;
+    private boolean journalInSync;
+    private boolean replaying;
+
+    /**
+     * Record every mutation in an append-only journal (e.g. developers.journal) instead of rewriting the whole file on
+     * every {@link #save()}.
+     *
+     * @param checkpointInterval the number of mutations after which {@link #save()} writes a full snapshot again
+     * @see AppStoreAPI#enableJournal(int)
+     */
+    public void enableJournal(int checkpointInterval) {
+        this.journal = new MutationJournal(journalFileName());
+        this.checkpointInterval = checkpointInterval;
+        this.journalInSync = false;
+    }
+
+    private String journalFileName() {
+        return xmlFileName.replaceFirst("\\.xml$", "") + ".journal";
+    }
+
+    public void disableJournal() throws IOException {
+        if (journal != null) journal.close();
+        journal = null;
+    }
+
+    private void journal(int operation, String... arguments) {
+        if (journal == null || replaying) return;
+        try {
+            DataOutputStream out = journal.begin(operation);
+            for (String argument : arguments) {
+                out.writeUTF(argument);
+            }
+            journal.commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void replay(int operation, DataInputStream in) throws IOException {
+        switch (operation) {
+            case OP_ADD_DEVELOPER -> {
+                Developer developer = new Developer(in.readUTF(), in.readUTF());
+                developer.setDeveloperId(Integer.parseInt(in.readUTF()));
+                addDeveloper(developer);
+            }
+            case OP_UPDATE_DEVELOPER_WEBSITE -> updateDeveloperWebsite(in.readUTF(), in.readUTF());
+            case OP_REMOVE_DEVELOPER -> removeDeveloper(in.readUTF());
+            case OP_RENAME_DEVELOPER -> renameDeveloper(in.readUTF(), in.readUTF());
+            default -> throw new IOException("Unknown journal record: " + operation);
+        }
+    }
 }
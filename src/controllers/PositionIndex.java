@@ -0,0 +1,208 @@
+package controllers;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+
+/**
+ * An index of the positions of the apps in {@link AppStoreAPI} by a key, e.g. the normalised name of the apps. The
+ * positions of a key are kept in ascending order, i.e. in the order of the list of apps.
+ * @param <K> the type of the key
+ * @author Ryker Zhu
+ */
+class PositionIndex<K> {
+
+    /**
+     * A sorted, growable array of positions
+     */
+    private static class Positions {
+        private int[] values = new int[2];
+        private int size;
+
+        void insert(int position) {
+            int at = size == 0 || values[size - 1] < position ? size : Arrays.binarySearch(values, 0, size, position);
+            if(at >= 0 && at < size) return; // already indexed
+            if(at < 0) at = -at - 1;
+            if(size == values.length) values = Arrays.copyOf(values, size * 2);
+            System.arraycopy(values, at, values, at + 1, size - at);
+            values[at] = position;
+            ++size;
+        }
+
+        boolean delete(int position) {
+            int at = Arrays.binarySearch(values, 0, size, position);
+            if(at < 0) return false;
+            System.arraycopy(values, at + 1, values, at, --size - at);
+            return true;
+        }
+    }
+
+    private final Map<K, Positions> index;
+
+    PositionIndex() {
+        this(false);
+    }
+
+    /**
+     * @param identity whether the keys are compared by reference instead of {@link Object#equals(Object)}, e.g. for
+     *                 keys that can be modified while they are indexed
+     */
+    PositionIndex(boolean identity) {
+        index = identity ? new IdentityHashMap<>() : new HashMap<>();
+    }
+
+    /**
+     * A sorted index, which also supports range queries ({@link #positionsFrom}) and ordered traversals
+     * ({@link #forEachDescending})
+     * @param comparator the order of the keys
+     */
+    PositionIndex(Comparator<? super K> comparator) {
+        index = new TreeMap<>(comparator);
+    }
+
+    /**
+     * Index the app at the given position under the given key
+     */
+    void add(K key, int position) {
+        index.computeIfAbsent(key, k -> new Positions()).insert(position);
+    }
+
+    /**
+     * Remove the app at the given position from the given key, the other positions are unchanged
+     */
+    void remove(K key, int position) {
+        Positions positions = index.get(key);
+        if(positions != null && positions.delete(position) && positions.size == 0) index.remove(key);
+    }
+
+    /**
+     * Called once the app at the given position has been removed from the list: the position is removed from the
+     * given key and the positions after it are moved down by one. It takes O(n) for n indexed positions, like the
+     * removal from the list itself.
+     */
+    void delete(K key, int position) {
+        remove(key, position);
+        for(Positions positions : index.values()) {
+            int at = Arrays.binarySearch(positions.values, 0, positions.size, position);
+            for(int i = at < 0 ? -at - 1 : at; i < positions.size; i++) positions.values[i]--;
+        }
+    }
+
+    /**
+     * @return the number of apps indexed under the given key
+     */
+    int count(K key) {
+        Positions positions = index.get(key);
+        return positions == null ? 0 : positions.size;
+    }
+
+    /**
+     * @return the first position indexed under the given key, -1 if there is none
+     */
+    int first(K key) {
+        Positions positions = index.get(key);
+        return positions == null ? -1 : positions.values[0];
+    }
+
+    /**
+     * Call the action with every position indexed under the given key, in ascending order
+     */
+    void forEach(K key, IntConsumer action) {
+        Positions positions = index.get(key);
+        if(positions == null) return;
+        for(int i = 0; i < positions.size; i++) action.accept(positions.values[i]);
+    }
+
+    /**
+     * @return a copy of the positions indexed under the given key, in ascending order
+     */
+    int[] positions(K key) {
+        Positions positions = index.get(key);
+        return positions == null ? new int[0] : Arrays.copyOf(positions.values, positions.size);
+    }
+
+    /**
+     * @return the positions indexed under all the keys that match the predicate, in ascending order, merged in
+     * O(k log g) for k positions under g keys
+     */
+    int[] positions(Predicate<K> matching) {
+        List<Positions> matched = new ArrayList<>();
+        for(Map.Entry<K, Positions> entry : index.entrySet()) {
+            if(matching.test(entry.getKey())) matched.add(entry.getValue());
+        }
+        return merge(matched);
+    }
+
+    /**
+     * Only for a sorted index: the keys are found in O(log n) and their positions merged in O(k log g) for k
+     * positions under g keys, as the positions of different keys are interleaved in the list
+     * @return the positions indexed under the keys greater than or equal to the given key, in ascending order
+     */
+    int[] positionsFrom(K from) {
+        return merge(((NavigableMap<K, Positions>) index).tailMap(from, true).values());
+    }
+
+    /**
+     * Only for a sorted index: call the action with every position, the keys in descending order and the positions
+     * of a key in ascending order
+     */
+    void forEachDescending(IntConsumer action) {
+        for(Positions positions : ((NavigableMap<K, Positions>) index).descendingMap().values()) {
+            for(int i = 0; i < positions.size; i++) action.accept(positions.values[i]);
+        }
+    }
+
+    /**
+     * Merge the sorted positions of several keys, the next position is taken from a heap of the keys
+     */
+    private static int[] merge(Collection<Positions> matched) {
+        int length = 0;
+        for(Positions positions : matched) length += positions.size;
+        int[] all = new int[length];
+        if(matched.size() == 1) {
+            Positions positions = matched.iterator().next();
+            System.arraycopy(positions.values, 0, all, 0, positions.size);
+            return all;
+        }
+        Positions[] heap = new Positions[matched.size()];
+        int[] next = new int[heap.length]; // the next position to take from each key of the heap
+        int keys = 0;
+        for(Positions positions : matched) {
+            if(positions.size > 0) heap[keys++] = positions;
+        }
+        for(int i = keys / 2 - 1; i >= 0; i--) siftDown(heap, next, i, keys);
+        for(int at = 0; at < length; at++) {
+            all[at] = heap[0].values[next[0]++];
+            if(next[0] == heap[0].size) {
+                heap[0] = heap[--keys];
+                next[0] = next[keys];
+            }
+            siftDown(heap, next, 0, keys);
+        }
+        return all;
+    }
+
+    private static void siftDown(Positions[] heap, int[] next, int i, int keys) {
+        for(int child = 2 * i + 1; child < keys; i = child, child = 2 * i + 1) {
+            if(child + 1 < keys && heap[child + 1].values[next[child + 1]] < heap[child].values[next[child]]) ++child;
+            if(heap[i].values[next[i]] <= heap[child].values[next[child]]) return;
+            Positions positions = heap[i];
+            heap[i] = heap[child];
+            heap[child] = positions;
+            int taken = next[i];
+            next[i] = next[child];
+            next[child] = taken;
+        }
+    }
+
+    /**
+     * @return the keys that have at least one position
+     */
+    Set<K> keys() {
+        return index.keySet();
+    }
+
+    void clear() {
+        index.clear();
+    }
+}
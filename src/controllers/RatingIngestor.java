@@ -0,0 +1,226 @@
+package controllers;
+
+import models.App;
+import models.Rating;
+import models.RatingStore;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accepts ratings from many threads at once, for the same or different apps, without a lock.
+ * <p>An {@link App} is not thread-safe, so a submitted rating is only added to its App when the thread that owns the
+ * apps (e.g. the one calling the {@link AppStoreAPI}) calls {@link #drain()}. Until then the rating waits in a
+ * buffer of the submitting thread, and the number of ratings by number of stars is counted in striped counters
+ * ({@link LongAdder}) that can be read at any time without blocking the submitters. The counters start from the
+ * ratings the App already has when its first rating is submitted.</p>
+ * @author Ryker Zhu
+ */
+public class RatingIngestor {
+
+    /**
+     * The number of ratings a buffer holds before it is handed over and a new one is started
+     */
+    private static final int CHUNK_SIZE = 256;
+
+    /**
+     * A fixed-size buffer written by one thread only. The submitter writes a rating and then publishes it by
+     * increasing {@link #size}; {@link #drain()} seals the chunk by making the size negative, after which the
+     * submitter moves to a new chunk and the ratings published so far belong to the drain. A full chunk is sealed by
+     * the drain in the same way.
+     */
+    private static final class Chunk {
+        final App[] apps = new App[CHUNK_SIZE];
+        final Rating[] ratings = new Rating[CHUNK_SIZE];
+        final AtomicInteger size = new AtomicInteger();
+
+        /**
+         * Only called by the owning thread
+         * @return false if the chunk is full or sealed
+         */
+        boolean offer(App app, Rating rating) {
+            int at = size.get();
+            if(at < 0 || at == CHUNK_SIZE) return false;
+            apps[at] = app;
+            ratings[at] = rating;
+            return size.compareAndSet(at, at + 1);
+        }
+
+        /**
+         * @return the number of ratings published before the chunk was sealed, 0 if it had already been sealed
+         */
+        int seal() {
+            for(;;) {
+                int published = size.get();
+                if(published < 0) return 0;
+                if(size.compareAndSet(published, -published - 1)) return published;
+            }
+        }
+    }
+
+    /**
+     * The buffer of one submitting thread, only that thread replaces its current chunk
+     */
+    private final class Buffer {
+        final Thread owner = Thread.currentThread();
+        volatile Chunk current = new Chunk();
+
+        void add(App app, Rating rating) {
+            while(!current.offer(app, rating)) {
+                Chunk full = current;
+                current = new Chunk();
+                if(full.size.get() >= 0) handedOver.add(full); // not sealed by a drain yet
+            }
+        }
+    }
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The chunks that their threads have filled, waiting for {@link #drain()}</p>
+     */
+    private final Queue<Chunk> handedOver = new ConcurrentLinkedQueue<>();
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The buffers of the threads that have submitted a rating, the buffer of a thread that has terminated is
+     * removed once it has been drained</p>
+     */
+    private final Queue<Buffer> buffers = new ConcurrentLinkedQueue<>();
+
+    private final ThreadLocal<Buffer> buffer = ThreadLocal.withInitial(() -> {
+        Buffer buffer = new Buffer();
+        buffers.add(buffer);
+        return buffer;
+    });
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The number of ratings of every App by number of stars (0 to 5), the ratings it had when it was first seen
+     * plus the submitted ones, until the App is {@link #forget forgotten}</p>
+     */
+    private final Map<App, LongAdder[]> starCounts = new ConcurrentHashMap<>();
+
+    private final LongAdder pending = new LongAdder();
+
+    /**
+     * Submit a rating, safe to call from any thread
+     * @param app the App that is rated
+     * @param rating the rating to add to the App on the next {@link #drain()}
+     */
+    public void submit(App app, Rating rating) {
+        LongAdder[] counters = counters(app); // before the rating can be drained, see counters(App)
+        buffer.get().add(app, rating);
+        counters[rating.getNumberOfStars()].increment();
+        pending.increment();
+    }
+
+    /**
+     * The counters of an App are created before any of its ratings is buffered, so the ratings the App has then were
+     * not submitted through this ingestor and are counted only once
+     */
+    private LongAdder[] counters(App app) {
+        LongAdder[] counters = starCounts.get(app);
+        if(counters != null) return counters;
+        return starCounts.computeIfAbsent(app, a -> {
+            LongAdder[] created = new LongAdder[6];
+            for(int i = 0; i < created.length; i++) {
+                created[i] = new LongAdder();
+                created[i].add(a.getNumberOfRatings(i));
+            }
+            return created;
+        });
+    }
+
+    /**
+     * Add every rating submitted so far to its App. Only call it from the thread that owns the apps, the submitters
+     * keep going meanwhile.
+     * @return the number of ratings added
+     */
+    public int drain() {
+        int drained = 0;
+        Map<App, RatingStore> batches = new IdentityHashMap<>();
+        for(Chunk chunk; (chunk = handedOver.poll()) != null; ) drained += drain(chunk, batches);
+        for(Iterator<Buffer> iterator = buffers.iterator(); iterator.hasNext(); ) {
+            Buffer buffer = iterator.next();
+            boolean terminated = !buffer.owner.isAlive(); // checked first: the thread submits nothing afterwards
+            drained += drain(buffer.current, batches);
+            if(terminated) iterator.remove();
+        }
+        batches.forEach(App::addRatings);
+        pending.add(-drained);
+        return drained;
+    }
+
+    /**
+     * Stop counting the ratings of the App, e.g. once it has been deleted from the store, so that the counters do not
+     * keep it alive. The counters start again from the ratings of the App when it is next rated, so drain its pending
+     * ratings first if it may still be rated.
+     * @param app the App whose counters are removed
+     */
+    public void forget(App app) {
+        starCounts.remove(app);
+    }
+
+    /**
+     * Move the published ratings of the chunk to the batch of their App, every App gets its batch at once through
+     * {@link App#addRatings(RatingStore)}
+     */
+    private static int drain(Chunk chunk, Map<App, RatingStore> batches) {
+        int size = chunk.seal();
+        for(int i = 0; i < size; i++) {
+            batches.computeIfAbsent(chunk.apps[i], app -> new RatingStore()).add(chunk.ratings[i]);
+            chunk.apps[i] = null;
+            chunk.ratings[i] = null;
+        }
+        return size;
+    }
+
+    /**
+     * @return an estimate of the number of ratings submitted but not drained yet
+     */
+    public long getNumberOfPendingRatings() {
+        return pending.sum();
+    }
+
+    /**
+     * @return the number of ratings of the App, including the ones submitted through this ingestor and not drained yet
+     */
+    public long getNumberOfRatings(App app) {
+        LongAdder[] counters = starCounts.get(app);
+        if(counters == null) return 0;
+        long total = 0;
+        for(LongAdder counter : counters) total += counter.sum();
+        return total;
+    }
+
+    /**
+     * @param numberOfStars from 0 to 5
+     * @return the number of ratings of the App with the given number of stars, including the submitted ones
+     */
+    public long getNumberOfRatings(App app, int numberOfStars) {
+        LongAdder[] counters = starCounts.get(app);
+        return counters == null ? 0 : counters[numberOfStars].sum();
+    }
+
+    /**
+     * The ratings with 0 stars are not counted in the average, like {@link App#calculateRating()}
+     * @return the average number of stars of the ratings of the App including the submitted ones, 0 if there are none
+     */
+    public double calculateRating(App app) {
+        LongAdder[] counters = starCounts.get(app);
+        if(counters == null) return 0;
+        long stars = 0, rated = 0;
+        for(int i = 1; i < counters.length; i++) {
+            long count = counters[i].sum();
+            stars += i * count;
+            rated += count;
+        }
+        return rated == 0 ? 0 : (double) stars / rated;
+    }
+}
@@ -0,0 +1,438 @@
+package controllers;
+
+import models.*;
+import utils.StarDistribution;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * A thread-safe store that spreads the apps over several {@link AppStoreAPI} shards, each with its own lock, so that
+ * modifications of apps in different shards run in parallel instead of waiting for each other as they do in
+ * {@link ConcurrentAppStoreAPI}.
+ * <p>Every App gets an identifier when it is added, which places it in a shard for as long as it is in the store: a
+ * renamed App stays where it is. The identifiers are found by name (case insensitive) in a map shared by the shards,
+ * so the methods that take a name only lock the shards of the apps with that name. The listings and the counts go
+ * through all the shards in parallel, each rendering its apps under its read lock, and merge the results. The shards
+ * are locked one after the other, so a listing made while other threads modify the store is consistent within every
+ * shard but not across them.</p>
+ * <p>The apps are listed by name since the positions of the apps in the shards mean nothing to the caller, and they
+ * must only be changed through {@link #updateApp(String, Consumer)}.</p>
+ * @author Ryker Zhu
+ */
+public class ShardedAppStoreAPI {
+
+    private static final class Shard {
+        final AppStoreAPI appStoreAPI = new AppStoreAPI();
+        final StampedLock lock = new StampedLock();
+
+        /**
+         * The apps of the shard by their identifier, only used under the lock
+         */
+        final Map<Long, App> apps = new HashMap<>();
+
+        <T> T read(Supplier<T> query) {
+            long stamp = lock.readLock();
+            try {
+                return query.get();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        <T> T write(Supplier<T> modification) {
+            long stamp = lock.writeLock();
+            try {
+                T result = modification.get();
+                appStoreAPI.prepareForReads();
+                return result;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * An App rendered under the read lock of its shard, with the values the shards are merged by
+     */
+    private record Rendered(String name, double rating, String text) {
+    }
+
+    private static final Comparator<Rendered> BY_NAME = Comparator.comparing(Rendered::name);
+
+    private final Shard[] shards;
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The next identifier to give to an App, the identifiers are given in turn to every shard</p>
+     */
+    private final AtomicLong nextId = new AtomicLong();
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The identifiers of the apps by name (case insensitive), in ascending order. It is changed under the write
+     * lock of the shard of the App, so once the lock is released the App is found by its new name only.</p>
+     */
+    private final Map<String, long[]> idsByName = new ConcurrentHashMap<>();
+
+    /**
+     * @param numberOfShards the number of shards, e.g. the number of cores
+     */
+    public ShardedAppStoreAPI(int numberOfShards) {
+        if(numberOfShards < 1) throw new IllegalArgumentException("There must be at least one shard");
+        shards = new Shard[numberOfShards];
+        for(int i = 0; i < numberOfShards; i++) shards[i] = new Shard();
+        setFileName("apps.xml");
+    }
+
+    public int getNumberOfShards() {
+        return shards.length;
+    }
+
+    /**
+     * @return the index of the shard of the App with the given identifier
+     */
+    int shardOf(long id) {
+        return (int) Math.floorMod(id, (long) shards.length);
+    }
+
+    private Shard shard(long id) {
+        return shards[shardOf(id)];
+    }
+
+    //---------------------
+    // Name map
+    //---------------------
+
+    /**
+     * @return the key of the given name in the name map, which cannot hold null
+     */
+    private static String nameKey(String name) {
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean hasName(App app, String name) {
+        return app != null && app.getAppName() != null && app.getAppName().equalsIgnoreCase(name);
+    }
+
+    private long[] idsOf(String name) {
+        return name == null ? new long[0] : idsByName.getOrDefault(nameKey(name), new long[0]);
+    }
+
+    private void mapName(String name, long id) {
+        idsByName.merge(nameKey(name), new long[]{id}, (ids, added) -> {
+            int at = -Arrays.binarySearch(ids, id) - 1;
+            long[] more = new long[ids.length + 1];
+            System.arraycopy(ids, 0, more, 0, at);
+            more[at] = id;
+            System.arraycopy(ids, at, more, at + 1, ids.length - at);
+            return more;
+        });
+    }
+
+    private void unmapName(String name, long id) {
+        idsByName.computeIfPresent(nameKey(name), (key, ids) -> {
+            int at = Arrays.binarySearch(ids, id);
+            if(at < 0) return ids;
+            if(ids.length == 1) return null;
+            long[] fewer = new long[ids.length - 1];
+            System.arraycopy(ids, 0, fewer, 0, at);
+            System.arraycopy(ids, at + 1, fewer, at, fewer.length - at);
+            return fewer;
+        });
+    }
+
+    //---------------------
+    // Scatter and gather
+    //---------------------
+
+    /**
+     * Run the query on every shard in parallel, each under its read lock
+     * @return the results in the order of the shards
+     */
+    private <T> List<T> scatter(Function<AppStoreAPI, T> query) {
+        return IntStream.range(0, shards.length).parallel()
+                .mapToObj(i -> shards[i].read(() -> query.apply(shards[i].appStoreAPI))).toList();
+    }
+
+    /**
+     * Run the indexed query of every shard and render the apps it finds under the read lock of the shard
+     * @param rendering e.g. {@code App::toString}
+     * @return the rendered apps of all the shards, by name
+     */
+    private List<Rendered> gather(Function<AppStoreAPI, List<App>> query, Function<App, String> rendering) {
+        List<Rendered> gathered = new ArrayList<>();
+        for(List<Rendered> rendered : scatter(store -> render(query.apply(store), rendering))) gathered.addAll(rendered);
+        gathered.sort(BY_NAME);
+        return gathered;
+    }
+
+    private List<Rendered> gather(Function<AppStoreAPI, List<App>> query) {
+        return gather(query, App::toString);
+    }
+
+    private static List<Rendered> render(List<App> apps, Function<App, String> rendering) {
+        List<Rendered> rendered = new ArrayList<>(apps.size());
+        for(App app : apps) {
+            rendered.add(new Rendered(app.getAppName(), AppStoreAPI.ratingKey(app), rendering.apply(app)));
+        }
+        return rendered;
+    }
+
+    private static String join(List<Rendered> rendered, String none) {
+        if(rendered.isEmpty()) return none;
+        StringBuilder sb = new StringBuilder();
+        for(Rendered app : rendered) sb.append(app.text()).append('\n');
+        return sb.toString();
+    }
+
+    //---------------------
+    // Apps
+    //---------------------
+
+    public boolean addApp(App app) {
+        long id = nextId.getAndIncrement();
+        Shard shard = shard(id);
+        return shard.write(() -> {
+            if(!shard.appStoreAPI.addApp(app)) return false;
+            shard.apps.put(id, app);
+            mapName(app.getAppName(), id);
+            return true;
+        });
+    }
+
+    /**
+     * @return the first App added with the name that was removed, null if there is no App with the name
+     */
+    public App deleteAppByName(String name) {
+        for(long id : idsOf(name)) {
+            Shard shard = shard(id);
+            App deleted = shard.write(() -> {
+                App app = shard.apps.get(id);
+                if(!hasName(app, name)) return null; // renamed or deleted meanwhile
+                shard.apps.remove(id);
+                unmapName(app.getAppName(), id);
+                return shard.appStoreAPI.deleteApp(app);
+            });
+            if(deleted != null) return deleted;
+        }
+        return null;
+    }
+
+    /**
+     * Change the first App added with the given name under the write lock of its shard. A renamed App stays in its
+     * shard, and it is found by its new name once the modification is done.
+     * @param name the name of the App
+     * @param modification e.g. {@code app -> app.setAppCost(1.99)}
+     * @return false if there is no App with the name
+     */
+    public boolean updateApp(String name, Consumer<App> modification) {
+        for(long id : idsOf(name)) {
+            Shard shard = shard(id);
+            boolean updated = shard.write(() -> {
+                App app = shard.apps.get(id);
+                if(!hasName(app, name)) return false;
+                String before = app.getAppName();
+                try {
+                    modification.accept(app);
+                } finally {
+                    if(!nameKey(before).equals(nameKey(app.getAppName()))) {
+                        unmapName(before, id);
+                        mapName(app.getAppName(), id);
+                    }
+                }
+                return true;
+            });
+            if(updated) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the first App added with the given name (case insensitive), null if there is none
+     */
+    public App getAppByName(String name) {
+        for(long id : idsOf(name)) {
+            Shard shard = shard(id);
+            App app = shard.read(() -> shard.apps.get(id));
+            if(hasName(app, name)) return app;
+        }
+        return null;
+    }
+
+    public boolean isValidAppName(String name) {
+        return getAppByName(name) != null;
+    }
+
+    /**
+     * Simulate ratings for every App, the shards in parallel. Every shard has its own generator split from the seeded
+     * one, so the same seed gives the same ratings for the same number of shards.
+     * @see AppStoreAPI#simulateRatings(int, long, StarDistribution)
+     */
+    public void simulateRatings(int ratingsPerApp, long seed, StarDistribution stars) {
+        SplittableRandom root = new SplittableRandom(seed);
+        long[] seeds = new long[shards.length];
+        for(int i = 0; i < seeds.length; i++) seeds[i] = root.split().nextLong();
+        IntStream.range(0, shards.length).parallel().forEach(i -> shards[i].write(() -> {
+            shards[i].appStoreAPI.simulateRatings(ratingsPerApp, seeds[i], stars);
+            return null;
+        }));
+    }
+
+    public int numberOfApps() {
+        int total = 0;
+        for(int count : scatter(AppStoreAPI::numberOfApps)) total += count;
+        return total;
+    }
+
+    public int numberOfAppsByChosenDeveloper(Developer developer) {
+        int total = 0;
+        for(int count : scatter(store -> store.numberOfAppsByChosenDeveloper(developer))) total += count;
+        return total;
+    }
+
+    /**
+     * Every App has the same chance to be chosen, whatever its shard
+     * @return a random App, null if there are no apps
+     */
+    public App randomApp() {
+        for(;;) {
+            List<Integer> sizes = scatter(AppStoreAPI::numberOfApps);
+            int total = 0;
+            for(int size : sizes) total += size;
+            if(total == 0) return null;
+            int index = ThreadLocalRandom.current().nextInt(total);
+            int i = 0;
+            while(index >= sizes.get(i)) index -= sizes.get(i++);
+            int position = index;
+            Shard shard = shards[i];
+            App app = shard.read(() -> shard.appStoreAPI.getAppByIndex(position));
+            if(app != null) return app; // otherwise the shard has shrunk meanwhile
+        }
+    }
+
+    public String listAllApps() {
+        return join(gather(AppStoreAPI::loadedApps), "No apps");
+    }
+
+    public String listSummaryOfAllApps() {
+        return join(gather(AppStoreAPI::loadedApps, App::appSummary), "No apps");
+    }
+
+    public String listAllGameApps() {
+        return join(gather(store -> store.appsOfType(GameApp.class)), "No Game apps");
+    }
+
+    public String listAllEducationApps() {
+        return join(gather(store -> store.appsOfType(EducationApp.class)), "No Education apps");
+    }
+
+    public String listAllProductivityApps() {
+        return join(gather(store -> store.appsOfType(ProductivityApp.class)), "No Productivity apps");
+    }
+
+    /**
+     * @return every App with the given name (case insensitive), in the order they were added
+     */
+    public String listAllAppsByName(String name) {
+        String none = "No apps for name " + name + " exists";
+        long[] ids = idsOf(name);
+        if(ids.length == 0) return none;
+        StringBuilder sb = new StringBuilder();
+        for(long id : ids) {
+            Shard shard = shard(id);
+            String rendered = shard.read(() -> {
+                App app = shard.apps.get(id);
+                return hasName(app, name) ? app.toString() : null;
+            });
+            if(rendered != null) sb.append(rendered).append('\n');
+        }
+        return sb.isEmpty() ? none : sb.toString();
+    }
+
+    public String listAllAppsAboveOrEqualAGivenStarRating(int rating) {
+        String none = "No apps have a rating of " + rating + " or above";
+        if(rating < 1 || rating > 5) return none;
+        return join(gather(store -> store.appsFromRating(rating)), none);
+    }
+
+    public String listAllAppsByRatingDescending() {
+        List<Rendered> apps = gather(AppStoreAPI::appsByRatingDescending);
+        apps.sort(Comparator.comparingDouble(Rendered::rating).reversed()); // stable, so by name for equal ratings
+        return join(apps, "No apps");
+    }
+
+    public String listAllRecommendedApps() {
+        return join(gather(AppStoreAPI::recommendedApps), "No recommended apps");
+    }
+
+    public String listAllAppsByChosenDeveloper(Developer developer) {
+        return join(gather(store -> store.appsOfDeveloper(developer)), "No apps for developer: " + developer);
+    }
+
+    //---------------------
+    // Persistence
+    //---------------------
+
+    /**
+     * Every shard is saved to its own file, e.g. {@code apps.3.xml} for the fourth shard of {@code apps.xml}
+     * @param fileName the name of the file of an unsharded store
+     */
+    public void setFileName(String fileName) {
+        for(int i = 0; i < shards.length; i++) {
+            shards[i].appStoreAPI.setFileName(fileName.replaceFirst("(\\.xml)?$", "." + i + ".xml"));
+        }
+    }
+
+    public void save() throws Exception {
+        for(Shard shard : shards) {
+            long stamp = shard.lock.writeLock();
+            try {
+                shard.appStoreAPI.save();
+            } finally {
+                shard.lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Load every shard from its file, the apps must have been saved with the same number of shards. The loaded apps
+     * get new identifiers of their shard.
+     */
+    public void load() throws Exception {
+        for(int i = 0; i < shards.length; i++) {
+            Shard shard = shards[i];
+            long stamp = shard.lock.writeLock();
+            try {
+                shard.apps.forEach((id, app) -> unmapName(app.getAppName(), id));
+                shard.apps.clear();
+                shard.appStoreAPI.load();
+                shard.appStoreAPI.prepareForReads();
+                List<App> loaded = shard.appStoreAPI.loadedApps();
+                long base = nextId.getAndAdd((long) shards.length * loaded.size()); // holds a turn of every shard
+                long id = base + Math.floorMod(i - base, (long) shards.length);
+                for(App app : loaded) {
+                    shard.apps.put(id, app);
+                    mapName(app.getAppName(), id);
+                    id += shards.length;
+                }
+            } finally {
+                shard.lock.unlockWrite(stamp);
+            }
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package controllers;
+
+import models.*;
+
+import java.io.Serial;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Computes the figures of the Reports menu for all the apps in a single pass: the apps are split across the fork-join
+ * pool and every part is aggregated by developer, by type, by genre and by language at the same time.
+ * @author Ryker Zhu
+ */
+public class StoreAnalytics {
+
+    /**
+     * Below this number of apps a part is aggregated on the current thread
+     */
+    private static final int PART_SIZE = 1024;
+
+    private final Supplier<List<App>> apps;
+    private final DeveloperAPI developerAPI;
+
+    /**
+     * @param appStoreAPI the apps to analyse
+     * @param developerAPI the registered developers, listed in the report even if they have no apps; may be null
+     */
+    public StoreAnalytics(AppStoreAPI appStoreAPI, DeveloperAPI developerAPI) {
+        this.apps = appStoreAPI::loadedApps;
+        this.developerAPI = developerAPI;
+    }
+
+    /**
+     * Analyse a catalog instead, the store can then be modified while the report is computed
+     * @param catalog the apps to analyse, e.g. from {@link AppStoreAPI#snapshot()}
+     * @param developerAPI the registered developers, listed in the report even if they have no apps; may be null
+     */
+    public StoreAnalytics(AppCatalog catalog, DeveloperAPI developerAPI) {
+        this.apps = catalog::getApps;
+        this.developerAPI = developerAPI;
+    }
+
+    /**
+     * The aggregates of a group of apps
+     */
+    public static final class Group {
+        private int apps, ratedApps, recommendedApps;
+        private double ratingSum;
+        private double costSum, minCost = Double.POSITIVE_INFINITY, maxCost = Double.NEGATIVE_INFINITY;
+        private double sizeSum, minSize = Double.POSITIVE_INFINITY, maxSize = Double.NEGATIVE_INFINITY;
+
+        private void add(App app) {
+            ++apps;
+            double rating = app.calculateRating();
+            if(app.getNumberOfRatings() > 0 && !Double.isNaN(rating)) { // NaN when every rating has 0 stars
+                ++ratedApps;
+                ratingSum += rating;
+            }
+            if(app.isRecommendedApp()) ++recommendedApps;
+            double cost = app.getAppCost(), size = app.getAppSize();
+            costSum += cost;
+            minCost = Math.min(minCost, cost);
+            maxCost = Math.max(maxCost, cost);
+            sizeSum += size;
+            minSize = Math.min(minSize, size);
+            maxSize = Math.max(maxSize, size);
+        }
+
+        private void merge(Group other) {
+            apps += other.apps;
+            ratedApps += other.ratedApps;
+            recommendedApps += other.recommendedApps;
+            ratingSum += other.ratingSum;
+            costSum += other.costSum;
+            minCost = Math.min(minCost, other.minCost);
+            maxCost = Math.max(maxCost, other.maxCost);
+            sizeSum += other.sizeSum;
+            minSize = Math.min(minSize, other.minSize);
+            maxSize = Math.max(maxSize, other.maxSize);
+        }
+
+        public int getNumberOfApps() {
+            return apps;
+        }
+
+        /**
+         * @return the average rating of the apps that have been rated with at least one star, 0 if none has
+         */
+        public double getAverageRating() {
+            return ratedApps == 0 ? 0 : ratingSum / ratedApps;
+        }
+
+        /**
+         * @return the share of recommended apps, from 0 to 1
+         */
+        public double getRecommendedRatio() {
+            return apps == 0 ? 0 : (double) recommendedApps / apps;
+        }
+
+        public double getAverageCost() {
+            return apps == 0 ? 0 : costSum / apps;
+        }
+
+        public double getMinCost() {
+            return apps == 0 ? 0 : minCost;
+        }
+
+        public double getMaxCost() {
+            return apps == 0 ? 0 : maxCost;
+        }
+
+        public double getAverageSize() {
+            return apps == 0 ? 0 : sizeSum / apps;
+        }
+
+        public double getMinSize() {
+            return apps == 0 ? 0 : minSize;
+        }
+
+        public double getMaxSize() {
+            return apps == 0 ? 0 : maxSize;
+        }
+
+        private String row(String name) {
+            return String.format("%-22s %5d %7.2f %9.2f %15s %9.1f %15s %6.0f%%%n", name, apps, getAverageRating(),
+                    getAverageCost(), String.format("%.2f-%.2f", getMinCost(), getMaxCost()),
+                    getAverageSize(), String.format("%.1f-%.1f", getMinSize(), getMaxSize()), 100 * getRecommendedRatio());
+        }
+    }
+
+    /**
+     * The result of {@link #analyse()}, the groups are kept in a stable order so the report renders the same way
+     */
+    public static final class Report {
+        private final Group total;
+        private final Map<Developer, Group> byDeveloper;
+        private final Map<String, Group> byType;
+        private final Map<GameApp.Genre, Group> byGenre;
+        private final Map<Language, Group> byLanguage;
+
+        private Report(Group total, Map<Developer, Group> byDeveloper, Map<String, Group> byType,
+                       Map<GameApp.Genre, Group> byGenre, Map<Language, Group> byLanguage) {
+            this.total = total;
+            this.byDeveloper = Collections.unmodifiableMap(byDeveloper);
+            this.byType = Collections.unmodifiableMap(byType);
+            this.byGenre = Collections.unmodifiableMap(byGenre);
+            this.byLanguage = Collections.unmodifiableMap(byLanguage);
+        }
+
+        public Group getTotal() {
+            return total;
+        }
+
+        /**
+         * The apps are grouped by the identifier of their developer, or by the developer itself if it is not
+         * registered, so that a renamed developer or two developers with the same name are not mixed up
+         * @return the groups by developer, the registered developers first and in their order, then the others by name
+         * (the apps without a developer under null)
+         */
+        public Map<Developer, Group> getByDeveloper() {
+            return byDeveloper;
+        }
+
+        /**
+         * @return the groups by type of App (the simple name of its class)
+         */
+        public Map<String, Group> getByType() {
+            return byType;
+        }
+
+        /**
+         * @return the groups of the Game apps by genre, an App is counted in every genre it has
+         */
+        public Map<GameApp.Genre, Group> getByGenre() {
+            return byGenre;
+        }
+
+        /**
+         * @return the groups by supported language, an App is counted in every language it supports
+         */
+        public Map<Language, Group> getByLanguage() {
+            return byLanguage;
+        }
+
+        public String renderAppsOverview() {
+            StringBuilder sb = new StringBuilder();
+            table(sb, "Type", byType);
+            table(sb, "Genre", byGenre);
+            table(sb, "Language", byLanguage);
+            sb.append(total.row("All apps"));
+            return sb.toString();
+        }
+
+        public String renderDevelopersOverview() {
+            if(byDeveloper.isEmpty()) return "No developers\n";
+            StringBuilder sb = new StringBuilder();
+            table(sb, "Developer", byDeveloper);
+            return sb.toString();
+        }
+
+        private static void table(StringBuilder sb, String title, Map<?, Group> groups) {
+            sb.append(String.format("%-22s %5s %7s %9s %15s %9s %15s %7s%n", title, "Apps", "Rating", "Avg cost",
+                    "Cost range", "Avg size", "Size range", "Recom."));
+            for(Map.Entry<?, Group> entry : groups.entrySet()) sb.append(entry.getValue().row(label(entry.getKey())));
+            sb.append('\n');
+        }
+
+        private static String label(Object key) {
+            if(key instanceof Developer developer) return Objects.toString(developer.getDeveloperName(), "");
+            return key == null ? "" : key.toString();
+        }
+
+        @Override
+        public String toString() {
+            return renderAppsOverview() + '\n' + renderDevelopersOverview();
+        }
+    }
+
+    /**
+     * The key of an unregistered developer (or of no developer), equal only to the key of the same object
+     */
+    private record Unregistered(Developer developer) {
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Unregistered unregistered && unregistered.developer == developer;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(developer);
+        }
+    }
+
+    /**
+     * @return the identifier of a registered developer, otherwise the developer itself by identity
+     */
+    private static Object developerKey(Developer developer) {
+        if(developer != null && developer.getDeveloperId() != 0) return developer.getDeveloperId();
+        return new Unregistered(developer);
+    }
+
+    /**
+     * The groups of a part of the apps, merged two by two up to the whole list
+     */
+    private static final class Partial {
+        final Group total = new Group();
+        final Map<Object, Group> byDeveloper = new HashMap<>();
+        /**
+         * The first developer met for every key of {@link #byDeveloper}, to name the developers that are not registered
+         */
+        final Map<Object, Developer> developers = new HashMap<>();
+        final Map<String, Group> byType = new HashMap<>();
+        final Map<GameApp.Genre, Group> byGenre = new EnumMap<>(GameApp.Genre.class);
+        final Map<Language, Group> byLanguage = new EnumMap<>(Language.class);
+
+        void add(App app) {
+            total.add(app);
+            Developer developer = app.getDeveloper();
+            Object key = developerKey(developer);
+            group(byDeveloper, key).add(app);
+            developers.putIfAbsent(key, developer);
+            group(byType, app.getClass().getSimpleName()).add(app);
+            if(app instanceof GameApp gameApp) {
+                for(GameApp.Genre genre : gameApp.getGenres()) group(byGenre, genre).add(app);
+            }
+            for(Language language : app.getLanguages()) group(byLanguage, language).add(app);
+        }
+
+        Partial merge(Partial other) {
+            total.merge(other.total);
+            merge(byDeveloper, other.byDeveloper);
+            other.developers.forEach(developers::putIfAbsent);
+            merge(byType, other.byType);
+            merge(byGenre, other.byGenre);
+            merge(byLanguage, other.byLanguage);
+            return this;
+        }
+
+        private static <K> Group group(Map<K, Group> groups, K key) {
+            return groups.computeIfAbsent(key, k -> new Group());
+        }
+
+        private static <K> void merge(Map<K, Group> groups, Map<K, Group> others) {
+            for(Map.Entry<K, Group> entry : others.entrySet()) group(groups, entry.getKey()).merge(entry.getValue());
+        }
+    }
+
+    private static final class PartTask extends RecursiveTask<Partial> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        // the task is never serialized, its fields only live while the pool runs it
+        private final transient List<App> apps;
+        private final int from, to;
+
+        PartTask(List<App> apps, int from, int to) {
+            this.apps = apps;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if(to - from <= PART_SIZE) {
+                Partial partial = new Partial();
+                for(int i = from; i < to; i++) partial.add(apps.get(i));
+                return partial;
+            }
+            int middle = (from + to) >>> 1;
+            PartTask left = new PartTask(apps, from, middle);
+            left.fork();
+            Partial right = new PartTask(apps, middle, to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    private static String name(Developer developer) {
+        return developer == null ? null : developer.getDeveloperName();
+    }
+
+    /**
+     * Aggregate all the apps, the apps of an {@link AppStoreAPI} must not be modified meanwhile
+     * @return the report
+     */
+    public Report analyse() {
+        List<App> apps = this.apps.get();
+        Partial partial = ForkJoinPool.commonPool().invoke(new PartTask(apps, 0, apps.size()));
+
+        Map<Developer, Group> byDeveloper = new LinkedHashMap<>();
+        if(developerAPI != null) {
+            for(Developer developer : developerAPI.getDevelopers()) {
+                Group group = partial.byDeveloper.remove(developerKey(developer));
+                byDeveloper.put(developer, group == null ? new Group() : group);
+            }
+        }
+        List<Object> others = new ArrayList<>(partial.byDeveloper.keySet()); // the developers that are not registered
+        others.sort(Comparator.comparing(key -> name(partial.developers.get(key)),
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+        for(Object key : others) {
+            byDeveloper.merge(partial.developers.get(key), partial.byDeveloper.get(key), (group, equal) -> {
+                group.merge(equal); // equal developers, e.g. the same developer from two stores
+                return group;
+            });
+        }
+        Map<String, Group> byType = new LinkedHashMap<>();
+        for(String type : List.of("ProductivityApp", "EducationApp", "GameApp")) {
+            byType.put(type, partial.byType.getOrDefault(type, new Group()));
+        }
+        new TreeMap<>(partial.byType).forEach(byType::putIfAbsent);
+        return new Report(partial.total, byDeveloper, byType, partial.byGenre, partial.byLanguage);
+    }
+}
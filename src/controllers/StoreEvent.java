@@ -0,0 +1,63 @@
+package controllers;
+
+import models.App;
+import models.Developer;
+import models.Rating;
+
+/**
+ * A modification of an {@link AppStoreAPI} or a {@link DeveloperAPI}, published by a {@link ChangeFeed}.
+ * <p>The apps and the developers of the events are copies made when the modification happened, down to the developer
+ * of an App, so a subscriber can read them on its own thread while the store keeps changing. Every event of an App
+ * gives its position in the store, which tells the apps with the same name apart. The sequences of the events of a
+ * feed are consecutive, in the order of the modifications.</p>
+ * @author Ryker Zhu
+ */
+public sealed interface StoreEvent {
+
+    long sequence();
+
+    /**
+     * @param index the position of the App in the store
+     */
+    record AppAdded(long sequence, int index, App app) implements StoreEvent { }
+
+    /**
+     * @param index the position the App had in the store
+     */
+    record AppDeleted(long sequence, int index, App app) implements StoreEvent { }
+
+    /**
+     * @param index the position of the App in the store
+     * @param app the App with the rating
+     */
+    record RatingAdded(long sequence, int index, App app, Rating rating) implements StoreEvent { }
+
+    /**
+     * Any other modification of an App
+     * @param index the position of the App in the store
+     * @param app the App after the modification
+     * @param mutator the name of the modification, e.g. {@link App#SET_APP_COST}
+     * @param argument a copy of the argument of the modification, e.g. the new cost
+     */
+    record AppChanged(long sequence, int index, App app, String mutator, Object argument) implements StoreEvent { }
+
+    /**
+     * The whole list of apps has changed, the derived views must be built again from the store
+     * @param reason {@code "load"} or {@code "sort"}
+     */
+    record AppsReplaced(long sequence, String reason) implements StoreEvent { }
+
+    record DeveloperAdded(long sequence, Developer developer) implements StoreEvent { }
+
+    /**
+     * @param developer the developer after the modification
+     */
+    record DeveloperUpdated(long sequence, Developer developer) implements StoreEvent { }
+
+    record DeveloperRemoved(long sequence, Developer developer) implements StoreEvent { }
+
+    /**
+     * The developers have been loaded, the derived views must be built again from the store
+     */
+    record DevelopersReplaced(long sequence) implements StoreEvent { }
+}
@@ -2,6 +2,7 @@ package main;
 
 import controllers.AppStoreAPI;
 import controllers.DeveloperAPI;
+import controllers.StoreAnalytics;
 import models.*;
 import utils.FoundationClassUtilities;
 import utils.FoundationClassUtilities.VoidFunctionPointer;
@@ -21,6 +22,11 @@ public class Driver {
     private final AppStoreAPI appStoreAPI = new AppStoreAPI();
     private String currencySymbol = "€";
 
+    /**
+     * The number of journaled mutations after which saving writes full XML files again
+     */
+    private static final int CHECKPOINT_INTERVAL = 1000;
+
     private VoidFunctionPointer clearScreen;
 
     public static void main(String[] args) {
@@ -47,6 +53,9 @@ public class Driver {
                 System.err.println("Exception thrown when a process was called: " + e);
             }
         }
+        appStoreAPI.setDeveloperResolver(developerAPI); // apps are saved with the identifiers of their developers
+        developerAPI.enableJournal(CHECKPOINT_INTERVAL);
+        appStoreAPI.enableJournal(CHECKPOINT_INTERVAL);
         loadAllData();
         runMainMenu();
     }
@@ -263,14 +272,11 @@ public class Driver {
             case 0:
                 return;
             case 1:
-                System.out.println("-------------- Productivity Apps --------------");
-                System.out.println(appStoreAPI.listAllProductivityApps());
-                System.out.println("--------------- Education Apps ---------------");
-                System.out.println(appStoreAPI.listAllEducationApps());
-                System.out.println("-------------------- Games --------------------");
-                System.out.println(appStoreAPI.listAllGameApps());
+                System.out.print(appStoreAPI.listAppsOverview());
+                System.out.print(new StoreAnalytics(appStoreAPI, developerAPI).analyse().renderAppsOverview());
                 break;
             case 2:
+                System.out.print(new StoreAnalytics(appStoreAPI, developerAPI).analyse().renderDevelopersOverview());
                 break;
         }
     }
@@ -0,0 +1,417 @@
+package main;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import controllers.AppCatalog;
+import controllers.AppStoreAPI;
+import controllers.ConcurrentAppStoreAPI;
+import controllers.DeveloperAPI;
+import controllers.StoreAnalytics;
+import models.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * A headless front end of the store, serving the apps and the developers as JSON over HTTP with the server of the JDK
+ * ({@code com.sun.net.httpserver}). Every request runs on a thread of its own, a virtual thread when the JDK has them,
+ * so many clients can wait on the network at the same time without as many platform threads.
+ * <p>The store is shared through a {@link ConcurrentAppStoreAPI}. The listings are made from its latest
+ * {@link AppCatalog}, so they need no lock and are never delayed by the ratings being submitted.</p>
+ * <pre>
+ * GET  /apps?type=game&amp;minRating=3&amp;recommended=true&amp;developer=Lego&amp;sort=rating
+ * GET  /apps/{name}
+ * POST /apps/{name}/ratings   (form fields: stars, rater, comment)
+ * GET  /search?name=text
+ * GET  /random
+ * GET  /developers
+ * GET  /developers/{name}
+ * GET  /reports
+ * </pre>
+ * @author Ryker Zhu
+ */
+public class Server {
+
+    private static final int DEFAULT_PORT = 8080;
+
+    /**
+     * The connections waiting to be accepted, the default of the system (often 50) refuses the bursts of new clients
+     */
+    private static final int BACKLOG = 4096;
+
+    static {
+        // The JDK server writes the headers and the body of a response separately, so with Nagle's algorithm every
+        // response waits for the delayed acknowledgement of the client (about 40 ms) unless TCP_NODELAY is set
+        if(System.getProperty("sun.net.httpserver.nodelay") == null) System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final ConcurrentAppStoreAPI store;
+    private final HttpServer httpServer;
+    private final ExecutorService executor = newThreadPerRequestExecutor();
+
+    /**
+     * @param store the store to serve
+     * @param port the port to listen to, 0 for any free port
+     */
+    public Server(ConcurrentAppStoreAPI store, int port) throws IOException {
+        this.store = store;
+        httpServer = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        httpServer.setExecutor(executor);
+        httpServer.createContext("/apps", handler(this::apps));
+        httpServer.createContext("/search", handler(this::search));
+        httpServer.createContext("/random", handler(this::random));
+        httpServer.createContext("/developers", handler(this::developers));
+        httpServer.createContext("/reports", handler(this::reports));
+    }
+
+    /**
+     * A virtual thread per task (JDK 21, or 19 with the preview features), looked up by reflection since the project
+     * still builds on JDKs without them; otherwise a platform thread per task, reused once it is idle.
+     */
+    static ExecutorService newThreadPerRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    public void start() {
+        httpServer.start();
+    }
+
+    /**
+     * Stop accepting requests and wait for the current ones to be answered
+     * @param delaySeconds the longest time to wait for the current requests
+     */
+    public void stop(int delaySeconds) {
+        httpServer.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    public static void main(String[] args) throws Exception {
+        DeveloperAPI developerAPI = new DeveloperAPI();
+        AppStoreAPI appStoreAPI = new AppStoreAPI();
+        appStoreAPI.setDeveloperResolver(developerAPI);
+        ConcurrentAppStoreAPI store = new ConcurrentAppStoreAPI(appStoreAPI, developerAPI);
+        store.load();
+        Server server = new Server(store, args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            try {
+                store.save();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }));
+        server.start();
+        System.out.println("Serving the App Store on http://localhost:" + server.getPort() + "/apps");
+    }
+
+    //---------------------
+    // Routing
+    //---------------------
+
+    /**
+     * The answer to a request: a status code and a JSON body
+     */
+    private record Response(int status, String json) {
+        static Response ok(String json) {
+            return new Response(200, json);
+        }
+
+        static Response error(int status, String message) {
+            return new Response(status, "{\"error\":" + quote(message) + '}');
+        }
+    }
+
+    @FunctionalInterface
+    private interface Endpoint {
+        Response handle(String method, List<String> path, Map<String, String> parameters);
+    }
+
+    private static HttpHandler handler(Endpoint endpoint) {
+        return exchange -> {
+            Response response;
+            try {
+                List<String> path = new ArrayList<>();
+                for(String segment : exchange.getRequestURI().getRawPath().split("/")) {
+                    if(!segment.isEmpty()) path.add(URLDecoder.decode(segment, StandardCharsets.UTF_8));
+                }
+                Map<String, String> parameters = parseForm(exchange.getRequestURI().getRawQuery());
+                if(exchange.getRequestMethod().equals("POST")) parameters.putAll(parseForm(readBody(exchange)));
+                response = endpoint.handle(exchange.getRequestMethod(), path.subList(1, path.size()), parameters);
+            } catch (IllegalArgumentException e) {
+                response = Response.error(400, e.getMessage());
+            } catch (RuntimeException e) {
+                response = Response.error(500, e.toString());
+            }
+            send(exchange, response);
+        };
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        byte[] body = response.json().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status(), body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Parse {@code a=1&b=2}, the format of both query strings and form bodies
+     */
+    private static Map<String, String> parseForm(String form) {
+        Map<String, String> parameters = new HashMap<>();
+        if(form == null || form.isEmpty()) return parameters;
+        for(String pair : form.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static int intParameter(Map<String, String> parameters, String name, int defaultValue) {
+        String value = parameters.get(name);
+        if(value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a whole number: " + value);
+        }
+    }
+
+    //---------------------
+    // Endpoints
+    //---------------------
+
+    private Response apps(String method, List<String> path, Map<String, String> parameters) {
+        if(path.size() == 2 && path.get(1).equals("ratings")) return addRating(method, path.get(0), parameters);
+        if(!method.equals("GET")) return Response.error(405, "Use GET");
+        if(path.size() == 1) {
+            // the live App, with its ratings, is written under the read lock so that no rating is added meanwhile
+            String json = store.readAppByName(path.get(0), app -> app == null ? null : appJson(app, true));
+            return json == null ? Response.error(404, "No app named " + path.get(0)) : Response.ok(json);
+        }
+        if(!path.isEmpty()) return Response.error(404, "Unknown resource");
+
+        Predicate<App> filter = app -> true;
+        String type = parameters.get("type");
+        if(type != null) {
+            Class<? extends App> appType = switch (type.toLowerCase(Locale.ROOT)) {
+                case "game" -> GameApp.class;
+                case "education" -> EducationApp.class;
+                case "productivity" -> ProductivityApp.class;
+                default -> throw new IllegalArgumentException("Unknown type: " + type);
+            };
+            filter = filter.and(appType::isInstance);
+        }
+        int minRating = intParameter(parameters, "minRating", 0);
+        if(minRating > 0) filter = filter.and(app -> app.calculateRating() >= minRating);
+        if(Boolean.parseBoolean(parameters.get("recommended"))) filter = filter.and(App::isRecommendedApp);
+        String developer = parameters.get("developer");
+        if(developer != null) {
+            filter = filter.and(app -> app.getDeveloper() != null
+                    && developer.equalsIgnoreCase(app.getDeveloper().getDeveloperName()));
+        }
+        List<App> apps = select(filter);
+        String sort = parameters.getOrDefault("sort", "index");
+        switch (sort) {
+            case "index" -> { }
+            case "name" -> apps.sort(Comparator.comparing(App::getAppName));
+            case "rating" -> apps.sort(Comparator.comparingDouble(App::calculateRating).reversed());
+            default -> throw new IllegalArgumentException("Unknown sort: " + sort);
+        }
+        return Response.ok(appsJson(apps));
+    }
+
+    private Response addRating(String method, String appName, Map<String, String> parameters) {
+        if(!method.equals("POST")) return Response.error(405, "Use POST");
+        int stars = intParameter(parameters, "stars", 0);
+        if(stars < 1 || stars > 5) throw new IllegalArgumentException("stars must be from 1 to 5");
+        Rating rating = new Rating(stars, parameters.getOrDefault("rater", "Anonymous"),
+                parameters.getOrDefault("comment", "No comment"));
+        if(!store.addRating(appName, rating)) return Response.error(404, "No app named " + appName);
+        return new Response(201, ratingJson(rating));
+    }
+
+    /**
+     * The names are matched case insensitively, anywhere in the name of the App
+     */
+    private Response search(String method, List<String> path, Map<String, String> parameters) {
+        String name = parameters.get("name");
+        if(name == null || name.isEmpty()) throw new IllegalArgumentException("name is required");
+        String lowerCase = name.toLowerCase(Locale.ROOT);
+        return Response.ok(appsJson(select(app -> app.getAppName().toLowerCase(Locale.ROOT).contains(lowerCase))));
+    }
+
+    private Response random(String method, List<String> path, Map<String, String> parameters) {
+        AppCatalog catalog = store.snapshot();
+        if(catalog.numberOfApps() == 0) return Response.error(404, "No apps");
+        return Response.ok(appJson(catalog.getAppByIndex(ThreadLocalRandom.current().nextInt(catalog.numberOfApps())), false));
+    }
+
+    private Response developers(String method, List<String> path, Map<String, String> parameters) {
+        // the live developers are written under the read lock so that they are not changed meanwhile
+        if(path.isEmpty()) {
+            return Response.ok(store.readDevelopers(developers -> {
+                StringBuilder sb = new StringBuilder("[");
+                for(Developer developer : developers) {
+                    if(sb.length() > 1) sb.append(',');
+                    sb.append(developerJson(developer));
+                }
+                return sb.append(']').toString();
+            }));
+        }
+        String json = store.readDeveloperByName(path.get(0), (developer, numberOfApps) -> {
+            if(developer == null) return null;
+            String written = developerJson(developer);
+            return written.substring(0, written.length() - 1) + ",\"numberOfApps\":" + numberOfApps + '}';
+        });
+        return json == null ? Response.error(404, "No developer named " + path.get(0)) : Response.ok(json);
+    }
+
+    private Response reports(String method, List<String> path, Map<String, String> parameters) {
+        StoreAnalytics.Report report = store.analyse();
+        StringBuilder sb = new StringBuilder("{\"total\":").append(groupJson(report.getTotal())).append(",\"byType\":{");
+        boolean first = true;
+        for(Map.Entry<String, StoreAnalytics.Group> entry : report.getByType().entrySet()) {
+            if(!first) sb.append(',');
+            first = false;
+            sb.append(quote(entry.getKey())).append(':').append(groupJson(entry.getValue()));
+        }
+        return Response.ok(sb.append("}}").toString());
+    }
+
+    /**
+     * @return the apps of the latest catalog that match the filter, in the order of the store
+     */
+    private List<App> select(Predicate<App> filter) {
+        List<App> selected = new ArrayList<>();
+        for(App app : store.snapshot().getApps()) if(filter.test(app)) selected.add(app);
+        return selected;
+    }
+
+    //---------------------
+    // JSON
+    //---------------------
+
+    static String quote(String string) {
+        if(string == null) return "null";
+        StringBuilder sb = new StringBuilder(string.length() + 2).append('"');
+        for(int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if(c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static String appsJson(List<App> apps) {
+        StringBuilder sb = new StringBuilder("[");
+        for(App app : apps) {
+            if(sb.length() > 1) sb.append(',');
+            sb.append(appJson(app, false));
+        }
+        return sb.append(']').toString();
+    }
+
+    private static String appJson(App app, boolean withRatings) {
+        StringBuilder sb = new StringBuilder("{\"name\":").append(quote(app.getAppName()))
+                .append(",\"type\":").append(quote(app.getClass().getSimpleName()))
+                .append(",\"developer\":").append(app.getDeveloper() == null ? "null" : quote(app.getDeveloper().getDeveloperName()))
+                .append(",\"size\":").append(number(app.getAppSize()))
+                .append(",\"version\":").append(number(app.getAppVersion()))
+                .append(",\"cost\":").append(number(app.getAppCost()))
+                .append(",\"rating\":").append(number(app.calculateRating()))
+                .append(",\"numberOfRatings\":").append(app.getNumberOfRatings())
+                .append(",\"recommended\":").append(app.isRecommendedApp())
+                .append(",\"languages\":[");
+        boolean first = true;
+        for(Language language : app.getLanguages()) {
+            if(!first) sb.append(',');
+            first = false;
+            sb.append(quote(language.name()));
+        }
+        sb.append(']');
+        if(withRatings) {
+            sb.append(",\"ratings\":[");
+            first = true;
+            for(Rating rating : app.getRatings()) {
+                if(!first) sb.append(',');
+                first = false;
+                sb.append(ratingJson(rating));
+            }
+            sb.append(']');
+        }
+        return sb.append('}').toString();
+    }
+
+    private static String ratingJson(Rating rating) {
+        return "{\"stars\":" + rating.getNumberOfStars() + ",\"rater\":" + quote(rating.getRaterName())
+                + ",\"comment\":" + quote(rating.getRatingComment()) + '}';
+    }
+
+    private static String developerJson(Developer developer) {
+        return "{\"id\":" + developer.getDeveloperId() + ",\"name\":" + quote(developer.getDeveloperName())
+                + ",\"website\":" + quote(developer.getDeveloperWebsite()) + '}';
+    }
+
+    private static String groupJson(StoreAnalytics.Group group) {
+        return "{\"numberOfApps\":" + group.getNumberOfApps() + ",\"averageRating\":" + decimal(group.getAverageRating())
+                + ",\"recommendedRatio\":" + decimal(group.getRecommendedRatio())
+                + ",\"averageCost\":" + decimal(group.getAverageCost())
+                + ",\"averageSize\":" + decimal(group.getAverageSize()) + '}';
+    }
+
+    /**
+     * JSON has no NaN or infinity, so they are written as null
+     */
+    static String number(double value) {
+        return Double.isFinite(value) ? String.valueOf(value) : "null";
+    }
+
+    /**
+     * @return the value with 4 decimals, null if it is NaN or infinite
+     */
+    private static String decimal(double value) {
+        return Double.isFinite(value) ? String.format(Locale.ROOT, "%.4f", value) : "null";
+    }
+}
@@ -1,11 +1,12 @@
 package models;
 
-import utils.FoundationClassUtilities.Statistics;
 import utils.Utilities;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Manages the common information relating to an App i.e. app name, app version, a collection of ratings for an app, etc.
@@ -16,28 +17,122 @@ import java.util.List;
  */
 public abstract class App {
 
+    public static final String SET_DEVELOPER = "setDeveloper";
+    public static final String SET_APP_NAME = "setAppName";
+    public static final String SET_APP_SIZE = "setAppSize";
+    public static final String SET_APP_VERSION = "setAppVersion";
+    public static final String SET_APP_COST = "setAppCost";
+    public static final String SET_DESCRIPTION = "setDescription";
+    public static final String SET_CURRENCY_SYMBOL = "setCurrencySymbol";
+    public static final String ADD_LANGUAGE = "addLanguage";
+    public static final String REMOVE_LANGUAGE = "removeLanguage";
+    public static final String ADD_RATING = "addRating";
+    public static final String REMOVE_RATING = "removeRating";
+    public static final String ADD_RATINGS = "addRatings";
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>Notified after every modification of the App, e.g. one per store that holds it. Replaced rather than changed
+     * when an observer is added or removed, null if there is none. It is not persisted.</p>
+     */
+    private transient AppObserver[] observers;
+
+    /**
+     * Notify the observer of every modification of the App, an observer that is already notified is not added again
+     * @param observer e.g. the observer of a store the App is added to
+     */
+    public void addObserver(AppObserver observer) {
+        if(observers == null) {
+            observers = new AppObserver[] {observer};
+            return;
+        }
+        for(AppObserver added : observers) {
+            if(added == observer) return;
+        }
+        AppObserver[] more = Arrays.copyOf(observers, observers.length + 1);
+        more[observers.length] = observer;
+        observers = more;
+    }
+
+    /**
+     * Stop notifying the observer, e.g. once the App has been removed from its store
+     */
+    public void removeObserver(AppObserver observer) {
+        if(observers == null) return;
+        for(int i = 0; i < observers.length; i++) {
+            if(observers[i] != observer) continue;
+            if(observers.length == 1) {
+                observers = null;
+            } else {
+                AppObserver[] fewer = new AppObserver[observers.length - 1];
+                System.arraycopy(observers, 0, fewer, 0, i);
+                System.arraycopy(observers, i + 1, fewer, i, fewer.length - i);
+                observers = fewer;
+            }
+            return;
+        }
+    }
+
+    /**
+     * Notify the observers (if any) that the App is about to be modified
+     */
+    protected void changing() {
+        AppObserver[] observers = this.observers;
+        if(observers == null) return;
+        for(AppObserver observer : observers) observer.appChanging(this);
+    }
+
+    /**
+     * Notify the observers (if any) that the App has been modified
+     * @param mutator the name of the method that modified the App
+     * @param argument the argument given to the method
+     */
+    protected void changed(String mutator, Object argument) {
+        AppObserver[] observers = this.observers;
+        if(observers == null) return;
+        for(AppObserver observer : observers) observer.appChanged(this, mutator, argument);
+    }
+
     public Developer getDeveloper() {
         return developer;
     }
 
     public void setDeveloper(Developer developer) {
+        changing();
         this.developer = developer;
+        changed(SET_DEVELOPER, developer);
     }
 
     private final HashSet<Language> languages = new HashSet<>();
 
+    /**
+     * @return a read-only view of the supported languages, which can only be changed through {@link #addLanguage} and
+     * {@link #removeLanguage} so that the owner of the App is notified
+     */
+    public Set<Language> getLanguages() {
+        return Collections.unmodifiableSet(languages);
+    }
+
     public void addLanguage(Language language) {
+        if(languages.contains(language)) return;
+        changing();
         languages.add(language);
+        changed(ADD_LANGUAGE, language);
     }
 
     public void removeLanguage(Language language) {
+        if(!languages.contains(language)) return;
+        changing();
         languages.remove(language);
+        changed(REMOVE_LANGUAGE, language);
     }
 
     private String description = "";
 
     public void setDescription(String description) {
+        changing();
         this.description = description;
+        changed(SET_DESCRIPTION, description);
     }
 
     public String getDescription() {
@@ -56,7 +151,9 @@ public abstract class App {
     }
 
     public void setAppName(String appName) {
+        changing();
         this.appName = appName;
+        changed(SET_APP_NAME, appName);
     }
 
     /**
@@ -71,7 +168,11 @@ public abstract class App {
     }
 
     public void setAppSize(double appSize) {
-        if(appSize >= 1 && appSize <= 1000) this.appSize = appSize;
+        if(appSize >= 1 && appSize <= 1000) {
+            changing();
+            this.appSize = appSize;
+            changed(SET_APP_SIZE, appSize);
+        }
     }
 
     /**
@@ -86,7 +187,11 @@ public abstract class App {
     }
 
     public void setAppVersion(double appVersion) {
-        if(appVersion >= 1.0) this.appVersion = appVersion;
+        if(appVersion >= 1.0) {
+            changing();
+            this.appVersion = appVersion;
+            changed(SET_APP_VERSION, appVersion);
+        }
     }
     /**
      * <strong>Private Field</strong>
@@ -100,7 +205,11 @@ public abstract class App {
     }
 
     public void setAppCost(double appCost) {
-        if(appCost >= 0) this.appCost = appCost;
+        if(appCost >= 0) {
+            changing();
+            this.appCost = appCost;
+            changed(SET_APP_COST, appCost);
+        }
     }
 
     /**
@@ -110,22 +219,44 @@ public abstract class App {
      */
     private double appCost = 0;
 
+    /**
+     * @return the ratings of the App, which can only be changed through {@link #addRating} and {@link #removeRating}.
+     * The ratings are created from the {@link RatingStore} when they are read, so changing them does not change the App.
+     */
     public List<Rating> getRatings() {
-        return ratings;
+        return ratings.asList();
     }
 
     /**
      * <strong>Private Field</strong>
-     * <p>contains all ratings for a specific app…the overall rating score is calculated from the arraylist entries. Note how the Driver "simulates" ratings (code is given for that).</p>
+     * <p>contains all ratings for a specific app…the overall rating score is calculated from the stored ratings. Note how the Driver "simulates" ratings (code is given for that).</p>
+     * <p>The ratings are stored by column with their strings in a dictionary of the App, XStream still writes them as a
+     * list of {@link Rating} (see {@code utils.RatingStoreConverter})</p>
+     */
+    private final RatingStore ratings = new RatingStore();
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The number of ratings by number of stars (0 to 5), kept up to date by {@link #addRating} and
+     * {@link #removeRating} so that the average rating is not computed from all the ratings every time. It is not
+     * persisted.</p>
      */
-    private final List<Rating> ratings = new ArrayList<>();
+    private transient int[] starCounts = new int[6];
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The total number of stars of all the ratings</p>
+     */
+    private transient int starSum;
 
     public String getCurrencySymbol() {
         return currencySymbol;
     }
 
     public void setCurrencySymbol(String currencySymbol) {
+        changing();
         this.currencySymbol = currencySymbol;
+        changed(SET_CURRENCY_SYMBOL, currencySymbol);
     }
 
     private String currencySymbol = "€";
@@ -148,11 +279,68 @@ public abstract class App {
 
     public abstract boolean isRecommendedApp();
 
+    /**
+     * Create a copy of the App as it is now, e.g. to save it while the App keeps being modified.
+     * The copy shares the developer of the App but not its collections or ratings, and it has no observer.
+     * @return a new App with the same values as this App
+     */
+    public abstract App copy();
+
+    /**
+     * Copy the values that are not given to the constructor into the copy of the App
+     * @param copy the App created by {@link #copy()}
+     * @return the copy
+     */
+    protected <T extends App> T copyInto(T copy) {
+        App app = copy;
+        app.appSize = appSize;
+        app.appVersion = appVersion;
+        app.appCost = appCost;
+        app.description = description;
+        app.currencySymbol = currencySymbol;
+        app.languages.addAll(languages);
+        app.ratings.addAll(ratings);
+        app.starCounts = starCounts.clone();
+        app.starSum = starSum;
+        return copy;
+    }
+
+    /**
+     * Called by XStream once the App has been read, the rating aggregates are computed from the ratings since they
+     * are not persisted
+     * @return this App
+     */
+    protected Object readResolve() {
+        starCounts = new int[6];
+        starSum = 0;
+        for(int i = 0; i < ratings.size(); i++) count(ratings.getNumberOfStars(i), 1);
+        return this;
+    }
+
+    private void count(int numberOfStars, int delta) {
+        starCounts[numberOfStars] += delta;
+        starSum += numberOfStars * delta;
+    }
+
+    /**
+     * The ratings with 0 stars are not counted in the average
+     * @return the average number of stars of the ratings, 0 if there are no ratings
+     */
     public double calculateRating() {
         if(ratings.isEmpty()) return 0;
-        return new Statistics<>(ratings)
-                .average((Rating r) -> (double)r.getNumberOfStars(),
-                        (Rating r) -> r.getNumberOfStars() != 0);
+        return (double) starSum / (ratings.size() - starCounts[0]);
+    }
+
+    public int getNumberOfRatings() {
+        return ratings.size();
+    }
+
+    /**
+     * @param numberOfStars from 0 to 5
+     * @return the number of ratings with the given number of stars
+     */
+    public int getNumberOfRatings(int numberOfStars) {
+        return starCounts[numberOfStars];
     }
 
     public String supportedLanguages() {
@@ -175,13 +363,43 @@ public abstract class App {
     }
 
     public boolean addRating(Rating rating) {
-        return ratings.add(rating);
+        changing();
+        ratings.add(rating);
+        count(rating.getNumberOfStars(), 1);
+        changed(ADD_RATING, rating);
+        return true;
+    }
+
+    /**
+     * Add many ratings at once, the observer is only notified once
+     * @param ratings the ratings to add, e.g. generated by a simulation
+     */
+    public void addRatings(RatingStore ratings) {
+        if(ratings.isEmpty()) return;
+        changing();
+        this.ratings.addAll(ratings);
+        for(int i = 0; i < ratings.size(); i++) count(ratings.getNumberOfStars(i), 1);
+        changed(ADD_RATINGS, ratings);
+    }
+
+    /**
+     * @param rating a rating with the same number of stars, rater name and comment as a rating of the App
+     * @return true if the first such rating has been removed
+     */
+    public boolean removeRating(Rating rating) {
+        int index = ratings.indexOf(rating);
+        if(index < 0) return false;
+        changing();
+        ratings.remove(index);
+        count(rating.getNumberOfStars(), -1);
+        changed(REMOVE_RATING, rating);
+        return true;
     }
 
     public String listRatings() {
         if(ratings.isEmpty()) return "No ratings added yet.";
         StringBuilder sb = new StringBuilder();
-        for(Rating r : ratings) {
+        for(Rating r : ratings.asList()) {
             sb.append(r.toString()).append("\n");
         }
         return sb.toString();
@@ -193,7 +411,7 @@ public abstract class App {
                 + ") by " + developer
                 + ", Size: " + appSize + "MB"
                 + ", Cost: " + currencySymbol + appCost
-                + ", Ratings (" + calculateRating() + "): " + ratings
+                + ", Ratings (" + calculateRating() + "): " + ratings.asList()
                 + ", Supported languages: " + supportedLanguages() + ". "
                 + getDescription();
     }
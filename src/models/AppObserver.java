@@ -0,0 +1,25 @@
+package models;
+
+/**
+ * Receives a notification every time an {@link App} is modified through one of its mutators, so that the owner of
+ * the app (e.g. {@code AppStoreAPI}) can keep its journal and other derived data up to date.
+ * @author Ryker Zhu
+ * @see App#addObserver(AppObserver)
+ */
+@FunctionalInterface
+public interface AppObserver {
+    /**
+     * Called after the app has been modified
+     * @param app the app that has been modified
+     * @param mutator the name of the method that modified the app, e.g. {@link App#SET_APP_NAME}
+     * @param argument the argument given to the method, e.g. the new name or the added {@link Rating}
+     */
+    void appChanged(App app, String mutator, Object argument);
+
+    /**
+     * Called right before the app is modified, e.g. to take a copy of the app as it was
+     * @param app the app that is about to be modified
+     */
+    default void appChanging(App app) {
+    }
+}
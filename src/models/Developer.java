@@ -1,11 +1,24 @@
 package models;
 
+import java.util.Arrays;
 import java.util.Objects;
 
 public class Developer {
     private String developerName = "<no developer>";
     private String developerWebsite = "<no website>";
 
+    /**
+     * The stable identifier given by the DeveloperAPI that holds this developer, 0 if the developer is not registered.
+     * Apps are saved with the identifier of their developer instead of a copy of it.
+     */
+    private int developerId;
+
+    /**
+     * Notified when the developer is renamed, e.g. one per DeveloperAPI that holds it. Replaced rather than changed
+     * when an observer is added or removed, null if there is none. It is not persisted.
+     */
+    private transient DeveloperObserver[] observers;
+
     public Developer(String developerName, String developerWebsite) {
         this.developerName = developerName;
         this.developerWebsite = developerWebsite;
@@ -16,7 +29,47 @@ public class Developer {
     }
 
     public void setDeveloperName(String developerName) {
+        String previousName = this.developerName;
         this.developerName = developerName;
+        if (observers != null && !Objects.equals(previousName, developerName)) {
+            for (DeveloperObserver observer : observers) observer.developerRenamed(this, previousName);
+        }
+    }
+
+    /**
+     * Notify the observer every time the developer is renamed, an observer that is already notified is not added again
+     * @param observer e.g. the observer of the DeveloperAPI the developer is added to
+     */
+    public void addObserver(DeveloperObserver observer) {
+        if (observers == null) {
+            observers = new DeveloperObserver[] {observer};
+            return;
+        }
+        for (DeveloperObserver added : observers) {
+            if (added == observer) return;
+        }
+        DeveloperObserver[] more = Arrays.copyOf(observers, observers.length + 1);
+        more[observers.length] = observer;
+        observers = more;
+    }
+
+    /**
+     * Stop notifying the observer, e.g. once the developer has been removed from its DeveloperAPI
+     */
+    public void removeObserver(DeveloperObserver observer) {
+        if (observers == null) return;
+        for (int i = 0; i < observers.length; i++) {
+            if (observers[i] != observer) continue;
+            if (observers.length == 1) {
+                observers = null;
+            } else {
+                DeveloperObserver[] fewer = new DeveloperObserver[observers.length - 1];
+                System.arraycopy(observers, 0, fewer, 0, i);
+                System.arraycopy(observers, i + 1, fewer, i, fewer.length - i);
+                observers = fewer;
+            }
+            return;
+        }
     }
 
     public String getDeveloperWebsite() {
@@ -27,6 +80,27 @@ public class Developer {
         this.developerWebsite = developerWebsite;
     }
 
+    public int getDeveloperId() {
+        return developerId;
+    }
+
+    public void setDeveloperId(int developerId) {
+        this.developerId = developerId;
+    }
+
+    /**
+     * Compares the identifiers of two registered developers, which is a single int comparison, and falls back to
+     * {@link #equals(Object)} otherwise
+     * @param other the developer to compare with
+     * @return true if both are the same developer
+     */
+    public boolean sameAs(Developer other) {
+        if (this == other) return true;
+        if (other == null) return false;
+        if (developerId != 0 && other.developerId != 0) return developerId == other.developerId;
+        return equals(other);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -35,6 +109,11 @@ public class Developer {
         return Objects.equals(developerName, developer.developerName) && Objects.equals(developerWebsite, developer.developerWebsite);
     }
 
+    @Override
+    public int hashCode() {
+        return Objects.hash(developerName, developerWebsite);
+    }
+
     @Override
     public String toString() {
         return  developerName + "(" + developerWebsite + ")";
@@ -0,0 +1,17 @@
+package models;
+
+/**
+ * Receives a notification every time a {@link Developer} is renamed, however it is renamed, so that the owner of the
+ * developer (e.g. {@code DeveloperAPI}) keeps finding it by its name.
+ * @author Ryker Zhu
+ * @see Developer#addObserver(DeveloperObserver)
+ */
+@FunctionalInterface
+public interface DeveloperObserver {
+    /**
+     * Called after the developer has been renamed
+     * @param developer the developer, with its new name
+     * @param previousName the name it had before
+     */
+    void developerRenamed(Developer developer, String previousName);
+}
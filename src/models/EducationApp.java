@@ -8,6 +8,8 @@ import utils.Utilities;
  * @see App
  */
 public class EducationApp extends App {
+    public static final String SET_LEVEL = "setLevel";
+
     private int level = 0;
 
     /**
@@ -35,6 +37,11 @@ public class EducationApp extends App {
 
     }
 
+    @Override
+    public EducationApp copy() {
+        return copyInto(new EducationApp(getDeveloper(), getAppName(), getAppSize(), getAppVersion(), getAppCost(), level));
+    }
+
     @Override
     public String appSummary() {
         return super.appSummary() + ", level " + getLevel() + ".";
@@ -50,6 +57,10 @@ public class EducationApp extends App {
     }
 
     public void setLevel(int level) {
-        if(Utilities.validRange(level, 1, 10)) this.level = level;
+        if(Utilities.validRange(level, 1, 10)) {
+            changing();
+            this.level = level;
+            changed(SET_LEVEL, level);
+        }
     }
 }
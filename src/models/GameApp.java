@@ -2,7 +2,9 @@ package models;
 
 import utils.Utilities;
 
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Set;
 
 /**
  * Manages the specific information relating to a Game App i.e. multiplayer.
@@ -11,6 +13,10 @@ import java.util.HashSet;
  */
 public class GameApp extends App {
 
+    public static final String SET_MULTIPLAYER = "setMultiplayer";
+    public static final String ADD_GENRE = "addGenre";
+    public static final String REMOVE_GENRE = "removeGenre";
+
     public enum Genre {
         Action, Adventure, Casual,
         Indie, MassivelyMultiplayer,
@@ -21,16 +27,27 @@ public class GameApp extends App {
 
     private final HashSet<Genre> genres = new HashSet<>();
 
-    public HashSet<Genre> getGenres() {
-        return genres;
+    /**
+     * @return a read-only view of the genres, which can only be changed through {@link #addGenre} and
+     * {@link #removeGenre}
+     */
+    public Set<Genre> getGenres() {
+        return Collections.unmodifiableSet(genres);
     }
 
     public boolean addGenre(Genre genre) {
-        return genres.add(genre);
+        if(genres.contains(genre)) return false;
+        changing();
+        genres.add(genre);
+        changed(ADD_GENRE, genre);
+        return true;
     }
 
     public void removeGenre(Genre genre) {
+        if(!genres.contains(genre)) return;
+        changing();
         genres.remove(genre);
+        changed(REMOVE_GENRE, genre);
     }
 
     public boolean isMultiplayer() {
@@ -38,7 +55,9 @@ public class GameApp extends App {
     }
 
     public void setMultiplayer(boolean multiplayer) {
+        changing();
         isMultiplayer = multiplayer;
+        changed(SET_MULTIPLAYER, multiplayer);
     }
 
     private boolean isMultiplayer;
@@ -62,6 +81,13 @@ public class GameApp extends App {
         return isMultiplayer && Utilities.greaterThanOrEqualTo(calculateRating(), 4.0);
     }
 
+    @Override
+    public GameApp copy() {
+        GameApp copy = copyInto(new GameApp(getDeveloper(), getAppName(), getAppSize(), getAppVersion(), getAppCost(), isMultiplayer));
+        copy.genres.addAll(genres);
+        return copy;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -21,6 +21,11 @@ public class ProductivityApp extends App {
         super(developer, appName, appSize, appVersion, appCost);
     }
 
+    @Override
+    public ProductivityApp copy() {
+        return copyInto(new ProductivityApp(getDeveloper(), getAppName(), getAppSize(), getAppVersion(), getAppCost()));
+    }
+
     @Override
     public boolean isRecommendedApp() {
         return Utilities.greaterThanOrEqualTo(getAppCost(), 1.99) &&
@@ -0,0 +1,237 @@
+package models;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * The ratings of an App stored column by column: the number of stars of every rating in a byte array, and the rater
+ * names and comments as indices into a dictionary of the store. Since the same names and comments are given again and
+ * again, a rating takes 9 bytes instead of a {@link Rating} object and its two strings, and equal strings are kept
+ * once however they were created (read from a file, generated, etc.).
+ * <p>The dictionary belongs to the store, so it goes away with its App. It is only added to, the strings of the
+ * removed ratings are kept until the store is copied.</p>
+ * <p>{@link Rating} objects are only created when they are read, see {@link #get(int)} and {@link #asList()}.</p>
+ * @author Ryker Zhu
+ */
+public final class RatingStore {
+
+    /**
+     * The distinct rater names and comments of a store, by their index. A dictionary may be shared with the copies of
+     * the store (see {@link #addAll(RatingStore)}), which only read the strings that were there when they were made
+     * while the store that owns it adds new ones: the strings are published before their index.
+     */
+    private static final class Dictionary {
+        private final HashMap<String, Integer> indices;
+        private volatile String[] strings;
+        private int size;
+
+        Dictionary() {
+            indices = new HashMap<>();
+            strings = new String[8];
+        }
+
+        Dictionary(Dictionary other) {
+            indices = new HashMap<>(other.indices);
+            strings = Arrays.copyOf(other.strings, other.strings.length);
+            size = other.size;
+        }
+
+        int intern(String string) {
+            Integer index = indices.get(string);
+            if(index != null) return index;
+            String[] array = strings;
+            if(size == array.length) array = Arrays.copyOf(array, size * 2);
+            array[size] = string;
+            strings = array;
+            indices.put(string, size);
+            return size++;
+        }
+
+        /**
+         * Only called by the store that owns the dictionary
+         * @return the index of the string, -1 if it is not in the dictionary
+         */
+        int find(String string) {
+            Integer index = indices.get(string);
+            return index == null ? -1 : index;
+        }
+
+        String get(int index) {
+            return strings[index];
+        }
+    }
+
+    private byte[] stars = new byte[0];
+    private int[] raters = new int[0], comments = new int[0];
+    private int size;
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The strings the ratings refer to, null until the first rating is added</p>
+     */
+    private Dictionary dictionary;
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>Whether the arrays and the dictionary are also used by another store, see {@link #addAll(RatingStore)}. The
+     * store that owned them first keeps appending in place, since the other stores never read past their own size,
+     * but every other change is made on a copy of the arrays.</p>
+     */
+    private boolean shared, owner = true;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void add(Rating rating) {
+        if(shared && !owner) unshare();
+        if(size == stars.length) grow(size + 1);
+        stars[size] = (byte) rating.getNumberOfStars();
+        if(dictionary == null) dictionary = new Dictionary();
+        raters[size] = dictionary.intern(rating.getRaterName());
+        comments[size] = dictionary.intern(rating.getRatingComment());
+        ++size;
+    }
+
+    /**
+     * @return the number of distinct rater names and comments in the dictionary of the store
+     */
+    public int getNumberOfStrings() {
+        return dictionary == null ? 0 : dictionary.size;
+    }
+
+    /**
+     * Make room for the given number of ratings, e.g. before adding many ratings
+     */
+    public void ensureCapacity(int capacity) {
+        if(shared && !owner) unshare();
+        if(capacity > stars.length) grow(capacity);
+    }
+
+    /**
+     * Append all the ratings of another store, e.g. to copy an App. An empty store shares the arrays and the
+     * dictionary of the other store instead of copying them, until one of the two stores changes in a way the other
+     * could see. Otherwise the strings of the other store are added to the dictionary of this store.
+     */
+    public void addAll(RatingStore other) {
+        if(other.size == 0) return;
+        if(size == 0) {
+            stars = other.stars;
+            raters = other.raters;
+            comments = other.comments;
+            dictionary = other.dictionary;
+            size = other.size;
+            shared = other.shared = true;
+            owner = false;
+            return;
+        }
+        if(shared && !owner) unshare();
+        if(size + other.size > stars.length) grow(size + other.size);
+        if(dictionary == null) dictionary = new Dictionary();
+        System.arraycopy(other.stars, 0, stars, size, other.size);
+        // the index of every string of the other store in this dictionary plus one, 0 until it is added
+        int[] translated = new int[other.dictionary.strings.length];
+        for(int i = 0; i < other.size; i++) {
+            raters[size + i] = translate(other, other.raters[i], translated);
+            comments[size + i] = translate(other, other.comments[i], translated);
+        }
+        size += other.size;
+    }
+
+    private int translate(RatingStore other, int index, int[] translated) {
+        if(translated[index] == 0) translated[index] = dictionary.intern(other.dictionary.get(index)) + 1;
+        return translated[index] - 1;
+    }
+
+    private void unshare() {
+        stars = Arrays.copyOf(stars, size);
+        raters = Arrays.copyOf(raters, size);
+        comments = Arrays.copyOf(comments, size);
+        if(!owner) dictionary = new Dictionary(dictionary); // the owner only appends to it
+        shared = false;
+        owner = true;
+    }
+
+    private void grow(int minimum) {
+        int capacity = Math.max(minimum, Math.max(4, stars.length + (stars.length >> 1)));
+        stars = Arrays.copyOf(stars, capacity);
+        raters = Arrays.copyOf(raters, capacity);
+        comments = Arrays.copyOf(comments, capacity);
+    }
+
+    /**
+     * @return a new {@link Rating} with the values of the rating at the given index, changing it does not change the
+     * stored rating
+     */
+    public Rating get(int index) {
+        checkIndex(index);
+        return new Rating(stars[index], dictionary.get(raters[index]), dictionary.get(comments[index]));
+    }
+
+    public int getNumberOfStars(int index) {
+        checkIndex(index);
+        return stars[index];
+    }
+
+    /**
+     * @return the index of the first rating with the same number of stars, rater name and comment, -1 if there is none
+     */
+    public int indexOf(Rating rating) {
+        if(size == 0) return -1;
+        if(shared && !owner) { // the owner may be adding to the index of the dictionary, only its strings are read
+            for(int i = 0; i < size; i++) {
+                if(stars[i] == rating.getNumberOfStars()
+                        && Objects.equals(dictionary.get(raters[i]), rating.getRaterName())
+                        && Objects.equals(dictionary.get(comments[i]), rating.getRatingComment())) return i;
+            }
+            return -1;
+        }
+        int rater = dictionary.find(rating.getRaterName()), comment = dictionary.find(rating.getRatingComment());
+        if(rater < 0 || comment < 0) return -1;
+        for(int i = 0; i < size; i++) {
+            if(stars[i] == rating.getNumberOfStars() && raters[i] == rater && comments[i] == comment) return i;
+        }
+        return -1;
+    }
+
+    public void remove(int index) {
+        checkIndex(index);
+        if(shared) unshare();
+        int moved = --size - index;
+        System.arraycopy(stars, index + 1, stars, index, moved);
+        System.arraycopy(raters, index + 1, raters, index, moved);
+        System.arraycopy(comments, index + 1, comments, index, moved);
+    }
+
+    private void checkIndex(int index) {
+        if(index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    /**
+     * @return an unmodifiable view of the ratings that follows the changes of the store, the ratings are created when
+     * they are read
+     */
+    public List<Rating> asList() {
+        return new View();
+    }
+
+    private final class View extends AbstractList<Rating> implements RandomAccess {
+        @Override
+        public Rating get(int index) {
+            return RatingStore.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package utils;
+
+import models.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A compact, versioned binary snapshot format for apps and developers.
+ * <p>Layout of a snapshot file:</p>
+ * <pre>
+ * header     : magic "ASNP" | version (byte) | kind (byte, 1 = apps, 2 = developers)
+ * dictionary : count (varint) | count * (length (varint) | UTF-8 bytes)
+ * records    : count (varint) | count * record
+ * </pre>
+ * <p>Every string is written once in the dictionary and referred to by its index (0 stands for null). Numbers are
+ * written as unsigned LEB128 varints, except the doubles. A rating is packed into two varints:
+ * <code>(rater &lt;&lt; 3 | stars)</code> and the comment.</p>
+ * <p>The same object saved twice (e.g. the developer of several apps) is written once and referred to afterwards,
+ * so that the loaded objects are shared like they were when saved.</p>
+ * <p>Since version 2, every developer is written with its identifier ({@link Developer#getDeveloperId()}), and the
+ * developer of an App that is registered in an {@link IDeveloperResolver} is written as its identifier only.</p>
+ * @author Ryker Zhu
+ * @see SnapshotFormat
+ */
+public class BinarySnapshot {
+    private static final byte[] MAGIC = {'A', 'S', 'N', 'P'};
+
+    /**
+     * The version written by this class, the reader accepts this version and every version before it
+     */
+    public static final int VERSION = 2;
+
+    private static final int KIND_APPS = 1, KIND_DEVELOPERS = 2;
+
+    private static final int TYPE_REFERENCE = 0, TYPE_EDUCATION = 1, TYPE_GAME = 2, TYPE_PRODUCTIVITY = 3;
+
+    //---------------------
+    // Writing
+    //---------------------
+
+    public static void writeApps(List<App> apps, OutputStream stream) throws IOException {
+        writeApps(apps, stream, null);
+    }
+
+    /**
+     * @param resolver the developers that can be referred to by their identifier, null to write every developer in full
+     */
+    public static void writeApps(List<App> apps, OutputStream stream, IDeveloperResolver resolver) throws IOException {
+        Dictionary dictionary = new Dictionary();
+        for(App app : apps) {
+            dictionary.add(app.getAppName());
+            dictionary.add(app.getDescription());
+            dictionary.add(app.getCurrencySymbol());
+            if(app.getDeveloper() != null && !isRegistered(resolver, app.getDeveloper())) {
+                dictionary.add(app.getDeveloper().getDeveloperName());
+                dictionary.add(app.getDeveloper().getDeveloperWebsite());
+            }
+            for(Rating rating : app.getRatings()) {
+                dictionary.add(rating.getRaterName());
+                dictionary.add(rating.getRatingComment());
+            }
+        }
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+        writeHeader(out, KIND_APPS, dictionary);
+
+        // Shared objects are written once, then referred to by the order they were first written in
+        IdentityHashMap<App, Integer> writtenApps = new IdentityHashMap<>();
+        IdentityHashMap<Developer, Integer> writtenDevelopers = new IdentityHashMap<>();
+        writeVarInt(out, apps.size());
+        for(App app : apps) {
+            Integer previous = writtenApps.get(app);
+            if(previous != null) {
+                out.writeByte(TYPE_REFERENCE);
+                writeVarInt(out, previous);
+                continue;
+            }
+            writtenApps.put(app, writtenApps.size());
+            out.writeByte(app instanceof EducationApp ? TYPE_EDUCATION
+                    : app instanceof GameApp ? TYPE_GAME : TYPE_PRODUCTIVITY);
+            writeDeveloper(out, dictionary, writtenDevelopers, app.getDeveloper(), resolver);
+            writeVarInt(out, dictionary.indexOf(app.getAppName()));
+            writeVarInt(out, dictionary.indexOf(app.getDescription()));
+            writeVarInt(out, dictionary.indexOf(app.getCurrencySymbol()));
+            out.writeDouble(app.getAppSize());
+            out.writeDouble(app.getAppVersion());
+            out.writeDouble(app.getAppCost());
+            writeVarInt(out, mask(app.getLanguages()));
+            if(app instanceof EducationApp educationApp) {
+                writeVarInt(out, educationApp.getLevel());
+            } else if(app instanceof GameApp gameApp) {
+                out.writeBoolean(gameApp.isMultiplayer());
+                writeVarInt(out, mask(gameApp.getGenres()));
+            }
+            List<Rating> ratings = app.getRatings();
+            writeVarInt(out, ratings.size());
+            for(Rating rating : ratings) {
+                writeVarInt(out, dictionary.indexOf(rating.getRaterName()) << 3 | rating.getNumberOfStars());
+                writeVarInt(out, dictionary.indexOf(rating.getRatingComment()));
+            }
+        }
+        out.flush();
+    }
+
+    public static void writeDevelopers(List<Developer> developers, OutputStream stream) throws IOException {
+        Dictionary dictionary = new Dictionary();
+        for(Developer developer : developers) {
+            dictionary.add(developer.getDeveloperName());
+            dictionary.add(developer.getDeveloperWebsite());
+        }
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+        writeHeader(out, KIND_DEVELOPERS, dictionary);
+        writeVarInt(out, developers.size());
+        for(Developer developer : developers) {
+            writeVarInt(out, developer.getDeveloperId());
+            writeVarInt(out, dictionary.indexOf(developer.getDeveloperName()));
+            writeVarInt(out, dictionary.indexOf(developer.getDeveloperWebsite()));
+        }
+        out.flush();
+    }
+
+    private static void writeHeader(DataOutputStream out, int kind, Dictionary dictionary) throws IOException {
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(kind);
+        writeVarInt(out, dictionary.strings.size());
+        for(String string : dictionary.strings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(out, bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static void writeDeveloper(DataOutputStream out, Dictionary dictionary, IdentityHashMap<Developer, Integer> written,
+                                       Developer developer, IDeveloperResolver resolver) throws IOException {
+        if(developer == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        Integer previous = written.get(developer);
+        if(previous != null) { // 1 + index of a developer already written
+            writeVarInt(out, previous + 1);
+            return;
+        }
+        written.put(developer, written.size());
+        writeVarInt(out, written.size()); // a new developer follows
+        writeVarInt(out, developer.getDeveloperId());
+        if(isRegistered(resolver, developer)) { // the identifier is enough
+            writeVarInt(out, 0);
+            writeVarInt(out, 0);
+        } else {
+            writeVarInt(out, dictionary.indexOf(developer.getDeveloperName()));
+            writeVarInt(out, dictionary.indexOf(developer.getDeveloperWebsite()));
+        }
+    }
+
+    private static boolean isRegistered(IDeveloperResolver resolver, Developer developer) {
+        return resolver != null && resolver.isRegistered(developer);
+    }
+
+    //---------------------
+    // Reading
+    //---------------------
+
+    public static List<App> readApps(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        int version = readHeader(in, KIND_APPS);
+        String[] dictionary = readDictionary(in);
+        int count = readVarInt(in);
+        List<App> apps = new ArrayList<>(count);
+        List<App> distinctApps = new ArrayList<>();
+        List<Developer> developers = new ArrayList<>();
+        for(int i = 0; i < count; i++) {
+            int type = in.readUnsignedByte();
+            if(type == TYPE_REFERENCE) {
+                apps.add(distinctApps.get(readVarInt(in)));
+                continue;
+            }
+            Developer developer = readDeveloper(in, version, dictionary, developers);
+            String appName = dictionary[readVarInt(in)];
+            String description = dictionary[readVarInt(in)];
+            String currencySymbol = dictionary[readVarInt(in)];
+            double appSize = in.readDouble(), appVersion = in.readDouble(), appCost = in.readDouble();
+            int languages = readVarInt(in);
+            App app = switch (type) {
+                case TYPE_EDUCATION -> new EducationApp(developer, appName, appSize, appVersion, appCost, readVarInt(in));
+                case TYPE_GAME -> {
+                    GameApp gameApp = new GameApp(developer, appName, appSize, appVersion, appCost, in.readBoolean());
+                    int genres = readVarInt(in);
+                    for(GameApp.Genre genre : GameApp.Genre.values()) {
+                        if((genres & 1 << genre.ordinal()) != 0) gameApp.addGenre(genre);
+                    }
+                    yield gameApp;
+                }
+                case TYPE_PRODUCTIVITY -> new ProductivityApp(developer, appName, appSize, appVersion, appCost);
+                default -> throw new IOException("Unknown type of app: " + type);
+            };
+            if(description != null) app.setDescription(description);
+            if(currencySymbol != null) app.setCurrencySymbol(currencySymbol);
+            for(Language language : Language.values()) {
+                if((languages & 1 << language.ordinal()) != 0) app.addLanguage(language);
+            }
+            int ratings = readVarInt(in);
+            for(int j = 0; j < ratings; j++) {
+                int packed = readVarInt(in);
+                String comment = dictionary[readVarInt(in)];
+                app.addRating(new Rating(packed & 7, Objects.requireNonNullElse(dictionary[packed >>> 3], ""),
+                        Objects.requireNonNullElse(comment, "")));
+            }
+            distinctApps.add(app);
+            apps.add(app);
+        }
+        return apps;
+    }
+
+    public static List<Developer> readDevelopers(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        int version = readHeader(in, KIND_DEVELOPERS);
+        String[] dictionary = readDictionary(in);
+        int count = readVarInt(in);
+        List<Developer> developers = new ArrayList<>(count);
+        for(int i = 0; i < count; i++) {
+            int developerId = version >= 2 ? readVarInt(in) : 0;
+            Developer developer = new Developer(dictionary[readVarInt(in)], dictionary[readVarInt(in)]);
+            developer.setDeveloperId(developerId);
+            developers.add(developer);
+        }
+        return developers;
+    }
+
+    /**
+     * @return the version of the snapshot
+     */
+    private static int readHeader(DataInputStream in, int kind) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if(!Arrays.equals(magic, MAGIC)) throw new IOException("Not a binary snapshot");
+        int version = in.readUnsignedByte();
+        if(version < 1 || version > VERSION) throw new IOException("Unsupported snapshot version: " + version);
+        if(in.readUnsignedByte() != kind) throw new IOException("Unexpected kind of snapshot");
+        return version;
+    }
+
+    private static String[] readDictionary(DataInputStream in) throws IOException {
+        String[] dictionary = new String[readVarInt(in) + 1]; // index 0 stands for null
+        for(int i = 1; i < dictionary.length; i++) {
+            byte[] bytes = new byte[readVarInt(in)];
+            in.readFully(bytes);
+            dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return dictionary;
+    }
+
+    private static Developer readDeveloper(DataInputStream in, int version, String[] dictionary,
+                                           List<Developer> developers) throws IOException {
+        int reference = readVarInt(in);
+        if(reference == 0) return null;
+        if(reference <= developers.size()) return developers.get(reference - 1);
+        int developerId = version >= 2 ? readVarInt(in) : 0;
+        Developer developer = new Developer(dictionary[readVarInt(in)], dictionary[readVarInt(in)]);
+        developer.setDeveloperId(developerId);
+        developers.add(developer);
+        return developer;
+    }
+
+    //---------------------
+    // Converters
+    //---------------------
+
+    /**
+     * Convert an apps.xml written by XStream into a binary snapshot
+     * @param xmlFile the path of the XML file to read
+     * @param binaryFile the path of the binary file to write
+     * @throws Exception if either file cannot be read or written
+     */
+    public static void convertAppsFromXML(String xmlFile, String binaryFile) throws Exception {
+        List<App> apps;
+        try (Reader reader = new InputStreamReader(new FileInputStream(xmlFile), StandardCharsets.UTF_8)) {
+            apps = XMLStreamLoader.loadApps(reader);
+        }
+        try (OutputStream out = new FileOutputStream(binaryFile)) {
+            writeApps(apps, out);
+        }
+    }
+
+    /**
+     * Convert a binary snapshot of apps into the XML written by XStream
+     * @param binaryFile the path of the binary file to read
+     * @param xmlFile the path of the XML file to write
+     * @throws Exception if either file cannot be read or written
+     */
+    public static void convertAppsToXML(String binaryFile, String xmlFile) throws Exception {
+        List<App> apps;
+        try (InputStream in = new FileInputStream(binaryFile)) {
+            apps = readApps(in);
+        }
+        writeXML(apps, xmlFile);
+    }
+
+    /**
+     * Convert a developers.xml written by XStream into a binary snapshot
+     * @param xmlFile the path of the XML file to read
+     * @param binaryFile the path of the binary file to write
+     * @throws Exception if either file cannot be read or written
+     */
+    public static void convertDevelopersFromXML(String xmlFile, String binaryFile) throws Exception {
+        List<Developer> developers;
+        try (Reader reader = new InputStreamReader(new FileInputStream(xmlFile), StandardCharsets.UTF_8)) {
+            developers = XMLStreamLoader.loadDevelopers(reader);
+        }
+        try (OutputStream out = new FileOutputStream(binaryFile)) {
+            writeDevelopers(developers, out);
+        }
+    }
+
+    /**
+     * Convert a binary snapshot of developers into the XML written by XStream
+     * @param binaryFile the path of the binary file to read
+     * @param xmlFile the path of the XML file to write
+     * @throws Exception if either file cannot be read or written
+     */
+    public static void convertDevelopersToXML(String binaryFile, String xmlFile) throws Exception {
+        List<Developer> developers;
+        try (InputStream in = new FileInputStream(binaryFile)) {
+            developers = readDevelopers(in);
+        }
+        writeXML(developers, xmlFile);
+    }
+
+    private static void writeXML(List<?> objects, String xmlFile) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(xmlFile), StandardCharsets.UTF_8);
+        ObjectOutputStream out = DeveloperReferenceConverter.appsXStream(null).createObjectOutputStream(writer);
+        out.writeObject(objects);
+        out.close();
+    }
+
+    //---------------------
+    // Encoding helpers
+    //---------------------
+
+    public static void writeVarInt(DataOutput out, int value) throws IOException {
+        while((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    public static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for(int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static int mask(Collection<? extends Enum<?>> values) {
+        int mask = 0;
+        for(Enum<?> value : values) mask |= 1 << value.ordinal();
+        return mask;
+    }
+
+    /**
+     * The strings of a snapshot in the order they are first seen, index 0 is reserved for null
+     */
+    private static class Dictionary {
+        private final List<String> strings = new ArrayList<>();
+        private final HashMap<String, Integer> indices = new HashMap<>();
+
+        void add(String string) {
+            if(string != null && !indices.containsKey(string)) {
+                strings.add(string);
+                indices.put(string, strings.size());
+            }
+        }
+
+        int indexOf(String string) {
+            return string == null ? 0 : indices.get(string);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package utils;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.converters.Converter;
+import com.thoughtworks.xstream.converters.MarshallingContext;
+import com.thoughtworks.xstream.converters.UnmarshallingContext;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+import com.thoughtworks.xstream.io.xml.DomDriver;
+import models.Developer;
+
+/**
+ * Writes the developer of an App as <code>&lt;developer&gt;&lt;developerId&gt;3&lt;/developerId&gt;&lt;/developer&gt;</code>
+ * when the developer is registered in the {@link IDeveloperResolver}, instead of a copy of its name and website.
+ * Developers that are not registered are written in full, like XStream does by default.
+ * @author Ryker Zhu
+ */
+public class DeveloperReferenceConverter implements Converter {
+    private final IDeveloperResolver resolver;
+
+    public DeveloperReferenceConverter(IDeveloperResolver resolver) {
+        this.resolver = resolver;
+    }
+
+    /**
+     * @param resolver the developers that can be referred to by their identifier, null to write every developer in full
+     * @return the XStream used to write the apps, which also writes their {@link models.RatingStore} as a list of ratings
+     */
+    public static XStream appsXStream(IDeveloperResolver resolver) {
+        XStream xstream = new XStream(new DomDriver());
+        xstream.registerConverter(new RatingStoreConverter(xstream.getMapper()));
+        if(resolver != null) xstream.registerConverter(new DeveloperReferenceConverter(resolver));
+        return xstream;
+    }
+
+    @Override
+    public boolean canConvert(Class type) {
+        return type == Developer.class;
+    }
+
+    @Override
+    public void marshal(Object source, HierarchicalStreamWriter writer, MarshallingContext context) {
+        Developer developer = (Developer) source;
+        if(developer.getDeveloperId() != 0) write(writer, "developerId", String.valueOf(developer.getDeveloperId()));
+        if(resolver.isRegistered(developer)) return;
+        if(developer.getDeveloperName() != null) write(writer, "developerName", developer.getDeveloperName());
+        if(developer.getDeveloperWebsite() != null) write(writer, "developerWebsite", developer.getDeveloperWebsite());
+    }
+
+    private static void write(HierarchicalStreamWriter writer, String name, String value) {
+        writer.startNode(name);
+        writer.setValue(value);
+        writer.endNode();
+    }
+
+    @Override
+    public Object unmarshal(HierarchicalStreamReader reader, UnmarshallingContext context) {
+        Developer developer = new Developer(null, null);
+        while(reader.hasMoreChildren()) {
+            reader.moveDown();
+            switch (reader.getNodeName()) {
+                case "developerId" -> developer.setDeveloperId(Integer.parseInt(reader.getValue()));
+                case "developerName" -> developer.setDeveloperName(reader.getValue());
+                case "developerWebsite" -> developer.setDeveloperWebsite(reader.getValue());
+            }
+            reader.moveUp();
+        }
+        return resolver.resolve(developer);
+    }
+}
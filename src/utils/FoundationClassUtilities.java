@@ -1,8 +1,12 @@
 package utils;
 
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.HashSet;
+import java.io.Serial;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
 
 /**
  * Additional classes and methods to support more features like C/C++ like style coding
@@ -110,5 +114,239 @@ public class FoundationClassUtilities {
             }
             return sum / num;
         }
+
+        //---------------------
+        // Primitive specializations
+        //---------------------
+        /**
+         * The collections with at least this number of elements are split across the fork-join pool when
+         * {@link #parallel()} is selected
+         */
+        public static final int PARALLEL_THRESHOLD = 1 << 13;
+
+        /**
+         * <strong>Private Field</strong>
+         * <p>Whether the collections with at least {@link #PARALLEL_THRESHOLD} elements are processed in parallel</p>
+         */
+        private boolean parallel;
+
+        /**
+         * Process the large collections on the common fork-join pool from now on
+         * @return this helper
+         */
+        public Statistics<E> parallel() {
+            parallel = true;
+            return this;
+        }
+
+        /**
+         * Calculate the number of elements in the collection with the condition satisfied, without boxing the result
+         * of the condition
+         */
+        public int count(Predicate<? super E> condition) {
+            int count = 0;
+            if(parallel && collection.size() >= PARALLEL_THRESHOLD) {
+                return (int) summarize(o -> 0, condition).count;
+            } else if(collection instanceof List<E> list && list instanceof RandomAccess) {
+                for(int i = 0, size = list.size(); i < size; i++) {
+                    if(condition.test(list.get(i))) ++count;
+                }
+            } else {
+                for(E o : collection) {
+                    if(condition.test(o)) ++count;
+                }
+            }
+            return count;
+        }
+
+        public double sum(ToDoubleFunction<? super E> value) {
+            return summarize(value, null).sum;
+        }
+
+        public double sum(ToDoubleFunction<? super E> value, Predicate<? super E> condition) {
+            return summarize(value, condition).sum;
+        }
+
+        /**
+         * Sum integer values exactly, e.g. the numbers of stars
+         */
+        public long sumOfInts(ToIntFunction<? super E> value) {
+            if(parallel && collection.size() >= PARALLEL_THRESHOLD) {
+                return parallelSummary(null, value, null).intSum;
+            }
+            long sum = 0;
+            if(collection instanceof List<E> list && list instanceof RandomAccess) {
+                for(int i = 0, size = list.size(); i < size; i++) sum += value.applyAsInt(list.get(i));
+            } else {
+                for(E o : collection) sum += value.applyAsInt(o);
+            }
+            return sum;
+        }
+
+        /**
+         * @return the average of the values, NaN if the collection is empty (like {@link #average})
+         */
+        public double mean(ToDoubleFunction<? super E> value) {
+            return summarize(value, null).mean();
+        }
+
+        /**
+         * @return the average of the values of the elements with the condition satisfied, NaN if there is none
+         */
+        public double mean(ToDoubleFunction<? super E> value, Predicate<? super E> condition) {
+            return summarize(value, condition).mean();
+        }
+
+        /**
+         * @return the smallest value, NaN if the collection is empty
+         */
+        public double min(ToDoubleFunction<? super E> value) {
+            Summary summary = summarize(value, null);
+            return summary.count == 0 ? Double.NaN : summary.min;
+        }
+
+        /**
+         * @return the largest value, NaN if the collection is empty
+         */
+        public double max(ToDoubleFunction<? super E> value) {
+            Summary summary = summarize(value, null);
+            return summary.count == 0 ? Double.NaN : summary.max;
+        }
+
+        /**
+         * @return the population variance of the values, NaN if the collection is empty
+         */
+        public double variance(ToDoubleFunction<? super E> value) {
+            double mean = mean(value);
+            if(Double.isNaN(mean)) return mean;
+            // a second pass over the deviations is stable, unlike the difference of the sums of squares
+            return summarize(o -> {
+                double deviation = value.applyAsDouble(o) - mean;
+                return deviation * deviation;
+            }, null).mean();
+        }
+
+        /**
+         * Calculate a percentile by linear interpolation between the closest ranks, e.g. 50 for the median
+         * @param percentile between 0 and 100
+         * @return the percentile of the values, NaN if the collection is empty
+         */
+        public double percentile(ToDoubleFunction<? super E> value, double percentile) {
+            if(percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("The percentile must be between 0 and 100: " + percentile);
+            }
+            double[] values = new double[collection.size()];
+            int n = 0;
+            for(E o : collection) values[n++] = value.applyAsDouble(o);
+            if(n == 0) return Double.NaN;
+            if(parallel && n >= PARALLEL_THRESHOLD) Arrays.parallelSort(values);
+            else Arrays.sort(values);
+            double rank = percentile / 100 * (n - 1);
+            int lower = (int) rank;
+            return lower + 1 < n ? values[lower] + (rank - lower) * (values[lower + 1] - values[lower]) : values[lower];
+        }
+
+        /**
+         * Count, sum, etc. in a single pass: the sequential path only allocates the result
+         */
+        private Summary summarize(ToDoubleFunction<? super E> value, Predicate<? super E> condition) {
+            if(parallel && collection.size() >= PARALLEL_THRESHOLD) return parallelSummary(value, null, condition);
+            Summary summary = new Summary();
+            if(collection instanceof List<E> list && list instanceof RandomAccess) {
+                for(int i = 0, size = list.size(); i < size; i++) summary.accept(list.get(i), value, condition);
+            } else {
+                for(E o : collection) summary.accept(o, value, condition);
+            }
+            return summary;
+        }
+
+        /**
+         * Split the collection across the common fork-join pool
+         * @param value the values to summarize, null when summing integers
+         * @param integer the integers to sum exactly, null when summarizing values
+         */
+        private Summary parallelSummary(ToDoubleFunction<? super E> value, ToIntFunction<? super E> integer,
+                                        Predicate<? super E> condition) {
+            List<E> list = collection instanceof List<E> l && l instanceof RandomAccess ? l : new ArrayList<>(collection);
+            return ForkJoinPool.commonPool().invoke(new SummaryTask<>(list, 0, list.size(), value, integer, condition));
+        }
+
+        /**
+         * The running count, sum, minimum and maximum of the values, or the exact sum of the integers
+         */
+        private static final class Summary {
+            long count;
+            double sum;
+            double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+            long intSum;
+
+            <E> void accept(E o, ToDoubleFunction<? super E> value, Predicate<? super E> condition) {
+                if(condition != null && !condition.test(o)) return;
+                double x = value.applyAsDouble(o);
+                ++count;
+                sum += x;
+                if(x < min) min = x;
+                if(x > max) max = x;
+            }
+
+            <E> void acceptInt(E o, ToIntFunction<? super E> integer) {
+                ++count;
+                intSum += integer.applyAsInt(o);
+            }
+
+            void combine(Summary other) {
+                intSum += other.intSum;
+                count += other.count;
+                sum += other.sum;
+                min = Math.min(min, other.min);
+                max = Math.max(max, other.max);
+            }
+
+            double mean() {
+                return count == 0 ? Double.NaN : sum / count;
+            }
+        }
+
+        private static final class SummaryTask<E> extends RecursiveTask<Summary> {
+            @Serial
+            private static final long serialVersionUID = 1L;
+
+            // the task is never serialized, its fields only live while the pool runs it
+            private final transient List<E> list;
+            private final int from, to;
+            private final transient ToDoubleFunction<? super E> value;
+            private final transient ToIntFunction<? super E> integer;
+            private final transient Predicate<? super E> condition;
+
+            SummaryTask(List<E> list, int from, int to, ToDoubleFunction<? super E> value,
+                        ToIntFunction<? super E> integer, Predicate<? super E> condition) {
+                this.list = list;
+                this.from = from;
+                this.to = to;
+                this.value = value;
+                this.integer = integer;
+                this.condition = condition;
+            }
+
+            @Override
+            protected Summary compute() {
+                if(to - from <= PARALLEL_THRESHOLD) {
+                    Summary summary = new Summary();
+                    if(integer != null) {
+                        for(int i = from; i < to; i++) summary.acceptInt(list.get(i), integer);
+                    } else {
+                        for(int i = from; i < to; i++) summary.accept(list.get(i), value, condition);
+                    }
+                    return summary;
+                }
+                int middle = (from + to) >>> 1;
+                SummaryTask<E> left = new SummaryTask<>(list, from, middle, value, integer, condition);
+                left.fork();
+                Summary summary = new SummaryTask<>(list, middle, to, value, integer, condition).compute();
+                Summary leftSummary = left.join();
+                leftSummary.combine(summary);
+                return leftSummary;
+            }
+        }
     }
 }
@@ -0,0 +1,40 @@
+package utils;
+
+import models.Developer;
+
+/**
+ * Resolves the developer identifiers saved with the apps to the developers that hold them, e.g. a {@code DeveloperAPI}.
+ * @author Ryker Zhu
+ * @see Developer#getDeveloperId()
+ */
+public interface IDeveloperResolver {
+    /**
+     * @param developerId the identifier of a developer
+     * @return the registered developer with the given identifier, null if there is none
+     */
+    Developer getDeveloperById(int developerId);
+
+    /**
+     * @param developer a developer that has just been loaded, e.g. the developer of an App read from a file
+     * @return the registered developer it stands for, or the given developer if it is not registered
+     */
+    Developer resolve(Developer developer);
+
+    /**
+     * @param developer a developer
+     * @return true if the developer is the very instance registered under its identifier, so that saving its
+     * identifier is enough to find it back
+     */
+    default boolean isRegistered(Developer developer) {
+        return developer != null && developer.getDeveloperId() != 0
+                && getDeveloperById(developer.getDeveloperId()) == developer;
+    }
+
+    /**
+     * @return the number of changes made to the registered developers so far, e.g. so that the cached listings of
+     * the apps, which show their developer, can tell that they are out of date; 0 if the resolver does not count them
+     */
+    default long getModificationCount() {
+        return 0;
+    }
+}
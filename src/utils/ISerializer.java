@@ -4,4 +4,15 @@ public interface ISerializer {
     void save() throws Exception;
     void load() throws Exception;
     String fileName();
+
+    /**
+     * @return the format used by {@link #save()} and {@link #load()}
+     */
+    SnapshotFormat getSnapshotFormat();
+
+    /**
+     * Select the format used by {@link #save()} and {@link #load()}, the file name follows the format
+     * @param snapshotFormat the format of the file
+     */
+    void setSnapshotFormat(SnapshotFormat snapshotFormat);
 }
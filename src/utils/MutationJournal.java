@@ -0,0 +1,213 @@
+package utils;
+
+import java.io.*;
+
+/**
+ * An append-only write-ahead journal of mutations.
+ * <p>Each record is written as its length ({@link BinarySnapshot#writeVarInt varint}) followed by the record itself:
+ * an operation code (byte) and a payload defined by the owner of the journal. The committed records are kept in
+ * memory until {@link #flush()} appends them to the file and forces them to the disk, so the cost of a save is
+ * proportional to the number of mutations instead of the size of the whole store, and the mutations that have not
+ * been saved never reach the disk. A checkpoint writes a full snapshot and {@link #truncate() truncates} the journal.</p>
+ * <p>A record that was only partially written (e.g. the program was killed) is ignored and cut off by
+ * {@link #replay}.</p>
+ * @author Ryker Zhu
+ */
+public class MutationJournal implements Closeable {
+
+    /**
+     * Applies one record of the journal
+     */
+    @FunctionalInterface
+    public interface RecordHandler {
+        void apply(int operation, DataInputStream payload) throws IOException;
+    }
+
+    private final File file;
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The record being built by {@link #begin(int)}, reused by every record</p>
+     */
+    private final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream(64);
+    private final DataOutputStream record = new DataOutputStream(recordBuffer);
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The records committed since the last {@link #flush()}, i.e. the mutations that have not been saved</p>
+     */
+    private final ByteArrayOutputStream unsaved = new ByteArrayOutputStream();
+    private final DataOutputStream unsavedRecords = new DataOutputStream(unsaved);
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The number of records in the journal, i.e. since the last checkpoint</p>
+     */
+    private int size;
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>The length of the journal in bytes, including the records not flushed yet</p>
+     */
+    private long length;
+
+    public MutationJournal(String fileName) {
+        this.file = new File(fileName);
+        this.length = file.length();
+    }
+
+    public String fileName() {
+        return file.getName();
+    }
+
+    /**
+     * @return the number of records since the last checkpoint
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Start a new record, the payload must be written to the returned stream before calling {@link #commit()}
+     * @param operation the operation code of the record
+     * @return the stream of the payload
+     */
+    public synchronized DataOutputStream begin(int operation) throws IOException {
+        recordBuffer.reset();
+        record.writeByte(operation);
+        return record;
+    }
+
+    /**
+     * Append the record started by {@link #begin(int)} to the journal, it is written to the file by the next
+     * {@link #flush()}
+     */
+    public synchronized void commit() throws IOException {
+        int before = unsaved.size();
+        BinarySnapshot.writeVarInt(unsavedRecords, recordBuffer.size());
+        recordBuffer.writeTo(unsaved);
+        length += unsaved.size() - before;
+        ++size;
+    }
+
+    /**
+     * @return the length of the journal in bytes, to be given to {@link #discardBefore(long, int)} later on
+     */
+    public synchronized long length() {
+        return length;
+    }
+
+    /**
+     * @return the length of the records already on the disk, which {@link #replay} applies
+     */
+    public synchronized long savedLength() {
+        return length - unsaved.size();
+    }
+
+    /**
+     * Discard the records before the given position, called once their effects have been written to a snapshot
+     * while new records kept being appended. The records after the position are kept, flushed or not.
+     * @param position the {@link #length()} of the journal when the snapshot was captured
+     * @param records the {@link #size()} of the journal when the snapshot was captured
+     */
+    public synchronized void discardBefore(long position, int records) throws IOException {
+        long saved = savedLength();
+        byte[] remaining = new byte[(int) Math.max(0, saved - position)];
+        if(remaining.length > 0) {
+            try (RandomAccessFile journal = new RandomAccessFile(file, "r")) {
+                journal.seek(position);
+                journal.readFully(remaining);
+            }
+        }
+        try (FileOutputStream rewritten = new FileOutputStream(file)) {
+            rewritten.write(remaining);
+            rewritten.getFD().sync();
+        }
+        if(position > saved) { // the snapshot also covers some of the records that have not been flushed
+            byte[] pending = unsaved.toByteArray();
+            int covered = (int) (position - saved);
+            unsaved.reset();
+            unsaved.write(pending, covered, pending.length - covered);
+        }
+        length -= position;
+        size -= records;
+    }
+
+    /**
+     * Append the records committed since the last flush to the file and force them to the disk
+     */
+    public synchronized void flush() throws IOException {
+        if(unsaved.size() == 0) return;
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            unsaved.writeTo(out);
+            out.getFD().sync();
+        }
+        unsaved.reset();
+    }
+
+    /**
+     * Apply every complete record of the file in the order they were appended, the records that have not been
+     * flushed are discarded since the store is loaded again from the disk
+     * @param handler the callback that applies a record
+     * @return the number of records applied
+     */
+    public synchronized int replay(RecordHandler handler) throws IOException {
+        unsaved.reset();
+        size = 0;
+        if(!file.exists()) return 0;
+        long complete = 0; // the length of the journal up to the end of the last complete record
+        boolean torn = false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            for(;;) {
+                int b = in.read();
+                if(b < 0) break;
+                int length = 0, header = 1;
+                for(int shift = 0; (b & 0x80) != 0; shift += 7, ++header) {
+                    length |= (b & 0x7F) << shift;
+                    b = in.read();
+                    if(b < 0) break;
+                }
+                if(b < 0) {
+                    torn = true;
+                    break;
+                }
+                length |= (b & 0x7F) << (7 * (header - 1));
+                byte[] bytes = new byte[length];
+                if(in.readNBytes(bytes, 0, length) < length) {
+                    torn = true;
+                    break;
+                }
+                DataInputStream payload = new DataInputStream(new ByteArrayInputStream(bytes));
+                handler.apply(payload.readUnsignedByte(), payload);
+                complete += header + length;
+                ++size;
+            }
+        }
+        if(torn) {
+            try (RandomAccessFile journal = new RandomAccessFile(file, "rw")) {
+                journal.setLength(complete);
+            }
+        }
+        length = complete;
+        return size;
+    }
+
+    /**
+     * Discard all the records, called once their effects have been written to a snapshot
+     */
+    public synchronized void truncate() throws IOException {
+        unsaved.reset();
+        new FileOutputStream(file).close();
+        size = 0;
+        length = 0;
+    }
+
+    /**
+     * Stop using the journal, the records that have not been flushed are discarded
+     */
+    @Override
+    public synchronized void close() {
+        length -= unsaved.size();
+        unsaved.reset();
+    }
+}
@@ -0,0 +1,314 @@
+package utils;
+
+import java.util.*;
+
+/**
+ * An immutable list that shares its structure with the lists it is derived from: the elements are held in a tree of
+ * 32-slot arrays plus a tail array, so {@link #set}, {@link #append} and {@link #removeLast} only copy the arrays on
+ * the path to the element (at most 7 arrays for two billion elements) and the old list is left unchanged.
+ * @param <E> the type of the elements
+ * @author Ryker Zhu
+ */
+public final class PersistentVector<E> implements Iterable<E> {
+
+    private static final int BITS = 5, WIDTH = 1 << BITS, MASK = WIDTH - 1;
+
+    private static final class Node {
+        final Object[] array;
+
+        Node(Object[] array) {
+            this.array = array;
+        }
+    }
+
+    private static final Node EMPTY_NODE = new Node(new Object[WIDTH]);
+
+    private static final PersistentVector<?> EMPTY = new PersistentVector<>(0, BITS, EMPTY_NODE, new Object[0]);
+
+    private final int size, shift;
+    private final Node root;
+
+    /**
+     * Private Field
+     * <p>The last 1 to 32 elements, kept out of the tree so that appending only copies this array</p>
+     */
+    private final Object[] tail;
+
+    private PersistentVector(int size, int shift, Node root, Object[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> empty() {
+        return (PersistentVector<E>) EMPTY;
+    }
+
+    public static <E> PersistentVector<E> of(Collection<? extends E> elements) {
+        return PersistentVector.<E>empty().appendAll(elements.toArray());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private int tailOffset() {
+        return tailOffset(size);
+    }
+
+    /**
+     * @return the index of the first element of the tail of a list of the given size
+     */
+    private static int tailOffset(int size) {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    private Object[] arrayFor(int index) {
+        if(index >= tailOffset()) return tail;
+        Node node = root;
+        for(int level = shift; level > 0; level -= BITS) node = (Node) node.array[(index >>> level) & MASK];
+        return node.array;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Objects.checkIndex(index, size);
+        return (E) arrayFor(index)[index & MASK];
+    }
+
+    /**
+     * @return a list with the element at the given index replaced
+     */
+    public PersistentVector<E> set(int index, E element) {
+        Objects.checkIndex(index, size);
+        if(index >= tailOffset()) {
+            Object[] newTail = tail.clone();
+            newTail[index & MASK] = element;
+            return new PersistentVector<>(size, shift, root, newTail);
+        }
+        return new PersistentVector<>(size, shift, set(shift, root, index, element), tail);
+    }
+
+    private static Node set(int level, Node node, int index, Object element) {
+        Node copy = new Node(node.array.clone());
+        if(level == 0) {
+            copy.array[index & MASK] = element;
+        } else {
+            int child = (index >>> level) & MASK;
+            copy.array[child] = set(level - BITS, (Node) node.array[child], index, element);
+        }
+        return copy;
+    }
+
+    /**
+     * @return a list with the element added at the end
+     */
+    public PersistentVector<E> append(E element) {
+        if(size - tailOffset() < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = element;
+            return new PersistentVector<>(size + 1, shift, root, newTail);
+        }
+        return moveTail(new Object[]{element});
+    }
+
+    /**
+     * Move the full tail into the tree, which grows a level when the root is full
+     * @param newTail the elements that follow it
+     * @return a list with the new tail
+     */
+    private PersistentVector<E> moveTail(Object[] newTail) {
+        Node tailNode = new Node(tail);
+        Node newRoot;
+        int newShift = shift;
+        if((size >>> BITS) > (1 << shift)) {
+            newRoot = new Node(new Object[WIDTH]);
+            newRoot.array[0] = root;
+            newRoot.array[1] = newPath(shift, tailNode);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(shift, root, tailNode);
+        }
+        return new PersistentVector<>(size + newTail.length, newShift, newRoot, newTail);
+    }
+
+    private Node pushTail(int level, Node parent, Node tailNode) {
+        int child = ((size - 1) >>> level) & MASK;
+        Node copy = new Node(parent.array.clone());
+        if(level == BITS) {
+            copy.array[child] = tailNode;
+        } else {
+            Node node = (Node) parent.array[child];
+            copy.array[child] = node != null ? pushTail(level - BITS, node, tailNode) : newPath(level - BITS, tailNode);
+        }
+        return copy;
+    }
+
+    private static Node newPath(int level, Node node) {
+        if(level == 0) return node;
+        Node path = new Node(new Object[WIDTH]);
+        path.array[0] = newPath(level - BITS, node);
+        return path;
+    }
+
+    /**
+     * @return a list without its last element
+     */
+    public PersistentVector<E> removeLast() {
+        if(size == 0) throw new IllegalStateException("The list is empty");
+        if(size == 1) return empty();
+        if(size - tailOffset() > 1) {
+            return new PersistentVector<>(size - 1, shift, root, Arrays.copyOf(tail, tail.length - 1));
+        }
+        // the tail becomes empty: the last array of the tree becomes the tail
+        Object[] newTail = arrayFor(size - 2);
+        Node newRoot = popTail(shift, root);
+        int newShift = shift;
+        if(newRoot == null) newRoot = EMPTY_NODE;
+        if(shift > BITS && newRoot.array[1] == null) {
+            newRoot = (Node) newRoot.array[0];
+            newShift -= BITS;
+        }
+        return new PersistentVector<>(size - 1, newShift, newRoot, newTail);
+    }
+
+    private Node popTail(int level, Node node) {
+        int child = ((size - 2) >>> level) & MASK;
+        if(level > BITS) {
+            Node newChild = popTail(level - BITS, (Node) node.array[child]);
+            if(newChild == null && child == 0) return null;
+            Node copy = new Node(node.array.clone());
+            copy.array[child] = newChild;
+            return copy;
+        } else if(child == 0) {
+            return null;
+        }
+        Node copy = new Node(node.array.clone());
+        copy.array[child] = null;
+        return copy;
+    }
+
+    /**
+     * @return a list with the elements added at the end, filling a whole array of the tree at a time
+     */
+    private PersistentVector<E> appendAll(Object[] elements) {
+        PersistentVector<E> vector = this;
+        for(int from = 0; from < elements.length; ) {
+            int inTail = vector.size - vector.tailOffset(), count;
+            if(inTail == WIDTH) {
+                count = Math.min(WIDTH, elements.length - from);
+                vector = vector.moveTail(Arrays.copyOfRange(elements, from, from + count));
+            } else {
+                count = Math.min(WIDTH - inTail, elements.length - from);
+                Object[] newTail = Arrays.copyOf(vector.tail, inTail + count);
+                System.arraycopy(elements, from, newTail, inTail, count);
+                vector = new PersistentVector<>(vector.size + count, vector.shift, vector.root, newTail);
+            }
+            from += count;
+        }
+        return vector;
+    }
+
+    /**
+     * @return a list of the first elements of this list, which shares the arrays of the tree before them
+     */
+    private PersistentVector<E> take(int count) {
+        if(count == 0) return empty();
+        if(count == size) return this;
+        int offset = tailOffset(count);
+        if(offset == tailOffset()) return new PersistentVector<>(count, shift, root, Arrays.copyOf(tail, count - offset));
+        Object[] newTail = Arrays.copyOf(arrayFor(count - 1), count - offset);
+        if(offset == 0) return new PersistentVector<>(count, BITS, EMPTY_NODE, newTail);
+        Node newRoot = trim(shift, root, offset - 1);
+        int newShift = shift;
+        while(newShift > BITS && newRoot.array[1] == null) {
+            newRoot = (Node) newRoot.array[0];
+            newShift -= BITS;
+        }
+        return new PersistentVector<>(count, newShift, newRoot, newTail);
+    }
+
+    /**
+     * @return a copy of the path to the element at the given index without the arrays after it
+     */
+    private static Node trim(int level, Node node, int last) {
+        int child = (last >>> level) & MASK;
+        Node copy = new Node(Arrays.copyOf(Arrays.copyOf(node.array, child + 1), WIDTH));
+        if(level > BITS) copy.array[child] = trim(level - BITS, (Node) node.array[child], last);
+        return copy;
+    }
+
+    /**
+     * Only the elements before the index are shared: the elements after it are copied once and appended a whole
+     * array at a time, so it takes a time proportional to their number
+     * @return a list without the element at the given index
+     */
+    public PersistentVector<E> remove(int index) {
+        Objects.checkIndex(index, size);
+        Object[] after = new Object[size - index - 1];
+        for(int at = index + 1, copied = 0; at < size; ) {
+            int count = Math.min(WIDTH - (at & MASK), size - at);
+            System.arraycopy(arrayFor(at), at & MASK, after, copied, count);
+            copied += count;
+            at += count;
+        }
+        return take(index).appendAll(after);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+            private int index;
+            private Object[] array;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if(index >= size) throw new NoSuchElementException();
+                if((index & MASK) == 0 || array == null) array = arrayFor(index);
+                return (E) array[index++ & MASK];
+            }
+        };
+    }
+
+    /**
+     * @return an unmodifiable {@link List} view of this list
+     */
+    public List<E> asList() {
+        return new View<>(this);
+    }
+
+    private static final class View<E> extends AbstractList<E> implements RandomAccess {
+        private final PersistentVector<E> vector;
+
+        View(PersistentVector<E> vector) {
+            this.vector = vector;
+        }
+
+        @Override
+        public E get(int index) {
+            return vector.get(index);
+        }
+
+        @Override
+        public int size() {
+            return vector.size;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return vector.iterator();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package utils;
+
+import com.thoughtworks.xstream.converters.Converter;
+import com.thoughtworks.xstream.converters.MarshallingContext;
+import com.thoughtworks.xstream.converters.UnmarshallingContext;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+import com.thoughtworks.xstream.mapper.Mapper;
+import models.Rating;
+import models.RatingStore;
+
+/**
+ * Writes the {@link RatingStore} of an App as the list of {@link Rating} that XStream wrote before the ratings were
+ * stored by column, so the XML files are unchanged and {@link XMLStreamLoader} reads both.
+ * @author Ryker Zhu
+ */
+public class RatingStoreConverter implements Converter {
+    private final Mapper mapper;
+
+    public RatingStoreConverter(Mapper mapper) {
+        this.mapper = mapper;
+    }
+
+    @Override
+    public boolean canConvert(Class type) {
+        return type == RatingStore.class;
+    }
+
+    @Override
+    public void marshal(Object source, HierarchicalStreamWriter writer, MarshallingContext context) {
+        for(Rating rating : ((RatingStore) source).asList()) {
+            writer.startNode(mapper.serializedClass(Rating.class));
+            context.convertAnother(rating);
+            writer.endNode();
+        }
+    }
+
+    @Override
+    public Object unmarshal(HierarchicalStreamReader reader, UnmarshallingContext context) {
+        RatingStore ratings = new RatingStore();
+        while(reader.hasMoreChildren()) {
+            reader.moveDown();
+            ratings.add((Rating) context.convertAnother(ratings, Rating.class));
+            reader.moveUp();
+        }
+        return ratings;
+    }
+}
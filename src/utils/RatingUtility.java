@@ -3,8 +3,7 @@ package utils;
 import models.Rating;
 
 import java.util.*;
-
-import static java.lang.Math.random;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class RatingUtility {
 
@@ -32,10 +31,28 @@ public class RatingUtility {
             add("Not for me");
         }};
 
+        /**
+         * Uses the random generator of the current thread, so it does not contend when called from many threads
+         * @return a rating of 1 to 5 stars by any of the authors
+         */
         public static Rating generateRandomRating() {
-            return new Rating( (int) (random() * (5)),
-                    listOfAuthors.get ((int) (random() * (listOfAuthors.size()-1))),
-                    listOfComments.get ((int) (random() * (listOfComments.size()-1)))
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            return new Rating(1 + random.nextInt(5),
+                    listOfAuthors.get(random.nextInt(listOfAuthors.size())),
+                    listOfComments.get(random.nextInt(listOfComments.size()))
+                 );
+        }
+
+        /**
+         * The same sequence of ratings is generated from the same seeded generator
+         * @param random a seeded generator, split it to generate ratings in parallel
+         * @param stars the distribution of the number of stars
+         * @return a rating of 1 to 5 stars by any of the authors
+         */
+        public static Rating generateRandomRating(SplittableRandom random, StarDistribution stars) {
+            return new Rating(stars.sample(random),
+                    listOfAuthors.get(random.nextInt(listOfAuthors.size())),
+                    listOfComments.get(random.nextInt(listOfComments.size()))
                  );
         }
 }
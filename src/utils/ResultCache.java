@@ -0,0 +1,90 @@
+package utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * A bounded cache of the results of the report methods, keyed by the query and its parameters.
+ * <p>Every result is tagged with the modification version of the store it was computed from. A lookup with another
+ * version misses, and since versions only increase the whole cache is dropped at once. The least recently used
+ * results are evicted once there are more than {@code maxEntries} results or more than {@code maxCharacters}
+ * characters in total.</p>
+ * @author Ryker Zhu
+ */
+public class ResultCache {
+
+    private record Entry(long version, String result) {
+    }
+
+    private final int maxEntries;
+    private final long maxCharacters;
+
+    /**
+     * Private Field
+     * <p>The results in access order, the eldest is the least recently used</p>
+     */
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long characters;
+    private long version;
+    private long hits, misses;
+
+    public ResultCache(int maxEntries, long maxCharacters) {
+        this.maxEntries = maxEntries;
+        this.maxCharacters = maxCharacters;
+    }
+
+    /**
+     * @param key the query and its parameters, e.g. {@code List.of("listAllAppsByName", name)}
+     * @param version the current modification version of the store
+     * @param query computes the result on a miss, outside the lock of the cache
+     * @return the cached or computed result
+     */
+    public String get(Object key, long version, Supplier<String> query) {
+        synchronized(this) {
+            if(version != this.version) {
+                clear();
+                this.version = version;
+            }
+            Entry entry = entries.get(key);
+            if(entry != null) {
+                ++hits;
+                return entry.result();
+            }
+            ++misses;
+        }
+        String result = query.get();
+        put(key, version, result);
+        return result;
+    }
+
+    private synchronized void put(Object key, long version, String result) {
+        if(version != this.version || result.length() > maxCharacters) return; // stale or too large
+        Entry previous = entries.put(key, new Entry(version, result));
+        if(previous != null) characters -= previous.result().length();
+        characters += result.length();
+        Iterator<Map.Entry<Object, Entry>> eldest = entries.entrySet().iterator();
+        while(entries.size() > maxEntries || characters > maxCharacters) {
+            characters -= eldest.next().getValue().result().length();
+            eldest.remove();
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        characters = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
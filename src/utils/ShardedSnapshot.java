@@ -0,0 +1,273 @@
+package utils;
+
+import models.App;
+import models.EducationApp;
+import models.GameApp;
+import models.ProductivityApp;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Apps saved as several files (shards) instead of one: one group of shards per subclass of {@link App}, and one shard
+ * per segment of at most <code>segmentSize</code> apps within a group, e.g. <code>apps-GameApp-0.xml</code>,
+ * <code>apps-GameApp-1.xml</code>, etc.
+ * <p>A manifest file (e.g. <code>apps.shards</code>) lists the shards and the position of every app of a shard in the
+ * whole list, so shards can be loaded in parallel or one at a time, in any order, and the apps still end up at the
+ * positions they were saved at.</p>
+ * <p>Manifest layout: magic "ASHD" | version (byte) | format (byte) | number of apps (varint) | number of shards
+ * (varint) | for each shard: type (byte) | file name (UTF) | number of apps (varint) | positions (delta varints)</p>
+ * @author Ryker Zhu
+ * @see BinarySnapshot
+ */
+public class ShardedSnapshot {
+    private static final byte[] MAGIC = {'A', 'S', 'H', 'D'};
+    private static final int VERSION = 1;
+
+    /**
+     * The subclasses of App in the order their shards are listed in the manifest
+     */
+    private static final List<Class<? extends App>> TYPES = List.of(EducationApp.class, GameApp.class, ProductivityApp.class);
+
+    /**
+     * A shard of the snapshot, i.e. a file that contains some apps of the same type
+     */
+    public static class Shard {
+        private final Class<? extends App> type;
+        private final String fileName;
+        private final int[] positions;
+
+        private Shard(Class<? extends App> type, String fileName, int[] positions) {
+            this.type = type;
+            this.fileName = fileName;
+            this.positions = positions;
+        }
+
+        public Class<? extends App> getType() {
+            return type;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        /**
+         * @param position a position in the whole list of apps
+         * @return true if the app at the given position is stored in this shard
+         */
+        public boolean contains(int position) {
+            return Arrays.binarySearch(positions, position) >= 0;
+        }
+    }
+
+    private final SnapshotFormat format;
+    private final int size;
+    private final List<Shard> shards;
+
+    private ShardedSnapshot(SnapshotFormat format, int size, List<Shard> shards) {
+        this.format = format;
+        this.size = size;
+        this.shards = shards;
+    }
+
+    /**
+     * @return the number of apps in all the shards
+     */
+    public int size() {
+        return size;
+    }
+
+    public List<Shard> getShards() {
+        return Collections.unmodifiableList(shards);
+    }
+
+    //---------------------
+    // Writing
+    //---------------------
+
+    /**
+     * Write the apps as shards (in parallel) and the manifest, then delete the shards of the previous snapshot that are
+     * not used anymore
+     * @param apps all the apps
+     * @param manifestFile the path of the manifest, the shards are written next to it
+     * @param format the format of the shards
+     * @param segmentSize the maximum number of apps in a shard
+     * @param resolver the developers that can be referred to by their identifier, may be null
+     * @throws IllegalArgumentException if an App is not an Education, Game or Productivity App
+     */
+    public static void write(List<App> apps, String manifestFile, SnapshotFormat format, int segmentSize,
+                             IDeveloperResolver resolver) throws IOException {
+        String base = manifestFile.replaceFirst("\\.[^./\\\\]*$", "");
+        Map<Class<? extends App>, List<Integer>> positionsByType = new HashMap<>();
+        for(int i = 0; i < apps.size(); i++) {
+            positionsByType.computeIfAbsent(typeOf(apps.get(i)), type -> new ArrayList<>()).add(i);
+        }
+        List<Shard> shards = new ArrayList<>();
+        List<List<App>> contents = new ArrayList<>();
+        for(Class<? extends App> type : TYPES) {
+            List<Integer> positions = positionsByType.getOrDefault(type, List.of());
+            for(int from = 0, segment = 0; from < positions.size(); from += segmentSize, segment++) {
+                int[] segmentPositions = positions.subList(from, Math.min(from + segmentSize, positions.size()))
+                        .stream().mapToInt(Integer::intValue).toArray();
+                List<App> segmentApps = new ArrayList<>(segmentPositions.length);
+                for(int position : segmentPositions) segmentApps.add(apps.get(position));
+                shards.add(new Shard(type, format.fileName(base + '-' + type.getSimpleName() + '-' + segment), segmentPositions));
+                contents.add(segmentApps);
+            }
+        }
+
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for(int i = 0; i < shards.size(); i++) {
+            Shard shard = shards.get(i);
+            List<App> shardApps = contents.get(i);
+            writes.add(CompletableFuture.runAsync(() -> {
+                try {
+                    writeShard(shardApps, new File(shard.fileName), format, resolver);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+        try {
+            CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof UncheckedIOException io) throw io.getCause();
+            throw e;
+        }
+
+        Set<String> previous = new HashSet<>();
+        File manifest = new File(manifestFile);
+        if(manifest.length() > 0) {
+            for(Shard shard : read(manifestFile).shards) previous.add(shard.fileName);
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(manifest)))) {
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeByte(format.ordinal());
+            BinarySnapshot.writeVarInt(out, apps.size());
+            BinarySnapshot.writeVarInt(out, shards.size());
+            for(Shard shard : shards) {
+                out.writeByte(TYPES.indexOf(shard.type));
+                out.writeUTF(shard.fileName);
+                BinarySnapshot.writeVarInt(out, shard.positions.length);
+                int last = 0;
+                for(int position : shard.positions) {
+                    BinarySnapshot.writeVarInt(out, position - last);
+                    last = position;
+                }
+            }
+        }
+        for(Shard shard : shards) previous.remove(shard.fileName);
+        for(String stale : previous) {
+            //noinspection ResultOfMethodCallIgnored
+            new File(stale).delete();
+        }
+    }
+
+    /**
+     * @return the type of the shards the App is saved in, i.e. the first of {@link #TYPES} it is an instance of
+     * @throws IllegalArgumentException if the App is not an instance of any of them, it would not be saved
+     */
+    private static Class<? extends App> typeOf(App app) {
+        for(Class<? extends App> type : TYPES) {
+            if(type.isInstance(app)) return type;
+        }
+        throw new IllegalArgumentException("Cannot shard an App of type " + app.getClass().getName());
+    }
+
+    private static void writeShard(List<App> apps, File file, SnapshotFormat format, IDeveloperResolver resolver) throws IOException {
+        if(format == SnapshotFormat.BINARY) {
+            try (OutputStream out = new FileOutputStream(file)) {
+                BinarySnapshot.writeApps(apps, out, resolver);
+            }
+        } else {
+            Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
+            ObjectOutputStream out = DeveloperReferenceConverter.appsXStream(resolver).createObjectOutputStream(writer);
+            out.writeObject(apps);
+            out.close();
+        }
+    }
+
+    //---------------------
+    // Reading
+    //---------------------
+
+    /**
+     * Read the manifest only, the shards are loaded by {@link #load(Collection, List)}
+     * @param manifestFile the path of the manifest
+     * @return the snapshot described by the manifest, empty if the manifest is an empty file
+     */
+    public static ShardedSnapshot read(String manifestFile) throws IOException {
+        if(new File(manifestFile).length() == 0) return new ShardedSnapshot(SnapshotFormat.XML, 0, new ArrayList<>());
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(manifestFile)))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if(!Arrays.equals(magic, MAGIC)) throw new IOException("Not a shard manifest");
+            int version = in.readUnsignedByte();
+            if(version < 1 || version > VERSION) throw new IOException("Unsupported manifest version: " + version);
+            SnapshotFormat format = SnapshotFormat.values()[in.readUnsignedByte()];
+            int size = BinarySnapshot.readVarInt(in);
+            int count = BinarySnapshot.readVarInt(in);
+            List<Shard> shards = new ArrayList<>(count);
+            for(int i = 0; i < count; i++) {
+                Class<? extends App> type = TYPES.get(in.readUnsignedByte());
+                String fileName = in.readUTF();
+                int[] positions = new int[BinarySnapshot.readVarInt(in)];
+                for(int j = 0, last = 0; j < positions.length; j++) {
+                    positions[j] = last += BinarySnapshot.readVarInt(in);
+                }
+                shards.add(new Shard(type, fileName, positions));
+            }
+            return new ShardedSnapshot(format, size, shards);
+        }
+    }
+
+    /**
+     * Load the given shards in parallel and put every app at its position in the list
+     * @param shards the shards to load
+     * @param apps the list of all the apps, at least {@link #size()} long
+     * @return the apps that have been loaded
+     */
+    public List<App> load(Collection<Shard> shards, List<App> apps) throws Exception {
+        List<CompletableFuture<List<App>>> reads = new ArrayList<>();
+        for(Shard shard : shards) {
+            reads.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return readShard(shard);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }));
+        }
+        List<App> loaded = new ArrayList<>();
+        int i = 0;
+        for(Shard shard : shards) {
+            List<App> shardApps;
+            try {
+                shardApps = reads.get(i++).join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            }
+            if(shardApps.size() != shard.positions.length) throw new IOException("Corrupted shard: " + shard.fileName);
+            for(int j = 0; j < shardApps.size(); j++) {
+                apps.set(shard.positions[j], shardApps.get(j));
+            }
+            loaded.addAll(shardApps);
+        }
+        return loaded;
+    }
+
+    private List<App> readShard(Shard shard) throws Exception {
+        if(format == SnapshotFormat.BINARY) {
+            try (InputStream in = new FileInputStream(shard.fileName)) {
+                return BinarySnapshot.readApps(in);
+            }
+        }
+        try (Reader reader = new InputStreamReader(new FileInputStream(shard.fileName), StandardCharsets.UTF_8)) {
+            return XMLStreamLoader.loadApps(reader);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package utils;
+
+/**
+ * Enumerate the file formats that {@link ISerializer} implementations can save to and load from.
+ * @author Ryker Zhu
+ * @see BinarySnapshot
+ */
+public enum SnapshotFormat {
+    /**
+     * The XML written by XStream, human-readable, e.g. <code>apps.xml</code>
+     */
+    XML(".xml"),
+    /**
+     * The compact versioned binary format of {@link BinarySnapshot}, e.g. <code>apps.bin</code>
+     */
+    BINARY(".bin");
+
+    private final String extension;
+
+    SnapshotFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Replace the extension of the given file name by the extension of this format
+     * @param fileName the file name, e.g. <code>apps.xml</code>
+     * @return the file name with the extension of this format, e.g. <code>apps.bin</code>
+     */
+    public String fileName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        if(dot > Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\')))
+            fileName = fileName.substring(0, dot);
+        return fileName + extension;
+    }
+}
@@ -0,0 +1,59 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * How the numbers of stars (1 to 5) of simulated ratings are distributed
+ * @author Ryker Zhu
+ * @see RatingUtility#generateRandomRating(SplittableRandom, StarDistribution)
+ */
+public final class StarDistribution {
+
+    /**
+     * Every number of stars is as likely
+     */
+    public static final StarDistribution UNIFORM = new StarDistribution(1, 1, 1, 1, 1);
+
+    /**
+     * Private Field
+     * <p>The cumulative probabilities of 1 to 5 stars, the last one is 1</p>
+     */
+    private final double[] cumulative = new double[5];
+
+    /**
+     * @param weights the relative weights of 1, 2, 3, 4 and 5 stars, e.g. (1, 1, 2, 4, 8)
+     */
+    public StarDistribution(double... weights) {
+        if(weights.length != 5) throw new IllegalArgumentException("Expected 5 weights: " + Arrays.toString(weights));
+        double total = 0;
+        for(double weight : weights) {
+            if(!(weight >= 0)) throw new IllegalArgumentException("Invalid weight: " + weight);
+            total += weight;
+        }
+        if(total == 0) throw new IllegalArgumentException("At least one weight must be positive");
+        double sum = 0;
+        for(int i = 0; i < weights.length; i++) cumulative[i] = (sum += weights[i]) / total;
+        cumulative[4] = 1;
+    }
+
+    /**
+     * A distribution where the weight of n stars is proportional to e<sup>skew * (n - 3)</sup>
+     * @param skew 0 for a uniform distribution, positive for more good ratings and negative for more bad ratings
+     */
+    public static StarDistribution skewed(double skew) {
+        double[] weights = new double[5];
+        for(int i = 0; i < weights.length; i++) weights[i] = Math.exp(skew * (i - 2));
+        return new StarDistribution(weights);
+    }
+
+    /**
+     * @return a number of stars from 1 to 5
+     */
+    public int sample(SplittableRandom random) {
+        double u = random.nextDouble();
+        int stars = 0;
+        while(cumulative[stars] <= u && stars < 4) ++stars;
+        return stars + 1;
+    }
+}
@@ -0,0 +1,278 @@
+package utils;
+
+import models.*;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Reader;
+import java.util.*;
+
+/**
+ * A streaming (StAX pull-parser) reader for the XML files written by XStream in {@code AppStoreAPI.save()} and
+ * {@code DeveloperAPI.save()}.
+ * <p>Unlike {@code new XStream(new DomDriver())}, the document is never held in memory as a tree: every
+ * {@link App}, {@link Developer} and {@link Rating} is created as soon as its element has been read, so the peak
+ * memory is close to the size of the resulting object graph.</p>
+ * <p>The developer of an App may only hold its identifier (see {@link DeveloperReferenceConverter}), the caller
+ * resolves it with an {@link IDeveloperResolver}.</p>
+ * <p>XStream writes an object that has already been serialised as an empty element with a {@code reference}
+ * attribute (e.g. an app sharing the developer of a previous app). The loader keeps track of the path of every
+ * object it has created so that such references resolve to the same instance, exactly like XStream does.</p>
+ * @author Ryker Zhu
+ */
+public class XMLStreamLoader {
+
+    private final XMLStreamReader reader;
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>Names of the elements from the document root down to the current element, each with its XPath index
+     * suffix (e.g. <code>models.EducationApp[2]</code>) when it is not the first sibling of that name</p>
+     */
+    private final Deque<String> path = new ArrayDeque<>();
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>For every open element, how many of its children with a given name have been seen so far</p>
+     */
+    private final Deque<Map<String, Integer>> siblings = new ArrayDeque<>();
+
+    /**
+     * <strong>Private Field</strong>
+     * <p>Objects already created, keyed by their absolute path (and by their <code>id</code> attribute if any)</p>
+     */
+    private final Map<String, Object> references = new HashMap<>();
+
+    private XMLStreamLoader(Reader source) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        reader = factory.createXMLStreamReader(source);
+        siblings.push(new HashMap<>());
+    }
+
+    /**
+     * Reads all the apps from an XML document written by XStream's object stream
+     * @param source the reader of the document, it is not closed by this method
+     * @return the apps in the same order they were saved
+     * @throws XMLStreamException if the document is malformed or contains an unknown type of app
+     */
+    public static List<App> loadApps(Reader source) throws XMLStreamException {
+        XMLStreamLoader loader = new XMLStreamLoader(source);
+        List<App> apps = new ArrayList<>();
+        loader.readList(() -> apps.add(loader.readApp()));
+        loader.reader.close();
+        return apps;
+    }
+
+    /**
+     * Reads all the developers from an XML document written by XStream's object stream
+     * @param source the reader of the document, it is not closed by this method
+     * @return the developers in the same order they were saved
+     * @throws XMLStreamException if the document is malformed
+     */
+    public static List<Developer> loadDevelopers(Reader source) throws XMLStreamException {
+        XMLStreamLoader loader = new XMLStreamLoader(source);
+        List<Developer> developers = new ArrayList<>();
+        loader.readList(() -> developers.add(loader.readDeveloper()));
+        loader.reader.close();
+        return developers;
+    }
+
+    @FunctionalInterface
+    private interface ElementReader {
+        void read() throws XMLStreamException;
+    }
+
+    /**
+     * Walks <code>&lt;object-stream&gt;&lt;list&gt;...&lt;/list&gt;&lt;/object-stream&gt;</code> and calls the
+     * callback once for every element of the list, with the cursor positioned on its start tag
+     */
+    private void readList(ElementReader callback) throws XMLStreamException {
+        if(nextTag() != XMLStreamConstants.START_ELEMENT) return; // <object-stream>
+        while(nextTag() == XMLStreamConstants.START_ELEMENT) { // <list>
+            while(nextTag() == XMLStreamConstants.START_ELEMENT) {
+                callback.read();
+            }
+        }
+    }
+
+    private App readApp() throws XMLStreamException {
+        Object referenced = resolveReference();
+        if(referenced != null) return (App) referenced;
+        String type = reader.getLocalName();
+        String key = currentPath();
+        String id = reader.getAttributeValue(null, "id");
+
+        Developer developer = null;
+        String appName = null, description = null, currencySymbol = null;
+        double appSize = 0, appVersion = 1.0, appCost = 0;
+        int level = 0;
+        boolean isMultiplayer = false;
+        List<Language> languages = new ArrayList<>();
+        List<GameApp.Genre> genres = new ArrayList<>();
+        List<Rating> ratings = new ArrayList<>();
+
+        while(nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "developer" -> developer = readDeveloper();
+                case "appName" -> appName = text();
+                case "description" -> description = text();
+                case "currencySymbol" -> currencySymbol = text();
+                case "appSize" -> appSize = Double.parseDouble(text());
+                case "appVersion" -> appVersion = Double.parseDouble(text());
+                case "appCost" -> appCost = Double.parseDouble(text());
+                case "level" -> level = Integer.parseInt(text());
+                case "isMultiplayer" -> isMultiplayer = Boolean.parseBoolean(text());
+                case "languages" -> {
+                    while(nextTag() == XMLStreamConstants.START_ELEMENT) languages.add(Language.valueOf(text()));
+                }
+                case "genres" -> {
+                    while(nextTag() == XMLStreamConstants.START_ELEMENT) genres.add(GameApp.Genre.valueOf(text()));
+                }
+                case "ratings" -> {
+                    while(nextTag() == XMLStreamConstants.START_ELEMENT) ratings.add(readRating());
+                }
+                default -> skipElement();
+            }
+        }
+
+        App app = switch (type) {
+            case "models.EducationApp" -> new EducationApp(developer, appName, appSize, appVersion, appCost, level);
+            case "models.GameApp" -> {
+                GameApp gameApp = new GameApp(developer, appName, appSize, appVersion, appCost, isMultiplayer);
+                for(GameApp.Genre genre : genres) gameApp.addGenre(genre);
+                yield gameApp;
+            }
+            case "models.ProductivityApp" -> new ProductivityApp(developer, appName, appSize, appVersion, appCost);
+            default -> throw new XMLStreamException("Unknown type of app: " + type, reader.getLocation());
+        };
+        if(description != null) app.setDescription(description);
+        if(currencySymbol != null) app.setCurrencySymbol(currencySymbol);
+        for(Language language : languages) app.addLanguage(language);
+        for(Rating rating : ratings) app.addRating(rating);
+        register(key, id, app);
+        return app;
+    }
+
+    private Developer readDeveloper() throws XMLStreamException {
+        Object referenced = resolveReference();
+        if(referenced != null) return (Developer) referenced;
+        String key = currentPath();
+        String id = reader.getAttributeValue(null, "id");
+        String developerName = null, developerWebsite = null;
+        int developerId = 0;
+        while(nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "developerName" -> developerName = text();
+                case "developerWebsite" -> developerWebsite = text();
+                case "developerId" -> developerId = Integer.parseInt(text());
+                default -> skipElement();
+            }
+        }
+        Developer developer = new Developer(developerName, developerWebsite);
+        developer.setDeveloperId(developerId);
+        register(key, id, developer);
+        return developer;
+    }
+
+    private Rating readRating() throws XMLStreamException {
+        Object referenced = resolveReference();
+        if(referenced != null) return (Rating) referenced;
+        String key = currentPath();
+        String id = reader.getAttributeValue(null, "id");
+        int numberOfStars = 0;
+        String raterName = "", ratingComment = "";
+        while(nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "numberOfStars" -> numberOfStars = Integer.parseInt(text());
+                case "raterName" -> raterName = text();
+                case "ratingComment" -> ratingComment = text();
+                default -> skipElement();
+            }
+        }
+        Rating rating = new Rating(numberOfStars, raterName, ratingComment);
+        register(key, id, rating);
+        return rating;
+    }
+
+    //---------------------
+    // Cursor helpers
+    //---------------------
+
+    /**
+     * Moves to the next start or end tag, skipping whitespace and comments, and keeps the current path up to date
+     * @return {@link XMLStreamConstants#START_ELEMENT}, {@link XMLStreamConstants#END_ELEMENT} or
+     * {@link XMLStreamConstants#END_DOCUMENT}
+     */
+    private int nextTag() throws XMLStreamException {
+        while(reader.hasNext()) {
+            int event = reader.next();
+            if(event == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                int index = siblings.peek().merge(name, 1, Integer::sum);
+                path.addLast(index == 1 ? name : name + '[' + index + ']');
+                siblings.push(new HashMap<>());
+                return event;
+            }
+            if(event == XMLStreamConstants.END_ELEMENT) {
+                path.removeLast();
+                siblings.pop();
+                return event;
+            }
+        }
+        return XMLStreamConstants.END_DOCUMENT;
+    }
+
+    /**
+     * Reads the text content of the current element and moves to its end tag
+     */
+    private String text() throws XMLStreamException {
+        String text = reader.getElementText();
+        path.removeLast();
+        siblings.pop();
+        return text;
+    }
+
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while(depth > 0) {
+            depth += nextTag() == XMLStreamConstants.START_ELEMENT ? 1 : -1;
+        }
+    }
+
+    private String currentPath() {
+        return '/' + String.join("/", path);
+    }
+
+    private void register(String path, String id, Object object) {
+        references.put(path, object);
+        if(id != null) references.put('#' + id, object);
+    }
+
+    /**
+     * If the current element is a back reference written by XStream, consumes it and returns the referenced object
+     * @return the referenced object or null if the current element is not a reference
+     */
+    private Object resolveReference() throws XMLStreamException {
+        String reference = reader.getAttributeValue(null, "reference");
+        if(reference == null) return null;
+        Object object;
+        if(!reference.isEmpty() && Character.isDigit(reference.charAt(0))) { // ID_REFERENCES mode
+            object = references.get('#' + reference);
+        } else {
+            Deque<String> target = reference.startsWith("/") ? new ArrayDeque<>() : new ArrayDeque<>(path);
+            for(String step : reference.split("/")) {
+                if(step.isEmpty() || step.equals(".")) continue;
+                if(step.equals("..")) target.removeLast();
+                else target.addLast(step.endsWith("[1]") ? step.substring(0, step.length() - 3) : step);
+            }
+            object = references.get('/' + String.join("/", target));
+        }
+        if(object == null) throw new XMLStreamException("Invalid reference: " + reference, reader.getLocation());
+        skipElement();
+        return object;
+    }
+}
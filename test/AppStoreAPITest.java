@@ -1,11 +1,21 @@
+import controllers.AppCatalog;
 import controllers.AppStoreAPI;
+import controllers.DeveloperAPI;
+import controllers.StoreAnalytics;
 import models.*;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import utils.BinarySnapshot;
+import utils.SnapshotFormat;
+import utils.StarDistribution;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -139,6 +149,21 @@ public class AppStoreAPITest {
             assertEquals(app, appStore.deleteAppByIndex(12));
             assertEquals(12, appStore.numberOfApps());
         }
+
+        @Test
+        void anAppInTwoStoresKeepsBothUpToDate() {
+            App app = setupProductivityAppWithRating(2,4); // index 12
+            appStore.addApp(app);
+            emptyAppStore.addApp(app);
+            app.setAppName("Evernote Teams");
+            assertSame(app, appStore.getAppByName("evernote teams"));
+            assertSame(app, emptyAppStore.getAppByName("evernote teams"));
+
+            assertSame(app, appStore.deleteAppByIndex(12));
+            app.setAppName("Evernote Business");
+            assertSame(app, emptyAppStore.getAppByName("Evernote Business"));
+            assertFalse(appStore.isValidAppName("Evernote Business"));
+        }
     }
 
     @Nested
@@ -190,6 +215,20 @@ public class AppStoreAPITest {
             assertTrue(apps.contains("WeDo"));
         }
 
+        @Test
+        void recommendedAppsFollowTheChangesToTheApps() {
+            assertTrue(appStore.listAllRecommendedApps().contains("No recommended apps"));
+            gameAppOnBoundary.addRating(new Rating(5, "Ryker", "Great")); // multiplayer
+            assertEquals("8: " + gameAppOnBoundary + "\n", appStore.listAllRecommendedApps());
+            gameAppOnBoundary.setMultiplayer(false);
+            assertTrue(appStore.listAllRecommendedApps().contains("No recommended apps"));
+            prodAppOnBoundary.addRating(new Rating(4, "Ryker", "Good"));
+            appStore.deleteAppByIndex(0);
+            assertEquals("3: " + prodAppOnBoundary + "\n", appStore.listAllRecommendedApps());
+            prodAppOnBoundary.setAppCost(0.99);
+            assertTrue(appStore.listAllRecommendedApps().contains("No recommended apps"));
+        }
+
         @Test
         void listAllSummaryOfAllAppsReturnsNoAppsStoredWhenArrayListIsEmpty() {
             assertEquals(0, emptyAppStore.numberOfApps());
@@ -216,6 +255,19 @@ public class AppStoreAPITest {
             assertTrue(summary.contains("Genres"));
         }
 
+        @Test
+        void listingsByTypeKeepTheGlobalIndices() {
+            assertTrue(appStore.listAllGameApps().startsWith("8: "));
+            appStore.deleteAppByIndex(0);
+            appStore.addApp(setupEducationAppWithRating(3, 4));
+            assertTrue(appStore.listAllGameApps().startsWith("7: "));
+            assertTrue(appStore.listAllEducationApps().contains("11: "));
+            String overview = appStore.listAppsOverview();
+            assertTrue(overview.indexOf("Outlook") < overview.indexOf("WeDo"));
+            assertTrue(overview.indexOf("WeDo") < overview.indexOf("CookOff"));
+            assertTrue(emptyAppStore.listAppsOverview().contains("No Game apps"));
+        }
+
         @Test
         void listAllGameAppsReturnsNoGameAppsWhenArrayListIsEmpty() {
             assertEquals(0, emptyAppStore.numberOfApps());
@@ -246,6 +298,32 @@ public class AppStoreAPITest {
             assertFalse(summary.contains("MazeRunner"));
             assertFalse(summary.contains("WeDo"));
         }
+
+        @Test
+        void listingsAreCachedUntilTheAppsOrTheDevelopersChange() {
+            String all = appStore.listAllApps();
+            assertSame(all, appStore.listAllApps());
+            assertSame(appStore.listAllGameApps(), appStore.listAllGameApps());
+            assertTrue(appStore.getResultCache().getHits() >= 2);
+
+            gameAppOnBoundary.setAppCost(9.99); // a change of an App
+            String changed = appStore.listAllApps();
+            assertNotEquals(all, changed);
+            assertTrue(changed.contains("9.99"));
+
+            DeveloperAPI developerAPI = new DeveloperAPI();
+            developerAPI.addDeveloper(developerLego);
+            appStore.setDeveloperResolver(developerAPI);
+            String resolved = appStore.listAllApps();
+            assertSame(resolved, appStore.listAllApps());
+            assertTrue(developerAPI.updateDeveloperWebsite("Lego", "www.lego.org")); // a change of a developer the apps show
+            assertTrue(appStore.listAllApps().contains("www.lego.org"));
+            assertTrue(appStore.listAllAppsByChosenDeveloper(developerLego).contains("www.lego.org"));
+
+            appStore.deleteAppByIndex(0);
+            assertFalse(appStore.listAllApps().contains("11: "));
+            assertTrue(appStore.getResultCache().size() <= 64);
+        }
     }
 
     @Nested
@@ -277,6 +355,29 @@ public class AppStoreAPITest {
             assertTrue(list.contains("John101"));
         }
 
+        @Test
+        void ratingListingsFollowNewRatings() {
+            assertTrue(appStore.listAllAppsAboveOrEqualAGivenStarRating(4).contains("No apps"));
+            edAppBelowBoundary.addRating(new Rating(5, "Ryker", "Great"));
+            gameAppOnBoundary.addRating(new Rating(4, "Ryker", "Good"));
+            assertEquals("1: " + edAppBelowBoundary + "\n8: " + gameAppOnBoundary + "\n",
+                    appStore.listAllAppsAboveOrEqualAGivenStarRating(4));
+            edAppBelowBoundary.addRating(new Rating(1, "Mairead", "Bad"));
+            assertEquals("8: " + gameAppOnBoundary + "\n", appStore.listAllAppsAboveOrEqualAGivenStarRating(4));
+            assertTrue(appStore.listAllAppsByRatingDescending().startsWith("8: " + gameAppOnBoundary + "\n1: "));
+        }
+
+        @Test
+        void appsWithDifferentRatingsAreListedInTheOrderOfTheStore() {
+            int[] stars = {3, 5, 4, 3, 5, 2, 4, 5, 3, 4, 2, 5};
+            StringBuilder expected = new StringBuilder();
+            for(int i = 0; i < stars.length; i++) {
+                appStore.getAppByIndex(i).addRating(new Rating(stars[i], "Ryker", ""));
+                if(stars[i] >= 3) expected.append(i).append(": ").append(appStore.getAppByIndex(i)).append('\n');
+            }
+            assertEquals(expected.toString(), appStore.listAllAppsAboveOrEqualAGivenStarRating(3));
+        }
+
         @Test
         void listAllAppsByChosenDeveloperReturnsNoAppsWhenTheDeveloperDoesNotExist() {
             assertTrue(appStore.listAllAppsByChosenDeveloper(developerSphero).toLowerCase().contains("no apps for developer"));
@@ -303,6 +404,41 @@ public class AppStoreAPITest {
             assertEquals(0, emptyAppStore.numberOfAppsByChosenDeveloper(developerMicrosoft));
             assertEquals(0, appStore.numberOfAppsByChosenDeveloper(developerSphero));
         }
+
+        @Test
+        void developerQueriesFollowAddsDeletesAndNewDevelopers() {
+            assertEquals(4, appStore.numberOfAppsByChosenDeveloper(developerLego));
+            // An equal developer that is a different instance
+            assertEquals(4, appStore.numberOfAppsByChosenDeveloper(new Developer("Lego", "www.lego.com")));
+            prodAppBelowBoundary.setDeveloper(developerLego);
+            appStore.deleteAppByIndex(0);
+            appStore.addApp(new GameApp(developerApple, "Garage Band", 10, 1.0, 0, false));
+            assertEquals(4, appStore.numberOfAppsByChosenDeveloper(developerLego));
+            assertEquals(2, appStore.numberOfAppsByChosenDeveloper(developerApple));
+            String list = appStore.listAllAppsByChosenDeveloper(developerLego);
+            assertTrue(list.startsWith("0: "));
+            assertTrue(list.contains("4: " + prodAppBelowBoundary));
+            assertEquals(new Developer("Lego", "www.lego.com").hashCode(), developerLego.hashCode());
+        }
+
+        @Test
+        void theAppsOfARegisteredDeveloperAreFoundByItsIdentifier() {
+            DeveloperAPI developerAPI = new DeveloperAPI();
+            developerAPI.addDeveloper(developerLego); // after its apps were added to the store
+            developerAPI.addDeveloper(developerApple);
+            appStore.addApp(new EducationApp(developerLego, "Mindstorms", 10, 1.0, 0, 5));
+            assertEquals(5, appStore.numberOfAppsByChosenDeveloper(developerLego));
+
+            assertTrue(developerAPI.renameDeveloper("Lego", "Lego Education"));
+            assertEquals(5, appStore.numberOfAppsByChosenDeveloper(developerLego));
+            assertEquals(0, appStore.numberOfAppsByChosenDeveloper(new Developer("Lego", "www.lego.com")));
+            edAppBelowBoundary.setDeveloper(developerApple);
+            assertEquals(4, appStore.numberOfAppsByChosenDeveloper(developerLego));
+            assertEquals(3, appStore.numberOfAppsByChosenDeveloper(developerApple));
+            appStore.deleteAppByIndex(0);
+            assertEquals(3, appStore.numberOfAppsByChosenDeveloper(developerLego));
+            assertTrue(appStore.listAllAppsByChosenDeveloper(developerLego).contains("11: Mindstorms"));
+        }
     }
 
     @Nested
@@ -363,6 +499,283 @@ public class AppStoreAPITest {
             assertTrue(xmlFile.exists());
         }
 
+        @Test
+        void loadingTheSavedXMLFileRestoresAllTheApps() throws Exception {
+            appStore.addApp(setupGameAppWithRating(5, 4));
+            appStore.getAppByIndex(12).addLanguage(Language.French);
+            ((GameApp) appStore.getAppByIndex(12)).addGenre(GameApp.Genre.Puzzle);
+            appStore.getAppByIndex(0).setDescription("<Lego & friends>");
+            appStore.addApp(appStore.getAppByIndex(0)); // the same object twice
+            appStore.save();
+
+            AppStoreAPI loaded = new AppStoreAPI();
+            loaded.load();
+            assertEquals(appStore.numberOfApps(), loaded.numberOfApps());
+            for (int i = 0; i < appStore.numberOfApps(); i++) {
+                assertEquals(appStore.getAppByIndex(i).getClass(), loaded.getAppByIndex(i).getClass());
+                assertEquals(appStore.getAppByIndex(i).toString(), loaded.getAppByIndex(i).toString());
+            }
+            // XStream writes shared objects as references, they must be resolved to the same instance
+            assertSame(loaded.getAppByIndex(0), loaded.getAppByIndex(13));
+            assertSame(loaded.getAppByIndex(0).getDeveloper(), loaded.getAppByIndex(1).getDeveloper());
+            assertEquals(4.5, loaded.getAppByIndex(12).calculateRating(), 0.01);
+            // the files are UTF-8 whatever the platform charset
+            assertTrue(Files.readString(new File("apps.xml").toPath(), StandardCharsets.UTF_8).contains("€"));
+        }
+
+        @Test
+        void savingAndLoadingABinarySnapshot() throws Exception {
+            appStore.addApp(setupGameAppWithRating(5, 4));
+            ((GameApp) appStore.getAppByIndex(12)).addGenre(GameApp.Genre.RPG);
+            appStore.getAppByIndex(12).addLanguage(Language.Chinese);
+            appStore.setSnapshotFormat(SnapshotFormat.BINARY);
+            assertEquals("apps.bin", appStore.fileName());
+            appStore.save();
+
+            AppStoreAPI loaded = new AppStoreAPI();
+            loaded.setSnapshotFormat(SnapshotFormat.BINARY);
+            loaded.load();
+            assertEquals(appStore.numberOfApps(), loaded.numberOfApps());
+            for (int i = 0; i < appStore.numberOfApps(); i++) {
+                assertEquals(appStore.getAppByIndex(i).toString(), loaded.getAppByIndex(i).toString());
+            }
+            assertSame(loaded.getAppByIndex(0).getDeveloper(), loaded.getAppByIndex(1).getDeveloper());
+            assertTrue(new File("apps.bin").length() < new File("apps.xml").length() || !new File("apps.xml").exists());
+            new File("apps.bin").delete();
+        }
+
+        @Test
+        void convertingBetweenXMLAndBinarySnapshots() throws Exception {
+            appStore.addApp(setupEducationAppWithRating(3, 4));
+            appStore.save();
+            BinarySnapshot.convertAppsFromXML("apps.xml", "converted.bin");
+            BinarySnapshot.convertAppsToXML("converted.bin", "converted.xml");
+
+            AppStoreAPI loaded = new AppStoreAPI();
+            loaded.setFileName("converted.xml");
+            loaded.load();
+            assertEquals(appStore.listAllApps(), loaded.listAllApps());
+            new File("converted.bin").delete();
+            new File("converted.xml").delete();
+        }
+
+        @Test
+        void savingWithTheJournalOnlyAppendsTheMutations() throws Exception {
+            File xmlFile = new File("journaled.xml"), journalFile = new File("journaled.journal");
+            appStore.setFileName(xmlFile.getName());
+            appStore.enableJournal(100);
+            appStore.save(); // the first save is a checkpoint
+            long snapshotLength = xmlFile.length();
+            assertEquals(0, journalFile.length());
+
+            appStore.addApp(setupGameAppWithRating(5, 4));
+            appStore.deleteAppByIndex(1);
+            appStore.getAppByIndex(0).setAppName("Spike Prime");
+            appStore.getAppByIndex(0).addRating(new Rating(4, "Ryker", "Nice"));
+            ((EducationApp) appStore.getAppByIndex(1)).setLevel(5);
+            appStore.sortAppsByNameAscending();
+            appStore.save();
+            assertEquals(snapshotLength, xmlFile.length());
+            assertTrue(journalFile.length() > 0);
+
+            AppStoreAPI loaded = new AppStoreAPI();
+            loaded.setFileName(xmlFile.getName());
+            loaded.enableJournal(100);
+            loaded.load();
+            assertEquals(appStore.listAllApps(), loaded.listAllApps());
+
+            loaded.checkpoint();
+            assertEquals(0, journalFile.length());
+            appStore.disableJournal();
+            loaded.disableJournal();
+            xmlFile.delete();
+            journalFile.delete();
+        }
+
+        @Test
+        void loadingDiscardsTheMutationsThatHaveNotBeenSaved() throws Exception {
+            File xmlFile = new File("unsaved.xml"), journalFile = new File("unsaved.journal");
+            appStore.setFileName(xmlFile.getName());
+            appStore.enableJournal(100);
+            appStore.save();
+            appStore.addApp(setupGameAppWithRating(5, 4)); // "MazeRunner"
+            appStore.save();
+            long savedLength = journalFile.length();
+
+            appStore.addApp(new ProductivityApp(developerApple, "Unsaved", 1, 1.0, 0.0));
+            appStore.getAppByIndex(0).setAppCost(9.99);
+            assertEquals(savedLength, journalFile.length()); // only saved mutations are on the disk
+            appStore.load();
+            assertEquals(13, appStore.numberOfApps());
+            assertTrue(appStore.isValidAppName("MazeRunner"));
+            assertFalse(appStore.isValidAppName("Unsaved"));
+            assertEquals(1.99, appStore.getAppByIndex(0).getAppCost());
+            appStore.save();
+            assertEquals(savedLength, journalFile.length());
+
+            DeveloperAPI developerAPI = new DeveloperAPI();
+            developerAPI.enableJournal(100);
+            developerAPI.addDeveloper(developerLego);
+            developerAPI.save();
+            developerAPI.addDeveloper(developerSphero);
+            developerAPI.load();
+            assertTrue(developerAPI.isValidDeveloper("Lego"));
+            assertFalse(developerAPI.isValidDeveloper("Sphero"));
+
+            appStore.disableJournal();
+            developerAPI.disableJournal();
+            xmlFile.delete();
+            journalFile.delete();
+            new File("developers.journal").delete();
+            new File("developers.xml").delete();
+        }
+
+        @Test
+        void theJournalIsNamedAfterTheCurrentFile() throws Exception {
+            appStore.enableJournal(100);
+            appStore.setFileName("renamed.xml");
+            appStore.save(); // a checkpoint, the journal of apps.xml does not belong to renamed.xml
+            appStore.getAppByIndex(11).setAppName("Renamed");
+            appStore.save();
+            assertTrue(new File("renamed.journal").length() > 0);
+
+            AppStoreAPI loaded = new AppStoreAPI();
+            loaded.setFileName("renamed.xml");
+            loaded.enableJournal(100);
+            loaded.load();
+            assertEquals("Renamed", loaded.getAppByIndex(11).getAppName());
+
+            DeveloperAPI developerAPI = new DeveloperAPI();
+            developerAPI.setFileName("team.xml");
+            developerAPI.enableJournal(100);
+            developerAPI.addDeveloper(developerLego);
+            developerAPI.save();
+            developerAPI.addDeveloper(developerSphero);
+            developerAPI.save();
+            assertTrue(new File("team.xml").exists());
+            assertTrue(new File("team.journal").length() > 0);
+
+            appStore.disableJournal();
+            loaded.disableJournal();
+            developerAPI.disableJournal();
+            for(String file : List.of("renamed.xml", "renamed.journal", "team.xml", "team.journal")) {
+                new File(file).delete();
+            }
+        }
+
+        @Test
+        void savingInTheBackgroundKeepsThePointInTimeView() throws Exception {
+            appStore.setFileName("background.xml");
+            String expected = appStore.listAllApps();
+            CompletableFuture<Void> saved = appStore.saveAsync();
+            // The store can be modified while the snapshot is being written
+            appStore.getAppByIndex(0).setAppName("Modified");
+            appStore.getAppByIndex(1).addRating(new Rating(5, "Ryker", "Great"));
+            appStore.deleteAppByIndex(2);
+            appStore.addApp(setupGameAppWithRating(5, 4));
+            saved.get();
+
+            AppStoreAPI loaded = new AppStoreAPI();
+            loaded.setFileName("background.xml");
+            loaded.load();
+            assertEquals(expected, loaded.listAllApps());
+            assertEquals("Modified", appStore.getAppByIndex(0).getAppName());
+            new File("background.xml").delete();
+        }
+
+        @Test
+        void savingAndLoadingShardsInParallelAndLazily() throws Exception {
+            appStore.setFileName("sharded.xml");
+            appStore.enableSharding(2, false);
+            assertEquals("sharded.shards", appStore.fileName());
+            appStore.save();
+            assertTrue(new File("sharded-GameApp-0.xml").exists());
+            assertTrue(new File("sharded-GameApp-1.xml").exists());
+
+            AppStoreAPI loaded = new AppStoreAPI();
+            loaded.setFileName("sharded.xml");
+            loaded.enableSharding(2, false);
+            loaded.load();
+            assertEquals(appStore.listAllApps(), loaded.listAllApps());
+
+            AppStoreAPI lazy = new AppStoreAPI();
+            lazy.setFileName("sharded.xml");
+            lazy.enableSharding(2, true);
+            lazy.load();
+            assertEquals(appStore.numberOfApps(), lazy.numberOfApps());
+            for(File shard : new File(".").listFiles((dir, name) -> name.startsWith("sharded-EducationApp"))) {
+                shard.delete();
+            }
+            // Only the shards of the Game apps are loaded
+            assertEquals(appStore.listAllGameApps(), lazy.listAllGameApps());
+            assertThrows(RuntimeException.class, lazy::listAllApps);
+
+            for(File file : new File(".").listFiles((dir, name) -> name.startsWith("sharded"))) {
+                file.delete();
+            }
+        }
+
+        @Test
+        void everyAppIsSavedInTheShardsOfItsType() throws Exception {
+            appStore.addApp(new GameApp(developerKoolGames, "Tournament", 10, 1.0, 0.0, true) { }); // a subclass
+            appStore.setFileName("subclass.xml");
+            appStore.setSnapshotFormat(SnapshotFormat.BINARY);
+            appStore.enableSharding(5, false);
+            appStore.save();
+
+            AppStoreAPI loaded = new AppStoreAPI();
+            loaded.setFileName("subclass.xml");
+            loaded.setSnapshotFormat(SnapshotFormat.BINARY);
+            loaded.enableSharding(5, false);
+            loaded.load();
+            assertEquals(13, loaded.numberOfApps());
+            assertEquals("Tournament", loaded.getAppByIndex(12).getAppName());
+
+            appStore.addApp(new App(developerLego, "Unknown", 1, 1.0, 0) {
+                public boolean isRecommendedApp() { return false; }
+                public App copy() { return this; }
+            });
+            assertThrows(IllegalArgumentException.class, appStore::save);
+            for(File file : new File(".").listFiles((dir, name) -> name.startsWith("subclass"))) {
+                file.delete();
+            }
+        }
+
+        @Test
+        void appsAreSavedWithTheIdentifiersOfTheRegisteredDevelopers() throws Exception {
+            DeveloperAPI developerAPI = new DeveloperAPI();
+            developerAPI.addDeveloper(developerLego);
+            developerAPI.addDeveloper(developerEAGames);
+            assertNotEquals(0, developerLego.getDeveloperId());
+            appStore.setFileName("identified.xml");
+            appStore.setDeveloperResolver(developerAPI);
+            appStore.save();
+            String xml = new String(Files.readAllBytes(new File("identified.xml").toPath()));
+            assertFalse(xml.contains("www.lego.com"));
+            assertTrue(xml.contains("www.apple.com")); // not registered, saved in full
+
+            AppStoreAPI loaded = new AppStoreAPI();
+            loaded.setFileName("identified.xml");
+            loaded.setDeveloperResolver(developerAPI);
+            loaded.load();
+            assertEquals(appStore.listAllApps(), loaded.listAllApps());
+            assertSame(developerLego, loaded.getAppByIndex(0).getDeveloper());
+            assertSame(developerEAGames, loaded.getAppByIndex(9).getDeveloper());
+            assertEquals(4, loaded.numberOfAppsByChosenDeveloper(developerLego));
+
+            loaded.setSnapshotFormat(SnapshotFormat.BINARY);
+            loaded.save();
+            AppStoreAPI binary = new AppStoreAPI();
+            binary.setFileName("identified.xml");
+            binary.setSnapshotFormat(SnapshotFormat.BINARY);
+            binary.setDeveloperResolver(developerAPI);
+            binary.load();
+            assertSame(developerLego, binary.getAppByIndex(0).getDeveloper());
+            assertEquals(appStore.listAllApps(), binary.listAllApps());
+            new File("identified.xml").delete();
+            new File("identified.bin").delete();
+        }
+
         @Test
         void checkXMLFileName() {
             assertEquals("apps.xml", appStore.fileName());
@@ -380,6 +793,74 @@ public class AppStoreAPITest {
         }
     }
 
+    @Nested
+    class SnapshotMethods {
+
+        @Test
+        void aSnapshotIsNotChangedByLaterModifications() {
+            AppCatalog before = appStore.snapshot();
+            String listing = before.listAllApps();
+            assertEquals(appStore.listAllApps(), listing);
+
+            appStore.deleteAppByIndex(0);
+            appStore.addApp(new GameApp(developerEAGames, "Fifa", 100, 1.0, 9.99, true));
+            appStore.getAppByIndex(5).setAppCost(4.99);
+            gameAppOnBoundary.addRating(new Rating(5, "John", "Great"));
+
+            assertEquals(12, before.numberOfApps());
+            assertEquals(listing, before.listAllApps());
+            assertEquals(0, before.getAppByIndex(8).getNumberOfRatings());
+
+            AppCatalog after = appStore.snapshot();
+            assertTrue(after.getVersion() > before.getVersion());
+            assertEquals(appStore.listAllApps(), after.listAllApps());
+            assertEquals(appStore.listSummaryOfAllApps(), after.listSummaryOfAllApps());
+            assertEquals(1, after.getAppByIndex(7).getNumberOfRatings());
+            assertNull(after.getAppByIndex(12));
+        }
+
+        @Test
+        void theSnapshotFollowsSortsAndLoads() throws Exception {
+            appStore.snapshot();
+            appStore.sortAppsByNameAscending();
+            assertEquals(appStore.listAllApps(), appStore.snapshot().listAllApps());
+            assertSame(appStore.snapshot(), appStore.snapshot());
+
+            appStore.save();
+            AppCatalog sorted = appStore.snapshot();
+            appStore.deleteAppByIndex(0);
+            appStore.load();
+            assertEquals(12, appStore.numberOfApps());
+            assertEquals(sorted.listAllApps(), appStore.snapshot().listAllApps());
+        }
+
+        @Test
+        void theDevelopersOfASnapshotAreCopiesTakenAgainWhenTheyChange() {
+            DeveloperAPI developerAPI = new DeveloperAPI();
+            developerAPI.addDeveloper(developerLego);
+            appStore.setDeveloperResolver(developerAPI);
+            AppCatalog before = appStore.snapshot();
+            Developer copy = before.getAppByIndex(0).getDeveloper();
+            assertNotSame(developerLego, copy);
+            assertEquals(developerLego, copy);
+            assertSame(copy, before.getAppByIndex(1).getDeveloper()); // one copy for all the apps of the developer
+
+            assertTrue(developerAPI.updateDeveloperWebsite("Lego", "www.lego.org"));
+            assertEquals("www.lego.com", copy.getDeveloperWebsite());
+            AppCatalog after = appStore.snapshot();
+            assertNotSame(before, after);
+            assertEquals("www.lego.org", after.getAppByIndex(0).getDeveloper().getDeveloperWebsite());
+        }
+
+        @Test
+        void aSnapshotCanBeAnalysedWhileTheStoreChanges() {
+            AppCatalog catalog = appStore.snapshot();
+            appStore.deleteAppByIndex(0);
+            assertEquals(12, new StoreAnalytics(catalog, null).analyse().getTotal().getNumberOfApps());
+            assertEquals(11, new StoreAnalytics(appStore, null).analyse().getTotal().getNumberOfApps());
+        }
+    }
+
     @Nested
     class ValidationMethods {
         @Test
@@ -389,6 +870,22 @@ public class AppStoreAPITest {
             assertTrue(appStore.isValidAppName("Tetris"));
             assertTrue(appStore.isValidAppName("Outlook"));
             assertFalse(emptyAppStore.isValidAppName("Outlook"));
+            assertTrue(appStore.isValidAppName("outLOOK"));
+        }
+
+        @Test
+        void nameLookupsFollowRenamesAndDeletes() {
+            assertSame(edAppBelowBoundary, appStore.getAppByName("wedo"));
+            edAppBelowBoundary.setAppName("Mindstorms");
+            assertNull(appStore.getAppByName("WeDo"));
+            assertFalse(appStore.isValidAppName("WeDo"));
+            assertSame(edAppBelowBoundary, appStore.getAppByName("MINDSTORMS"));
+            appStore.deleteAppByIndex(0);
+            assertTrue(appStore.listAllAppsByName("mindstorms").startsWith("0: "));
+            appStore.addApp(new ProductivityApp(developerApple, "mindStorms", 1, 1.0, 0));
+            assertTrue(appStore.listAllAppsByName("Mindstorms").contains("11: "));
+            appStore.sortAppsByNameAscending();
+            assertSame(gameAppOnBoundary, appStore.getAppByName("cookoff"));
         }
     }
 
@@ -406,6 +903,35 @@ public class AppStoreAPITest {
         }
     }
 
+    @Test
+    void simulatingManyRatingsIsReproducible() throws Exception {
+        AppStoreAPI sameApps = new AppStoreAPI();
+        for (int i = 0; i < appStore.numberOfApps(); ++i) sameApps.addApp(appStore.getAppByIndex(i).copy());
+        appStore.setFileName("simulated.xml");
+        appStore.enableJournal(100);
+        appStore.save();
+        appStore.simulateRatings(1000, 42, StarDistribution.skewed(1));
+        sameApps.simulateRatings(1000, 42, StarDistribution.skewed(1));
+        assertEquals(appStore.listAllApps(), sameApps.listAllApps());
+
+        App app = appStore.getAppByIndex(0);
+        assertEquals(1000, app.getNumberOfRatings());
+        assertEquals(0, app.getNumberOfRatings(0)); // 1 to 5 stars
+        assertTrue(app.getNumberOfRatings(5) > app.getNumberOfRatings(1));
+        assertTrue(app.calculateRating() > 3.5);
+
+        appStore.save(); // a single journal record per App
+        AppStoreAPI loaded = new AppStoreAPI();
+        loaded.setFileName("simulated.xml");
+        loaded.enableJournal(100);
+        loaded.load();
+        assertEquals(appStore.listAllApps(), loaded.listAllApps());
+        appStore.disableJournal();
+        loaded.disableJournal();
+        new File("simulated.xml").delete();
+        new File("simulated.journal").delete();
+    }
+
     //--------------------------------------------
     // Helper Methods
     //--------------------------------------------
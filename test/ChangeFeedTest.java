@@ -0,0 +1,233 @@
+import controllers.AppStoreAPI;
+import controllers.ChangeFeed;
+import controllers.DeveloperAPI;
+import controllers.StoreEvent;
+import models.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChangeFeedTest {
+
+    private AppStoreAPI appStore;
+    private DeveloperAPI developers;
+    private ChangeFeed feed;
+    private Developer developerLego = new Developer("Lego", "www.lego.com");
+    private Developer developerApple = new Developer("Apple", "www.apple.com");
+
+    /**
+     * Requests one batch at a time, after waiting the given delay
+     */
+    private static class Collector implements Flow.Subscriber<List<StoreEvent>> {
+        final BlockingQueue<StoreEvent> events = new LinkedBlockingQueue<>();
+        final long delayMillis;
+        int batches;
+        Flow.Subscription subscription;
+
+        Collector(long delayMillis) {
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(List<StoreEvent> batch) {
+            ++batches;
+            events.addAll(batch);
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            throwable.printStackTrace();
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        List<StoreEvent> take(int count) throws InterruptedException {
+            List<StoreEvent> taken = new ArrayList<>();
+            for(int i = 0; i < count; i++) {
+                StoreEvent event = events.poll(5, TimeUnit.SECONDS);
+                assertNotNull(event, "only " + taken + " received");
+                taken.add(event);
+            }
+            return taken;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        appStore = new AppStoreAPI();
+        developers = new DeveloperAPI();
+        feed = new ChangeFeed(4, Duration.ofMillis(10), 2);
+        appStore.setChangeFeed(feed);
+        developers.setChangeFeed(feed);
+    }
+
+    @AfterEach
+    void tearDown() {
+        feed.close();
+    }
+
+    @Nested
+    class Events {
+
+        @Test
+        void everyModificationIsPublishedInOrder() throws InterruptedException {
+            appStore.addApp(new GameApp(developerLego, "Before", 10, 1.0, 1.0, true)); // no subscriber yet
+            Collector collector = new Collector(0);
+            feed.subscribe(collector);
+
+            developers.addDeveloper(developerLego);
+            GameApp spike = new GameApp(developerLego, "Spike", 10, 1.0, 1.0, true);
+            appStore.addApp(spike);
+            spike.addRating(new Rating(5, "Ryker", "Great"));
+            spike.setAppCost(2.99);
+            developers.updateDeveloperWebsite("Lego", "www.lego.org");
+            appStore.sortAppsByNameAscending();
+            appStore.deleteAppByIndex(0);
+            developers.removeDeveloper("Lego");
+
+            List<StoreEvent> events = collector.take(8);
+            for(int i = 0; i < events.size(); i++) assertEquals(i, events.get(i).sequence());
+            assertEquals("Lego", ((StoreEvent.DeveloperAdded) events.get(0)).developer().getDeveloperName());
+            StoreEvent.AppAdded added = (StoreEvent.AppAdded) events.get(1);
+            assertEquals(1, added.index());
+            assertEquals(0, added.app().getNumberOfRatings()); // a copy made when the App was added
+            StoreEvent.RatingAdded rated = (StoreEvent.RatingAdded) events.get(2);
+            assertEquals(5, rated.rating().getNumberOfStars());
+            assertEquals(1, rated.index());
+            StoreEvent.AppChanged changed = (StoreEvent.AppChanged) events.get(3);
+            assertEquals(1, changed.index());
+            assertEquals(App.SET_APP_COST, changed.mutator());
+            assertEquals(2.99, changed.app().getAppCost());
+            assertEquals("www.lego.org", ((StoreEvent.DeveloperUpdated) events.get(4)).developer().getDeveloperWebsite());
+            assertEquals("sort", ((StoreEvent.AppsReplaced) events.get(5)).reason());
+            assertEquals("Before", ((StoreEvent.AppDeleted) events.get(6)).app().getAppName());
+            assertInstanceOf(StoreEvent.DeveloperRemoved.class, events.get(7));
+            assertTrue(collector.batches <= 8);
+        }
+
+        @Test
+        void aDerivedViewIsKeptUpToDateFromTheEvents() throws InterruptedException {
+            Collector collector = new Collector(0);
+            feed.subscribe(collector);
+            for(int i = 0; i < 30; i++) {
+                appStore.addApp(new GameApp(i % 3 == 0 ? developerApple : developerLego, "Game" + i, 10, 1.0, 1.0, true));
+            }
+            for(int i = 0; i < 5; i++) appStore.deleteAppByIndex(0);
+            appStore.getAppByIndex(0).setDeveloper(developerApple);
+            feed.flush();
+
+            Map<String, Integer> appsByDeveloper = new HashMap<>();
+            Map<String, String> developerOfApp = new HashMap<>();
+            for(StoreEvent event : collector.take(36)) {
+                if(event instanceof StoreEvent.AppAdded e) {
+                    appsByDeveloper.merge(e.app().getDeveloper().getDeveloperName(), 1, Integer::sum);
+                    developerOfApp.put(e.app().getAppName(), e.app().getDeveloper().getDeveloperName());
+                } else if(event instanceof StoreEvent.AppDeleted e) {
+                    appsByDeveloper.merge(developerOfApp.remove(e.app().getAppName()), -1, Integer::sum);
+                } else if(event instanceof StoreEvent.AppChanged e && e.mutator().equals(App.SET_DEVELOPER)) {
+                    appsByDeveloper.merge(developerOfApp.get(e.app().getAppName()), -1, Integer::sum);
+                    appsByDeveloper.merge(e.app().getDeveloper().getDeveloperName(), 1, Integer::sum);
+                    developerOfApp.put(e.app().getAppName(), e.app().getDeveloper().getDeveloperName());
+                }
+            }
+            assertEquals(appStore.numberOfAppsByChosenDeveloper(developerApple), appsByDeveloper.get("Apple"));
+            assertEquals(appStore.numberOfAppsByChosenDeveloper(developerLego), appsByDeveloper.get("Lego"));
+        }
+
+        @Test
+        void theArgumentsOfTheEventsAreCopies() throws InterruptedException {
+            Collector collector = new Collector(0);
+            feed.subscribe(collector);
+            GameApp spike = new GameApp(developerLego, "Spike", 10, 1.0, 1.0, true);
+            appStore.addApp(spike);
+            spike.setDeveloper(developerApple);
+            RatingStore ratings = new RatingStore();
+            ratings.add(new Rating(4, "Ryker", "Good"));
+            spike.addRatings(ratings);
+            developerApple.setDeveloperName("Apple Inc.");
+            ratings.add(new Rating(1, "Mairead", "Bad"));
+            feed.flush();
+
+            List<StoreEvent> events = collector.take(3);
+            Developer developer = (Developer) ((StoreEvent.AppChanged) events.get(1)).argument();
+            assertNotSame(developerApple, developer);
+            assertEquals("Apple", developer.getDeveloperName());
+            App added = ((StoreEvent.AppAdded) events.get(0)).app();
+            App changed = ((StoreEvent.AppChanged) events.get(1)).app();
+            assertNotSame(developerLego, added.getDeveloper()); // the developers of the apps are copies too
+            assertEquals("Apple", changed.getDeveloper().getDeveloperName());
+            assertEquals(1, ((RatingStore) ((StoreEvent.AppChanged) events.get(2)).argument()).size());
+        }
+    }
+
+    @Nested
+    class BackPressure {
+
+        @Test
+        void aSlowSubscriberSlowsTheStoreDownWithoutLosingEvents() throws InterruptedException {
+            Collector slow = new Collector(20);
+            feed.subscribe(slow);
+            long start = System.nanoTime();
+            for(int i = 0; i < 40; i++) appStore.addApp(new GameApp(developerLego, "Game" + i, 10, 1.0, 1.0, true));
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            // 10 batches of 4 events, only 2 batches can wait in the buffer
+            assertTrue(elapsedMillis >= 5 * 20, "took " + elapsedMillis + " ms");
+            List<StoreEvent> events = slow.take(40);
+            for(int i = 0; i < 40; i++) assertEquals("Game" + i, ((StoreEvent.AppAdded) events.get(i)).app().getAppName());
+        }
+
+        @Test
+        void eventsAreStillAddedWhileAnotherThreadWaitsForASlowSubscriber() throws InterruptedException {
+            ChangeFeed slowFeed = new ChangeFeed(100, Duration.ofSeconds(10), 1);
+            Collector slow = new Collector(100);
+            slowFeed.subscribe(slow);
+            appStore.setChangeFeed(slowFeed);
+            developers.setChangeFeed(slowFeed);
+            Thread flusher = new Thread(() -> {
+                for(int i = 0; i < 6; i++) {
+                    appStore.addApp(new GameApp(developerLego, "Game" + i, 10, 1.0, 1.0, true));
+                    slowFeed.flush(); // a batch at a time, which waits for the subscriber
+                }
+            });
+            flusher.start();
+            Thread.sleep(150);
+            long start = System.nanoTime();
+            developers.addDeveloper(developerApple);
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            assertTrue(flusher.isAlive());
+            assertTrue(elapsedMillis < 50, "took " + elapsedMillis + " ms");
+            flusher.join();
+            slowFeed.flush();
+            List<StoreEvent> events = slow.take(7);
+            for(int i = 0; i < events.size(); i++) assertEquals(i, events.get(i).sequence());
+            slowFeed.close();
+        }
+    }
+}
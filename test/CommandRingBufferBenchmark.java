@@ -0,0 +1,69 @@
+import controllers.AppStoreAPI;
+import controllers.CommandRingBuffer;
+import controllers.ConcurrentAppStoreAPI;
+import controllers.DeveloperAPI;
+import models.Developer;
+import models.GameApp;
+import models.Rating;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares the rating throughput of {@link CommandRingBuffer} with the write lock of {@link ConcurrentAppStoreAPI}
+ * from 1 to 16 producer threads. A producer of the ring buffer only waits for the future of every 256th rating, like
+ * a client that submits its ratings and checks them now and then. Run the main method with the test classpath.
+ */
+public class CommandRingBufferBenchmark {
+    private static final long DURATION_MILLIS = 1000;
+    private static final int APPS = 1000;
+
+    @FunctionalInterface
+    private interface Producer {
+        CompletableFuture<?> rate(String name, Rating rating);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Developer developer = new Developer("Lego", "www.lego.com");
+        ConcurrentAppStoreAPI locked = new ConcurrentAppStoreAPI(new AppStoreAPI(), new DeveloperAPI());
+        AppStoreAPI ringStore = new AppStoreAPI();
+        for(int i = 0; i < APPS; i++) {
+            locked.addApp(new GameApp(developer, "Game" + i, 10, 1.0, 1.0, true));
+            ringStore.addApp(new GameApp(developer, "Game" + i, 10, 1.0, 1.0, true));
+        }
+        CommandRingBuffer buffer = new CommandRingBuffer(ringStore, new DeveloperAPI(), 4096);
+        try (buffer) {
+            Producer lock = (name, rating) -> CompletableFuture.completedFuture(locked.addRating(name, rating));
+            Producer ring = buffer::addRating;
+            for(int threads = 1; threads <= 16; threads *= 2) {
+                run(lock, threads); // warm-up
+                run(ring, threads);
+                System.out.printf("%2d producer(s): write lock %7.1f k ratings/s, ring buffer %7.1f k ratings/s%n",
+                        threads, run(lock, threads), run(ring, threads));
+            }
+        }
+        System.out.printf("%.1f ratings per batch%n", (double) buffer.getNumberOfCommands() / buffer.getNumberOfBatches());
+    }
+
+    private static double run(Producer producer, int threads) throws InterruptedException {
+        LongAdder ratings = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        long end = System.currentTimeMillis() + DURATION_MILLIS;
+        for(int t = 0; t < threads; t++) {
+            int thread = t;
+            new Thread(() -> {
+                Rating rating = new Rating(4, "Rater" + thread, "Good");
+                int i = thread;
+                while(System.currentTimeMillis() < end) {
+                    CompletableFuture<?> future = producer.rate("Game" + i++ % APPS, rating);
+                    if(i % 256 == 0) future.join();
+                    ratings.increment();
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        return ratings.sum() / (double) DURATION_MILLIS;
+    }
+}
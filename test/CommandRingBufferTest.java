@@ -0,0 +1,111 @@
+import controllers.AppStoreAPI;
+import controllers.CommandRingBuffer;
+import controllers.DeveloperAPI;
+import models.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CommandRingBufferTest {
+
+    private AppStoreAPI appStore;
+    private DeveloperAPI developers;
+    private CommandRingBuffer buffer;
+    private Developer developerLego = new Developer("Lego", "www.lego.com");
+
+    @BeforeEach
+    void setUp() {
+        appStore = new AppStoreAPI();
+        developers = new DeveloperAPI();
+        buffer = new CommandRingBuffer(appStore, developers, 16);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        buffer.close();
+    }
+
+    @Nested
+    class SingleProducer {
+
+        @Test
+        void commandsAreAppliedInOrderAndCompleteTheirFutures() {
+            assertEquals(16, buffer.getCapacity());
+            assertTrue(buffer.addDeveloper(developerLego).join());
+            for(int i = 0; i < 100; i++) buffer.addApp(new GameApp(developerLego, "Game" + i, 10, 1.0, 1.0, true));
+            assertTrue(buffer.addRating("game7", new Rating(5, "Ryker", "Great")).join());
+            assertFalse(buffer.addRating("Nothing", new Rating(5, "Ryker", "Great")).join());
+            assertEquals("Game0", buffer.deleteAppByIndex(0).join().getAppName());
+            // a query sees every modification submitted before it
+            assertEquals(99, buffer.submit((apps, devs) -> apps.numberOfApps()).join());
+            assertEquals(1, buffer.submit((apps, devs) -> apps.getAppByName("Game7").getNumberOfRatings()).join());
+        }
+
+        @Test
+        void theCountersAreExactOnceClosed() throws InterruptedException {
+            for(int i = 0; i < 100; i++) buffer.addApp(new GameApp(developerLego, "Game" + i, 10, 1.0, 1.0, true));
+            buffer.close();
+            assertEquals(100, buffer.getNumberOfCommands());
+            assertTrue(buffer.getNumberOfBatches() >= 100 / 16);
+            assertEquals(100, appStore.numberOfApps());
+        }
+
+        @Test
+        void aFailedCommandOnlyFailsItsFuture() {
+            CompletableFuture<Object> failed = buffer.submit((apps, devs) -> {
+                throw new IllegalStateException("broken");
+            });
+            assertEquals("broken", assertThrows(CompletionException.class, failed::join).getCause().getMessage());
+            assertTrue(buffer.addDeveloper(developerLego).join());
+        }
+
+        @Test
+        void noCommandIsAcceptedOnceClosed() throws InterruptedException {
+            CompletableFuture<Boolean> last = buffer.addDeveloper(developerLego);
+            buffer.close();
+            assertTrue(last.isDone());
+            assertThrows(CompletionException.class, () -> buffer.addApp(new GameApp(developerLego, "Late", 10, 1.0, 1.0, true)).join());
+            buffer.close(); // closing twice does nothing
+        }
+    }
+
+    @Nested
+    class ManyProducers {
+
+        @Test
+        void everyCommandIsAppliedOnceThroughAFullRing() throws InterruptedException {
+            buffer.addApp(new GameApp(developerLego, "Shared", 10, 1.0, 1.0, true));
+            List<Thread> producers = new ArrayList<>();
+            List<CompletableFuture<?>> futures = new ArrayList<>();
+            for(int p = 0; p < 4; p++) {
+                int producer = p;
+                List<CompletableFuture<?>> own = new ArrayList<>();
+                producers.add(new Thread(() -> {
+                    for(int i = 0; i < 1000; i++) {
+                        own.add(buffer.addRating("Shared", new Rating(i % 5 + 1, "Rater" + producer, "Rating " + i)));
+                        if(i % 100 == 0) own.add(buffer.addApp(new GameApp(developerLego, "App" + producer + "-" + i, 10, 1.0, 1.0, false)));
+                    }
+                    synchronized (futures) {
+                        futures.addAll(own);
+                    }
+                }));
+            }
+            for(Thread producer : producers) producer.start();
+            for(Thread producer : producers) producer.join();
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+            assertEquals(4000, buffer.submit((apps, devs) -> apps.getAppByName("Shared").getNumberOfRatings()).join());
+            assertEquals(1 + 4 * 10, buffer.submit((apps, devs) -> apps.numberOfApps()).join());
+            buffer.close();
+            assertTrue(buffer.getNumberOfBatches() <= buffer.getNumberOfCommands());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+import controllers.AppStoreAPI;
+import controllers.ConcurrentAppStoreAPI;
+import controllers.DeveloperAPI;
+import models.Developer;
+import models.GameApp;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures the read throughput of {@link ConcurrentAppStoreAPI} with 1 to 8 reader threads and one writer that
+ * changes an App every millisecond. Run the main method with the test classpath.
+ */
+public class ConcurrentAppStoreAPIBenchmark {
+    private static final long DURATION_MILLIS = 1000;
+
+    public static void main(String[] args) throws InterruptedException {
+        Developer developer = new Developer("Lego", "www.lego.com");
+        ConcurrentAppStoreAPI store = new ConcurrentAppStoreAPI(new AppStoreAPI(), new DeveloperAPI());
+        store.addDeveloper(developer);
+        for(int i = 0; i < 1000; i++) store.addApp(new GameApp(developer, "Game" + i, 10, 1.0, 1.0, true));
+        for(int threads = 1; threads <= 8; threads *= 2) {
+            run(store, threads); // warm-up
+            System.out.printf("%d reader(s): %6.2f M reads/s%n", threads, run(store, threads));
+        }
+    }
+
+    private static double run(ConcurrentAppStoreAPI store, int threads) throws InterruptedException {
+        LongAdder reads = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        long end = System.currentTimeMillis() + DURATION_MILLIS;
+        for(int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                int i = 0;
+                while(System.currentTimeMillis() < end) {
+                    if(store.getAppByIndex(i++ % store.numberOfApps()) != null) reads.add(2);
+                    if(store.getAppByName("game" + i % 1000) != null) reads.increment();
+                }
+                done.countDown();
+            }).start();
+        }
+        int changes = 0;
+        while(System.currentTimeMillis() < end) {
+            double cost = ++changes % 10;
+            store.updateApp(changes % 1000, app -> app.setAppCost(cost));
+            Thread.sleep(1);
+        }
+        done.await();
+        return reads.sum() / (DURATION_MILLIS * 1e3);
+    }
+}
@@ -0,0 +1,97 @@
+import controllers.AppStoreAPI;
+import controllers.ConcurrentAppStoreAPI;
+import controllers.DeveloperAPI;
+import models.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentAppStoreAPITest {
+
+    private ConcurrentAppStoreAPI store;
+    private Developer developerLego = new Developer("Lego", "www.lego.com");
+
+    @BeforeEach
+    void setUp() {
+        store = new ConcurrentAppStoreAPI(new AppStoreAPI(), new DeveloperAPI());
+        store.addDeveloper(developerLego);
+        for(int i = 0; i < 50; i++) store.addApp(new GameApp(developerLego, "Game" + i, 10, 1.0, 1.0, true));
+    }
+
+    @Nested
+    class SingleThread {
+
+        @Test
+        void queriesSeeEveryModification() {
+            assertEquals(50, store.numberOfApps());
+            assertTrue(store.updateApp(0, app -> app.addRating(new Rating(5, "Ryker", "Great"))));
+            assertFalse(store.updateApp(50, app -> app.setAppCost(0)));
+            assertTrue(store.listAllRecommendedApps().startsWith("0: Game0"));
+            assertSame(store.getAppByIndex(3), store.getAppByName("game3"));
+            store.updateDeveloperWebsite("Lego", "www.lego.org");
+            assertTrue(store.listAllApps().contains("www.lego.org"));
+            assertEquals(50, store.numberOfAppsByChosenDeveloper(developerLego));
+            store.sortAppsByNameAscending();
+            assertEquals("Game0", store.getAppByIndex(0).getAppName());
+            assertEquals("Game9", store.deleteAppByIndex(49).getAppName());
+            assertEquals(49, store.analyse().getTotal().getNumberOfApps());
+        }
+    }
+
+    @Nested
+    class ManyThreads {
+
+        @Test
+        void readersNeverSeeAHalfDoneModification() throws InterruptedException {
+            Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+            AtomicBoolean writing = new AtomicBoolean(true);
+            List<Thread> threads = new ArrayList<>();
+            for(int r = 0; r < 4; r++) {
+                threads.add(new Thread(() -> {
+                    try {
+                        while(writing.get()) {
+                            String[] lines = store.listAllApps().split("\n");
+                            for(int i = 0; i < lines.length; i++) assertTrue(lines[i].startsWith(i + ": "), lines[i]);
+                            int size = store.numberOfApps();
+                            assertTrue(size >= 50 && size <= 152, "size " + size); // each writer adds one App before deleting it
+                            assertNotNull(store.getAppByIndex(49));
+                            assertTrue(store.listAllAppsByName("Game1").startsWith("1: "));
+                        }
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }));
+            }
+            for(int w = 0; w < 2; w++) {
+                int writer = w;
+                threads.add(new Thread(() -> {
+                    try {
+                        for(int i = 0; i < 500; i++) {
+                            store.addApp(new GameApp(developerLego, "Extra" + writer + "-" + i, 10, 1.0, 1.0, false));
+                            store.updateApp(i % 50, app -> app.addRating(new Rating(4, "Ryker", "Good")));
+                            if(i % 10 != 0) store.deleteAppByIndex(store.numberOfApps() - 1);
+                        }
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }));
+            }
+            for(Thread thread : threads) thread.start();
+            for(Thread thread : threads.subList(4, 6)) thread.join();
+            writing.set(false);
+            for(Thread thread : threads.subList(0, 4)) thread.join();
+
+            assertTrue(failures.isEmpty(), () -> failures.peek().toString());
+            assertEquals(50 + 2 * 50, store.numberOfApps());
+            assertEquals(20, store.getAppByIndex(0).getNumberOfRatings());
+        }
+    }
+}
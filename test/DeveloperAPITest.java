@@ -0,0 +1,113 @@
+import controllers.DeveloperAPI;
+import models.Developer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeveloperAPITest {
+
+    private DeveloperAPI developerAPI;
+    private Developer developerLego = new Developer("Lego", "www.lego.com");
+    private Developer developerApple = new Developer("Apple", "www.apple.com");
+    private Developer developerSphero = new Developer("Sphero", "www.sphero.com");
+
+    @BeforeEach
+    void setUp() {
+        developerAPI = new DeveloperAPI();
+        developerAPI.addDeveloper(developerLego);
+        developerAPI.addDeveloper(developerApple);
+        developerAPI.addDeveloper(developerSphero);
+    }
+
+    @Nested
+    class NameIndex {
+
+        @Test
+        void developersAreFoundByNameIgnoringCase() {
+            assertEquals(1, developerAPI.retrieveDeveloperIndex("APPLE"));
+            assertSame(developerSphero, developerAPI.getDeveloperByName("sphero"));
+            assertTrue(developerAPI.isValidDeveloper("lego"));
+            assertFalse(developerAPI.isValidDeveloper("Microsoft"));
+            assertEquals(-1, developerAPI.retrieveDeveloperIndex(null));
+            assertFalse(developerAPI.addDeveloper(new Developer("LEGO", "www.lego.org")));
+            assertEquals("0: " + developerLego + "\n1: " + developerApple + "\n2: " + developerSphero + "\n",
+                    developerAPI.listDevelopers());
+            assertEquals("No developers", new DeveloperAPI().listDevelopers());
+        }
+
+        @Test
+        void theIndexFollowsRemovalsAndRenames() {
+            assertSame(developerLego, developerAPI.removeDeveloper("lego"));
+            assertEquals(0, developerAPI.retrieveDeveloperIndex("Apple"));
+            assertEquals(1, developerAPI.retrieveDeveloperIndex("Sphero"));
+            assertNull(developerAPI.getDeveloperByName("Lego"));
+
+            assertTrue(developerAPI.renameDeveloper("apple", "Apple Inc."));
+            assertEquals("Apple Inc.", developerApple.getDeveloperName());
+            assertFalse(developerAPI.isValidDeveloper("Apple"));
+            assertSame(developerApple, developerAPI.getDeveloperByName("apple inc."));
+            assertFalse(developerAPI.renameDeveloper("Apple Inc.", "SPHERO")); // taken by another developer
+            assertFalse(developerAPI.renameDeveloper("Nobody", "Somebody"));
+            assertTrue(developerAPI.renameDeveloper("Apple Inc.", "APPLE INC."));
+            assertTrue(developerAPI.addDeveloper(new Developer("Apple", "www.apple.org")));
+        }
+
+        @Test
+        void lookupsFromManyThreadsFindEveryDeveloper() throws InterruptedException {
+            for(int i = 0; i < 1000; i++) developerAPI.addDeveloper(new Developer("Developer" + i, "www.developer.com"));
+            developerSphero.setDeveloperName("Sphero Edu"); // not through the API, the lookups find it all the same
+            List<Thread> readers = new ArrayList<>();
+            AtomicInteger found = new AtomicInteger();
+            for(int t = 0; t < 4; t++) {
+                Thread reader = new Thread(() -> {
+                    for(int i = 0; i < 1000; i++) {
+                        if(developerAPI.retrieveDeveloperIndex("developer" + i) == i + 3) found.incrementAndGet();
+                        if(developerAPI.getDeveloperByName("Sphero Edu") == developerSphero) found.incrementAndGet();
+                    }
+                });
+                readers.add(reader);
+                reader.start();
+            }
+            for(Thread reader : readers) reader.join();
+            assertEquals(4 * 2000, found.get());
+            assertFalse(developerAPI.isValidDeveloper("Sphero"));
+            assertThrows(UnsupportedOperationException.class, () -> developerAPI.getDevelopers().add(developerLego));
+        }
+
+        @Test
+        void directRenamesAndRemovalsKeepTheLookupsRight() {
+            long modifications = developerAPI.getModificationCount();
+            developerApple.setDeveloperName("Apple Inc.");
+            assertSame(developerApple, developerAPI.getDeveloperByName("apple inc."));
+            assertNull(developerAPI.getDeveloperByName("Apple"));
+            assertTrue(developerAPI.getModificationCount() > modifications);
+
+            developerApple.setDeveloperName("Lego"); // a name another developer has
+            assertSame(developerLego, developerAPI.getDeveloperByName("Lego"));
+            assertSame(developerLego, developerAPI.removeDeveloper("Lego"));
+            assertSame(developerApple, developerAPI.getDeveloperByName("lego")); // the other one takes its place
+            assertEquals(0, developerAPI.retrieveDeveloperIndex("Lego"));
+            assertEquals(1, developerAPI.retrieveDeveloperIndex("Sphero"));
+
+            Developer removed = developerAPI.removeDeveloper("Sphero");
+            removed.setDeveloperName("Apple"); // no longer in the API
+            assertFalse(developerAPI.isValidDeveloper("Apple"));
+            assertEquals(1, developerAPI.getDevelopers().size());
+        }
+
+        @Test
+        void lookupsStayFastWithManyDevelopers() {
+            DeveloperAPI many = new DeveloperAPI();
+            for(int i = 0; i < 100_000; i++) assertTrue(many.addDeveloper(new Developer("Developer" + i, "www.developer.com")));
+            for(int i = 0; i < 100_000; i++) assertEquals(i, many.retrieveDeveloperIndex("developer" + i));
+            assertTrue(many.updateDeveloperWebsite("Developer99999", "www.last.com"));
+            assertEquals(100_000, many.listDevelopers().split("\n").length);
+        }
+    }
+}
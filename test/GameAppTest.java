@@ -1,6 +1,8 @@
 import models.Developer;
 import models.GameApp;
+import models.Language;
 import models.Rating;
+import models.RatingStore;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -242,6 +244,95 @@ public class GameAppTest {
             assertTrue(stringContents.contains("RolePlaying"));
         }
 
+        @Test
+        void copyReturnsAnIndependentAppWithTheSameValues() {
+            GameApp gameApp = setupGameAppWithRating(3, 4);
+            GameApp copy = gameApp.copy();
+            assertNotSame(gameApp, copy);
+            assertEquals(gameApp.toString(), copy.toString());
+
+            gameApp.removeGenre(Adventure);
+            gameApp.addRating(new Rating(1, "Ryker", "Boring"));
+            assertTrue(copy.getGenres().contains(Adventure));
+            assertEquals(2, copy.getRatings().size());
+        }
+
+        @Test
+        void genresAndLanguagesAreOnlyChangedThroughTheApp() {
+            assertThrows(UnsupportedOperationException.class, () -> gameAppBelowBoundary.getGenres().add(RPG));
+            assertThrows(UnsupportedOperationException.class, () -> gameAppBelowBoundary.getLanguages().clear());
+            gameAppBelowBoundary.addLanguage(Language.French);
+            assertTrue(gameAppBelowBoundary.getLanguages().contains(Language.French));
+        }
+
+        @Test
+        void ratingAggregatesFollowAddedAndRemovedRatings() {
+            GameApp gameApp = setupGameAppWithRating(3, 4);
+            Rating rating = new Rating(5, "Ryker", "Great");
+            gameApp.addRating(rating);
+            gameApp.addRating(new Rating(0, "Mairead", "No stars")); // not counted in the average
+            assertEquals(4, gameApp.getNumberOfRatings());
+            assertEquals(1, gameApp.getNumberOfRatings(5));
+            assertEquals(4.0, gameApp.calculateRating(), 0.01);
+            assertTrue(gameApp.removeRating(rating));
+            assertFalse(gameApp.removeRating(rating));
+            assertEquals(0, gameApp.getNumberOfRatings(5));
+            assertEquals(3.5, gameApp.calculateRating(), 0.01);
+            assertThrows(UnsupportedOperationException.class, () -> gameApp.getRatings().clear());
+        }
+
+        @Test
+        void ratingsAreReadFromTheStoreAsNewRatings() {
+            GameApp gameApp = setupGameAppWithRating(3, 4);
+            gameApp.addRating(new Rating(3, "John Doe", "Very Good"));
+            Rating first = gameApp.getRatings().get(0);
+            assertEquals("3 stars (by John Doe).\"Very Good\"", first.toString());
+            assertNotSame(first, gameApp.getRatings().get(0));
+            first.setNumberOfStars(1); // a copy, the App is unchanged
+            assertEquals(3, gameApp.getRatings().get(0).getNumberOfStars());
+
+            assertTrue(gameApp.removeRating(new Rating(3, "John Doe", "Very Good"))); // the first equal rating
+            assertEquals(2, gameApp.getNumberOfRatings());
+            assertEquals("Jane Doe", gameApp.getRatings().get(0).getRaterName());
+            assertEquals("John Doe", gameApp.getRatings().get(1).getRaterName());
+            assertFalse(gameApp.removeRating(new Rating(3, "John Doe", "Never written")));
+            assertThrows(IndexOutOfBoundsException.class, () -> gameApp.getRatings().get(2));
+        }
+
+        @Test
+        void equalStringsShareOneDictionaryEntry() {
+            RatingStore store = new RatingStore();
+            store.add(new Rating(4, new String("Shared Rater"), new String("Shared comment")));
+            store.add(new Rating(2, new String("Shared Rater"), new String("Shared comment")));
+            store.add(new Rating(5, new String("Shared comment"), "Another comment"));
+            assertEquals(3, store.getNumberOfStrings());
+            assertSame(store.get(0).getRaterName(), store.get(1).getRaterName());
+            assertSame(store.get(0).getRatingComment(), store.get(2).getRaterName());
+
+            RatingStore other = new RatingStore();
+            other.add(new Rating(1, "Other Rater", "Shared comment"));
+            other.addAll(store);
+            assertEquals(4, other.getNumberOfStrings()); // the strings of the store are added once
+            assertSame(other.get(0).getRatingComment(), other.get(1).getRatingComment());
+            assertEquals(3, other.indexOf(new Rating(5, "Shared comment", "Another comment")));
+        }
+
+        @Test
+        void aCopySharesTheRatingsUntilEitherAppChangesThem() {
+            GameApp gameApp = setupGameAppWithRating(3, 4);
+            GameApp copy = gameApp.copy();
+            gameApp.addRating(new Rating(1, "John Doe", "Bad"));
+            assertTrue(gameApp.removeRating(new Rating(3, "John Doe", "Very Good")));
+            copy.addRating(new Rating(5, "Jane Doe", "Great"));
+
+            assertEquals(2, gameApp.getNumberOfRatings());
+            assertEquals(4, gameApp.getRatings().get(0).getNumberOfStars());
+            assertEquals(1, gameApp.getRatings().get(1).getNumberOfStars());
+            assertEquals(3, copy.getNumberOfRatings());
+            assertEquals(3, copy.getRatings().get(0).getNumberOfStars());
+            assertEquals(5, copy.getRatings().get(2).getNumberOfStars());
+        }
+
     }
 
     @Nested
@@ -0,0 +1,117 @@
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import utils.PersistentVector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistentVectorTest {
+
+    /**
+     * Past 32 * 32 + 32 elements the tree has three levels
+     */
+    private static final int SIZE = 40_000;
+
+    private static PersistentVector<Integer> vectorOf(int size) {
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        for(int i = 0; i < size; i++) vector = vector.append(i);
+        return vector;
+    }
+
+    @Nested
+    class Reading {
+
+        @Test
+        void appendedElementsAreReadBackInOrder() {
+            PersistentVector<Integer> vector = vectorOf(SIZE);
+            assertEquals(SIZE, vector.size());
+            for(int i = 0; i < SIZE; i++) assertEquals(i, vector.get(i));
+            int expected = 0;
+            for(int element : vector) assertEquals(expected++, element);
+            assertEquals(SIZE, expected);
+            assertThrows(IndexOutOfBoundsException.class, () -> vector.get(SIZE));
+            assertTrue(PersistentVector.empty().isEmpty());
+        }
+
+        @Test
+        void theListViewIsReadOnly() {
+            List<Integer> list = vectorOf(100).asList();
+            assertEquals(100, list.size());
+            assertEquals(List.copyOf(list), new ArrayList<>(list));
+            assertThrows(UnsupportedOperationException.class, () -> list.add(1));
+        }
+    }
+
+    @Nested
+    class Changing {
+
+        @Test
+        void changesLeaveThePreviousVersionsUnchanged() {
+            PersistentVector<Integer> vector = vectorOf(SIZE);
+            PersistentVector<Integer> set = vector.set(5, -5).set(SIZE - 1, -1);
+            PersistentVector<Integer> appended = vector.append(SIZE);
+            PersistentVector<Integer> removed = vector.removeLast();
+
+            assertEquals(5, vector.get(5));
+            assertEquals(SIZE - 1, vector.get(SIZE - 1));
+            assertEquals(SIZE, vector.size());
+            assertEquals(-5, set.get(5));
+            assertEquals(-1, set.get(SIZE - 1));
+            assertEquals(SIZE, appended.get(SIZE));
+            assertEquals(SIZE - 1, removed.size());
+        }
+
+        @Test
+        void removingEveryElementShrinksTheTree() {
+            PersistentVector<Integer> vector = vectorOf(SIZE);
+            for(int size = SIZE; size > 0; size--) {
+                assertEquals(size - 1, vector.get(size - 1));
+                vector = vector.removeLast();
+            }
+            assertTrue(vector.isEmpty());
+            assertThrows(IllegalStateException.class, vector::removeLast);
+            assertEquals(7, vector.append(7).get(0));
+        }
+
+        @Test
+        void removingAtTheEdgesOfTheArraysKeepsATreeThatCanStillChange() {
+            PersistentVector<Integer> vector = PersistentVector.of(vectorOf(SIZE).asList());
+            for(int index : new int[]{0, 1, 31, 32, 33, 1023, 1024, 1055, 1056, 1057, SIZE - 33, SIZE - 32, SIZE - 1}) {
+                List<Integer> expected = new ArrayList<>(vector.asList());
+                expected.remove(index);
+                PersistentVector<Integer> removed = vector.remove(index);
+                assertEquals(expected, removed.asList());
+                for(int i = 0; i < 1100; i++) removed = removed.append(-i);
+                for(int i = 0; i < 2000; i++) removed = removed.removeLast();
+                assertEquals(expected.subList(0, SIZE - 901), removed.asList());
+            }
+            assertEquals(List.of(), PersistentVector.of(List.of(1)).remove(0).asList());
+        }
+
+        @Test
+        void randomChangesMatchAnArrayList() {
+            Random random = new Random(20);
+            List<Integer> expected = new ArrayList<>();
+            PersistentVector<Integer> vector = PersistentVector.empty();
+            for(int i = 0; i < 5_000; i++) {
+                int operation = random.nextInt(10);
+                if(operation < 6 || expected.isEmpty()) {
+                    expected.add(i);
+                    vector = vector.append(i);
+                } else if(operation < 8) {
+                    int index = random.nextInt(expected.size());
+                    expected.set(index, -i);
+                    vector = vector.set(index, -i);
+                } else {
+                    int index = random.nextInt(expected.size());
+                    expected.remove(index);
+                    vector = vector.remove(index);
+                }
+            }
+            assertEquals(expected, vector.asList());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+import controllers.RatingIngestor;
+import models.App;
+import models.Developer;
+import models.GameApp;
+import models.Rating;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BiConsumer;
+
+/**
+ * Compares the throughput of {@link RatingIngestor#submit} with adding the ratings to the apps under one lock, with
+ * 1 to 8 threads rating 4 apps. Run the main method with the test classpath.
+ */
+public class RatingIngestorBenchmark {
+    private static final int RATINGS_PER_THREAD = 500_000, APPS = 4;
+
+    public static void main(String[] args) throws InterruptedException {
+        Rating[] ratings = new Rating[6];
+        for(int i = 0; i < ratings.length; i++) ratings[i] = new Rating(i, "Ryker", "Great");
+        for(int threads = 1; threads <= 8; threads *= 2) {
+            for(int run = 0; run < 3; run++) { // the last run is printed, the first ones warm up
+                App[] apps = apps();
+                Object lock = new Object();
+                double locked = run(threads, apps, ratings, (app, rating) -> {
+                    synchronized(lock) {
+                        app.addRating(rating);
+                    }
+                });
+                RatingIngestor ingestor = new RatingIngestor();
+                double ingested = run(threads, apps(), ratings, ingestor::submit);
+                ingestor.drain();
+                if(run == 2) System.out.printf("%d thread(s): global lock %6.1f M ratings/s, ingestor %6.1f M ratings/s%n",
+                        threads, locked, ingested);
+            }
+        }
+    }
+
+    private static App[] apps() {
+        App[] apps = new App[APPS];
+        for(int i = 0; i < APPS; i++) apps[i] = new GameApp(new Developer("Lego", "www.lego.com"), "App" + i, 1, 1.0, 0, true);
+        return apps;
+    }
+
+    private static double run(int threads, App[] apps, Rating[] ratings, BiConsumer<App, Rating> add) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1), done = new CountDownLatch(threads);
+        for(int t = 0; t < threads; t++) {
+            int seed = t;
+            new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for(int i = 0; i < RATINGS_PER_THREAD; i++) add.accept(apps[(i + seed) % APPS], ratings[i % ratings.length]);
+                done.countDown();
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return (double) threads * RATINGS_PER_THREAD / ((System.nanoTime() - begin) / 1e3);
+    }
+}
@@ -0,0 +1,115 @@
+import controllers.RatingIngestor;
+import models.App;
+import models.Developer;
+import models.EducationApp;
+import models.GameApp;
+import models.Rating;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RatingIngestorTest {
+
+    private RatingIngestor ingestor;
+    private GameApp gameApp;
+    private EducationApp edApp;
+
+    @BeforeEach
+    void setUp() {
+        ingestor = new RatingIngestor();
+        Developer developerLego = new Developer("Lego", "www.lego.com");
+        gameApp = new GameApp(developerLego, "Spike", 1000, 2.0, 1.99, true);
+        edApp = new EducationApp(developerLego, "WeDo", 1, 1.0, 0, 1);
+    }
+
+    @Nested
+    class SingleThread {
+
+        @Test
+        void ratingsAreOnlyAddedToTheAppsWhenDrained() {
+            ingestor.submit(gameApp, new Rating(5, "Ryker", "Great"));
+            ingestor.submit(gameApp, new Rating(2, "Mairead", "Bad"));
+            ingestor.submit(edApp, new Rating(0, "Ryker", "No stars"));
+            assertEquals(0, gameApp.getNumberOfRatings());
+            assertEquals(2, ingestor.getNumberOfRatings(gameApp));
+            assertEquals(1, ingestor.getNumberOfRatings(gameApp, 5));
+            assertEquals(3.5, ingestor.calculateRating(gameApp), 0.01);
+            assertEquals(0, ingestor.calculateRating(edApp));
+            assertEquals(3, ingestor.getNumberOfPendingRatings());
+
+            assertEquals(3, ingestor.drain());
+            assertEquals(0, ingestor.drain());
+            assertEquals(0, ingestor.getNumberOfPendingRatings());
+            assertEquals("5 stars (by Ryker).\"Great\"", gameApp.getRatings().get(0).toString());
+            assertEquals(3.5, gameApp.calculateRating(), 0.01);
+            assertEquals(1, edApp.getNumberOfRatings());
+        }
+
+        @Test
+        void aForgottenAppIsNoLongerCounted() {
+            ingestor.submit(gameApp, new Rating(5, "Ryker", "Great"));
+            ingestor.submit(edApp, new Rating(3, "Ryker", "Good"));
+            ingestor.forget(gameApp);
+            assertEquals(0, ingestor.getNumberOfRatings(gameApp));
+            assertEquals(0, ingestor.calculateRating(gameApp));
+            assertEquals(1, ingestor.getNumberOfRatings(edApp));
+            assertEquals(2, ingestor.drain()); // the submitted ratings are still added
+            ingestor.submit(gameApp, new Rating(1, "Mairead", "Bad"));
+            assertEquals(1, ingestor.getNumberOfRatings(gameApp, 1));
+            assertEquals(2, ingestor.getNumberOfRatings(gameApp)); // counted again from the ratings of the App
+        }
+
+        @Test
+        void theRatingsTheAppAlreadyHasAreCounted() {
+            gameApp.addRating(new Rating(5, "Ryker", "Great"));
+            gameApp.addRating(new Rating(0, "Mairead", "No stars"));
+            ingestor.submit(gameApp, new Rating(2, "Mairead", "Bad"));
+            assertEquals(3, ingestor.getNumberOfRatings(gameApp));
+            assertEquals(1, ingestor.getNumberOfRatings(gameApp, 5));
+            assertEquals(3.5, ingestor.calculateRating(gameApp), 0.01);
+
+            List<String> notifications = new ArrayList<>();
+            gameApp.addObserver((app, mutator, argument) -> notifications.add(mutator));
+            ingestor.submit(gameApp, new Rating(4, "Ryker", "Good"));
+            assertEquals(2, ingestor.drain());
+            assertEquals(List.of(App.ADD_RATINGS), notifications); // the ratings of an App are added at once
+            assertEquals(4, gameApp.getNumberOfRatings());
+            assertEquals(gameApp.calculateRating(), ingestor.calculateRating(gameApp), 1e-9);
+        }
+    }
+
+    @Nested
+    class ManyThreads {
+
+        @Test
+        void everySubmittedRatingIsAddedExactlyOnce() throws InterruptedException {
+            int threads = 8, ratingsPerThread = 20_000;
+            List<Thread> submitters = new ArrayList<>();
+            for(int t = 0; t < threads; t++) {
+                Thread submitter = new Thread(() -> {
+                    for(int i = 0; i < ratingsPerThread; i++) {
+                        ingestor.submit(i % 2 == 0 ? gameApp : edApp, new Rating(i % 5 + 1, "Ryker", "Great"));
+                    }
+                });
+                submitters.add(submitter);
+                submitter.start();
+            }
+            int drained = 0;
+            while(submitters.stream().anyMatch(Thread::isAlive)) drained += ingestor.drain(); // while submitting
+            for(Thread submitter : submitters) submitter.join();
+            drained += ingestor.drain();
+
+            assertEquals(threads * ratingsPerThread, drained);
+            assertEquals(threads * ratingsPerThread / 2, gameApp.getNumberOfRatings());
+            assertEquals(threads * ratingsPerThread / 2, edApp.getNumberOfRatings());
+            assertEquals(gameApp.getNumberOfRatings(), ingestor.getNumberOfRatings(gameApp));
+            assertEquals(gameApp.calculateRating(), ingestor.calculateRating(gameApp), 1e-9);
+            assertEquals(0, ingestor.getNumberOfPendingRatings());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+import controllers.AppStoreAPI;
+import controllers.ConcurrentAppStoreAPI;
+import controllers.DeveloperAPI;
+import main.Server;
+import models.Developer;
+import models.GameApp;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A load test of {@link Server} on localhost: 100 to 2000 clients each send their next request as soon as the
+ * previous one is answered, one in ten submits a rating and the others look up an App or list the Game apps with a
+ * rating of 3 or more. Run the main method with the test classpath.
+ */
+public class ServerBenchmark {
+    private static final long DURATION_MILLIS = 3000;
+    private static final int APPS = 1000;
+
+    public static void main(String[] args) throws Exception {
+        Developer developer = new Developer("Lego", "www.lego.com");
+        ConcurrentAppStoreAPI store = new ConcurrentAppStoreAPI(new AppStoreAPI(), new DeveloperAPI());
+        store.addDeveloper(developer);
+        for(int i = 0; i < APPS; i++) store.addApp(new GameApp(developer, "Game" + i, 10, 1.0, 1.0, true));
+        Server server = new Server(store, 0);
+        server.start();
+        HttpClient client = HttpClient.newHttpClient();
+        String base = "http://localhost:" + server.getPort();
+        for(int clients : new int[]{100, 500, 1000, 2000}) {
+            LongAdder answered = new LongAdder(), failed = new LongAdder();
+            CountDownLatch done = new CountDownLatch(clients);
+            long end = System.currentTimeMillis() + DURATION_MILLIS;
+            for(int c = 0; c < clients; c++) send(client, base, c, end, answered, failed, done);
+            done.await();
+            System.out.printf("%4d clients: %7.0f requests/s, %d failed%n", clients,
+                    answered.sum() * 1000.0 / DURATION_MILLIS, failed.sum());
+        }
+        server.stop(0);
+    }
+
+    private static void send(HttpClient client, String base, int i, long end, LongAdder answered, LongAdder failed,
+                             CountDownLatch done) {
+        if(System.currentTimeMillis() >= end) {
+            done.countDown();
+            return;
+        }
+        HttpRequest request = switch (i % 10) {
+            case 0 -> HttpRequest.newBuilder(URI.create(base + "/apps/Game" + i % APPS + "/ratings"))
+                    .POST(HttpRequest.BodyPublishers.ofString("stars=" + (i % 5 + 1))).build();
+            case 1 -> HttpRequest.newBuilder(URI.create(base + "/apps?type=game&minRating=3")).build();
+            default -> HttpRequest.newBuilder(URI.create(base + "/apps/Game" + i % APPS)).build();
+        };
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, e) -> {
+            if(e == null && response.statusCode() < 400) answered.increment();
+            else failed.increment();
+            send(client, base, i + 7, end, answered, failed, done);
+        });
+    }
+}
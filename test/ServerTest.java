@@ -0,0 +1,131 @@
+import controllers.AppStoreAPI;
+import controllers.ConcurrentAppStoreAPI;
+import controllers.DeveloperAPI;
+import main.Server;
+import models.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ServerTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private ConcurrentAppStoreAPI store;
+    private Server server;
+    private Developer developerLego = new Developer("Lego", "www.lego.com");
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = new ConcurrentAppStoreAPI(new AppStoreAPI(), new DeveloperAPI());
+        store.addDeveloper(developerLego);
+        store.addApp(new GameApp(developerLego, "Spike Prime", 100, 2.0, 2.99, true));
+        store.addApp(new EducationApp(developerLego, "WeDo", 50, 1.0, 0, 3));
+        server = new Server(store, 0);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String form) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Nested
+    class Endpoints {
+
+        @Test
+        void appsAreListedAndFoundAsJson() throws Exception {
+            HttpResponse<String> all = get("/apps");
+            assertEquals(200, all.statusCode());
+            assertEquals("application/json; charset=utf-8", all.headers().firstValue("Content-Type").orElse(""));
+            assertTrue(all.body().startsWith("[{\"name\":\"Spike Prime\",\"type\":\"GameApp\",\"developer\":\"Lego\""));
+            assertFalse(get("/apps?type=education").body().contains("Spike Prime"));
+            assertEquals("[]", get("/apps?minRating=4").body());
+
+            HttpResponse<String> one = get("/apps/spike%20prime");
+            assertEquals(200, one.statusCode());
+            assertTrue(one.body().endsWith(",\"ratings\":[]}"));
+            assertEquals(404, get("/apps/Nothing").statusCode());
+            assertTrue(get("/search?name=EDO").body().contains("\"WeDo\""));
+            assertEquals(400, get("/search").statusCode());
+            assertEquals(400, get("/apps?sort=size").statusCode());
+        }
+
+        @Test
+        void ratingsAreSubmittedAndShownInTheListings() throws Exception {
+            HttpResponse<String> created = post("/apps/WeDo/ratings", "stars=5&rater=Ryker&comment=%22Great%22");
+            assertEquals(201, created.statusCode());
+            assertEquals("{\"stars\":5,\"rater\":\"Ryker\",\"comment\":\"\\\"Great\\\"\"}", created.body());
+            assertEquals(400, post("/apps/WeDo/ratings", "stars=6").statusCode());
+            assertEquals(404, post("/apps/Nothing/ratings", "stars=5").statusCode());
+            assertEquals(405, get("/apps/WeDo/ratings").statusCode());
+
+            assertTrue(get("/apps?minRating=5").body().startsWith("[{\"name\":\"WeDo\""));
+            assertTrue(get("/apps?sort=rating").body().startsWith("[{\"name\":\"WeDo\""));
+            assertTrue(get("/apps/WeDo").body().contains("\"ratings\":[{\"stars\":5"));
+        }
+
+        @Test
+        void ratingsThatAreNotNumbersAreWrittenAsNull() throws Exception {
+            store.updateApp(0, app -> app.addRating(new Rating(0, "Ryker", "No stars"))); // a NaN average
+            assertTrue(get("/apps/Spike%20Prime").body().contains("\"rating\":null,\"numberOfRatings\":1"));
+            assertTrue(get("/apps").body().contains("\"rating\":null"));
+            assertTrue(get("/reports").body().contains("\"averageRating\":0.0000"));
+        }
+
+        @Test
+        void developersAndReports() throws Exception {
+            assertTrue(get("/developers").body().contains("\"name\":\"Lego\",\"website\":\"www.lego.com\""));
+            assertTrue(get("/developers/Lego").body().endsWith("\"numberOfApps\":2}"));
+            assertEquals(404, get("/developers/Apple").statusCode());
+            assertTrue(get("/reports").body().startsWith("{\"total\":{\"numberOfApps\":2,"));
+            assertEquals(200, get("/random").statusCode());
+        }
+
+        @Test
+        void appsWithAnUnnamedDeveloperAreLeftOutOfTheDeveloperFilter() throws Exception {
+            store.addApp(new ProductivityApp(new Developer(null, "www.unnamed.com"), "Notes", 10, 1.0, 0));
+            HttpResponse<String> lego = get("/apps?developer=lego");
+            assertEquals(200, lego.statusCode());
+            assertFalse(lego.body().contains("Notes"));
+            assertTrue(lego.body().contains("WeDo"));
+        }
+    }
+
+    @Nested
+    class ManyClients {
+
+        @Test
+        void concurrentRatingsAreAllCounted() {
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for(int i = 0; i < 200; i++) {
+                responses.add(client.sendAsync(HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort()
+                        + "/apps/WeDo/ratings")).POST(HttpRequest.BodyPublishers.ofString("stars=" + (i % 5 + 1))).build(),
+                        HttpResponse.BodyHandlers.ofString()));
+            }
+            for(CompletableFuture<HttpResponse<String>> response : responses) assertEquals(201, response.join().statusCode());
+            assertEquals(200, store.getAppByName("WeDo").getNumberOfRatings());
+        }
+    }
+}
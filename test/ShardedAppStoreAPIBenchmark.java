@@ -0,0 +1,101 @@
+import controllers.AppStoreAPI;
+import controllers.ConcurrentAppStoreAPI;
+import controllers.DeveloperAPI;
+import controllers.ShardedAppStoreAPI;
+import models.Developer;
+import models.GameApp;
+import models.Rating;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares the write throughput of {@link ShardedAppStoreAPI} with the single lock of {@link ConcurrentAppStoreAPI}
+ * from 1 to 64 writer threads. Every thread rates apps and adds and deletes an App of its own, and reads the number
+ * of apps now and then. Run the main method with the test classpath.
+ */
+public class ShardedAppStoreAPIBenchmark {
+    private static final long DURATION_MILLIS = 1000;
+    private static final int APPS = 1000;
+
+    private interface Store {
+        void rate(String name);
+        void addAndDelete(String name);
+        int numberOfApps();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Developer developer = new Developer("Lego", "www.lego.com");
+        ConcurrentAppStoreAPI single = new ConcurrentAppStoreAPI(new AppStoreAPI(), new DeveloperAPI());
+        ShardedAppStoreAPI sharded = new ShardedAppStoreAPI(Math.max(16, Runtime.getRuntime().availableProcessors()));
+        for(int i = 0; i < APPS; i++) {
+            single.addApp(new GameApp(developer, "Game" + i, 10, 1.0, 1.0, true));
+            sharded.addApp(new GameApp(developer, "Game" + i, 10, 1.0, 1.0, true));
+        }
+        Store singleLock = new Store() {
+            @Override
+            public void rate(String name) {
+                single.updateApp(Integer.parseInt(name.substring(4)), app -> app.addRating(new Rating(4, "Ryker", "Good")));
+            }
+
+            @Override
+            public void addAndDelete(String name) {
+                single.addApp(new GameApp(developer, name, 10, 1.0, 1.0, false));
+                single.deleteAppByIndex(single.numberOfApps() - 1);
+            }
+
+            @Override
+            public int numberOfApps() {
+                return single.numberOfApps();
+            }
+        };
+        Store shards = new Store() {
+            @Override
+            public void rate(String name) {
+                sharded.updateApp(name, app -> app.addRating(new Rating(4, "Ryker", "Good")));
+            }
+
+            @Override
+            public void addAndDelete(String name) {
+                sharded.addApp(new GameApp(developer, name, 10, 1.0, 1.0, false));
+                sharded.deleteAppByName(name);
+            }
+
+            @Override
+            public int numberOfApps() {
+                return sharded.numberOfApps();
+            }
+        };
+        System.out.printf("%d cores, %d shards%n", Runtime.getRuntime().availableProcessors(), sharded.getNumberOfShards());
+        for(int threads = 1; threads <= 64; threads *= 2) {
+            run(singleLock, threads); // warm-up
+            run(shards, threads);
+            System.out.printf("%2d writer(s): single lock %6.1f k ops/s, sharded %6.1f k ops/s%n",
+                    threads, run(singleLock, threads), run(shards, threads));
+        }
+    }
+
+    private static double run(Store store, int threads) throws InterruptedException {
+        LongAdder operations = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        long end = System.currentTimeMillis() + DURATION_MILLIS;
+        for(int t = 0; t < threads; t++) {
+            int thread = t;
+            new Thread(() -> {
+                int i = thread;
+                while(System.currentTimeMillis() < end) {
+                    store.rate("Game" + i++ % APPS);
+                    store.addAndDelete("Extra" + thread + "-" + i);
+                    operations.add(3);
+                    if(i % 100 == 0) {
+                        store.numberOfApps();
+                        operations.increment();
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        return operations.sum() / (double) DURATION_MILLIS;
+    }
+}
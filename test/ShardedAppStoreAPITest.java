@@ -0,0 +1,158 @@
+import controllers.ShardedAppStoreAPI;
+import models.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import utils.StarDistribution;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedAppStoreAPITest {
+
+    private ShardedAppStoreAPI store;
+    private Developer developerLego = new Developer("Lego", "www.lego.com");
+    private Developer developerApple = new Developer("Apple", "www.apple.com");
+
+    @BeforeEach
+    void setUp() {
+        store = new ShardedAppStoreAPI(4);
+        for(int i = 0; i < 50; i++) store.addApp(new GameApp(developerLego, "Game" + i, 10, 1.0, 1.0, true));
+        store.addApp(new ProductivityApp(developerApple, "Pages", 10, 1.0, 2.99));
+    }
+
+    @Nested
+    class SingleThread {
+
+        @Test
+        void queriesGatherTheAppsOfEveryShard() {
+            assertEquals(51, store.numberOfApps());
+            assertEquals(50, store.numberOfAppsByChosenDeveloper(developerLego));
+            assertEquals(51, store.listAllApps().split("\n").length);
+            assertTrue(store.listAllApps().startsWith("Game0"));
+            assertTrue(store.listAllProductivityApps().startsWith("Pages"));
+            assertEquals("No Education apps", store.listAllEducationApps());
+            assertEquals(50, store.listAllAppsByChosenDeveloper(developerLego).split("\n").length);
+            assertSame(store.getAppByName("game7"), store.getAppByName("Game7"));
+            assertTrue(store.isValidAppName("PAGES"));
+
+            assertTrue(store.updateApp("Game3", app -> app.addRating(new Rating(5, "Ryker", "Great"))));
+            assertTrue(store.listAllAppsByRatingDescending().startsWith("Game3"));
+            assertTrue(store.listAllAppsAboveOrEqualAGivenStarRating(5).startsWith("Game3"));
+            assertEquals("Pages", store.deleteAppByName("pages").getAppName());
+            assertNull(store.deleteAppByName("pages"));
+            assertEquals(50, store.numberOfApps());
+        }
+
+        @Test
+        void aRenamedAppIsFoundByItsNewName() {
+            App game1 = store.getAppByName("Game1");
+            assertTrue(store.updateApp("Game1", app -> app.setAppName("Renamed")));
+            assertNull(store.getAppByName("Game1"));
+            assertSame(game1, store.getAppByName("renamed"));
+            assertEquals(51, store.numberOfApps());
+            assertFalse(store.updateApp("Game1", app -> app.setAppCost(0)));
+            assertTrue(store.listAllAppsByName("Renamed").startsWith("Renamed"));
+        }
+
+        @Test
+        void everyAppWithTheNameIsListed() {
+            EducationApp education = new EducationApp(developerApple, "Game7", 10, 2.0, 0, 1);
+            store.addApp(education);
+            String listing = store.listAllAppsByName("GAME7");
+            assertEquals(2, listing.split("\n").length);
+            assertTrue(listing.startsWith(store.getAppByName("Game7").toString())); // the first one added
+            assertTrue(listing.endsWith(education + "\n"));
+            assertEquals("No apps for name Nothing exists", store.listAllAppsByName("Nothing"));
+
+            assertTrue(store.deleteAppByName("game7") instanceof GameApp);
+            assertTrue(store.getAppByName("game7") instanceof EducationApp);
+        }
+
+        @Test
+        void randomAppsComeFromEveryShard() {
+            Set<String> names = new HashSet<>();
+            for(int i = 0; i < 2000; i++) names.add(store.randomApp().getAppName());
+            assertEquals(51, names.size());
+            assertNull(new ShardedAppStoreAPI(2).randomApp());
+        }
+
+        @Test
+        void simulatedRatingsAreReproducible() {
+            store.simulateRatings(10, 42, StarDistribution.UNIFORM);
+            String ratings = store.listAllAppsByRatingDescending();
+            assertEquals(10, store.getAppByName("Game0").getNumberOfRatings());
+
+            ShardedAppStoreAPI other = new ShardedAppStoreAPI(4);
+            for(int i = 0; i < 50; i++) other.addApp(new GameApp(developerLego, "Game" + i, 10, 1.0, 1.0, true));
+            other.addApp(new ProductivityApp(developerApple, "Pages", 10, 1.0, 2.99));
+            other.simulateRatings(10, 42, StarDistribution.UNIFORM);
+            assertEquals(ratings, other.listAllAppsByRatingDescending());
+        }
+
+        @Test
+        void everyShardIsSavedAndLoaded() throws Exception {
+            store.setFileName("sharded.xml");
+            store.save();
+            ShardedAppStoreAPI loaded = new ShardedAppStoreAPI(4);
+            loaded.setFileName("sharded.xml");
+            loaded.load();
+            assertEquals(store.listAllApps(), loaded.listAllApps());
+        }
+    }
+
+    @Nested
+    class ManyThreads {
+
+        @Test
+        void writersOfDifferentShardsDoNotLoseModifications() throws InterruptedException {
+            Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+            List<Thread> threads = new ArrayList<>();
+            for(int w = 0; w < 4; w++) {
+                int writer = w;
+                threads.add(new Thread(() -> {
+                    try {
+                        for(int i = 0; i < 200; i++) {
+                            store.addApp(new GameApp(developerLego, "Extra" + writer + "-" + i, 10, 1.0, 1.0, false));
+                            store.updateApp("Game" + (i % 50), app -> app.addRating(new Rating(4, "Ryker", "Good")));
+                            if(i % 2 == 0) assertNotNull(store.deleteAppByName("Extra" + writer + "-" + i));
+                            assertTrue(store.numberOfApps() >= 51);
+                        }
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }));
+            }
+            for(Thread thread : threads) thread.start();
+            for(Thread thread : threads) thread.join();
+
+            assertTrue(failures.isEmpty(), () -> failures.peek().toString());
+            assertEquals(51 + 4 * 100, store.numberOfApps());
+            assertEquals(16, store.getAppByName("Game0").getNumberOfRatings());
+        }
+
+        @Test
+        void aRenamedAppIsNeverOutOfTheStore() throws InterruptedException {
+            Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+            Thread renamer = new Thread(() -> {
+                for(int i = 0; i < 2000; i++) {
+                    String from = i == 0 ? "Game5" : "Renamed" + (i - 1), to = "Renamed" + i;
+                    if(!store.updateApp(from, app -> app.setAppName(to))) failures.add(new AssertionError(from));
+                }
+            });
+            renamer.start();
+            while(renamer.isAlive()) {
+                if(store.numberOfApps() != 51) failures.add(new AssertionError("The App was in no shard"));
+            }
+            renamer.join();
+            assertTrue(failures.isEmpty(), () -> failures.peek().toString());
+            assertNotNull(store.getAppByName("Renamed1999"));
+        }
+    }
+}
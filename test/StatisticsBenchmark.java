@@ -0,0 +1,38 @@
+import utils.FoundationClassUtilities.Statistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Compares the boxed {@code average}/{@code total} methods of {@link Statistics} with their primitive variants.
+ * Run the main method with the test classpath; every case is warmed up before it is timed.
+ */
+public class StatisticsBenchmark {
+    private static final int SIZE = 1_000_000, WARMUP = 20, ITERATIONS = 50;
+
+    public static void main(String[] args) {
+        SplittableRandom random = new SplittableRandom(42);
+        List<Integer> values = new ArrayList<>(SIZE);
+        for(int i = 0; i < SIZE; i++) values.add(random.nextInt(6));
+        Statistics<Integer> statistics = new Statistics<>(values);
+        Statistics<Integer> parallel = new Statistics<>(values).parallel();
+
+        run("average (boxed)", () -> statistics.average((Integer i) -> (double) i));
+        run("mean (primitive)", () -> statistics.mean(i -> i));
+        run("mean (parallel)", () -> parallel.mean(i -> i));
+        run("total (boxed)", () -> statistics.total((Integer i) -> i > 2));
+        run("count (primitive)", () -> statistics.count(i -> i > 2));
+        run("count (parallel)", () -> parallel.count(i -> i > 2));
+    }
+
+    private static void run(String name, DoubleSupplier benchmark) {
+        double blackhole = 0;
+        for(int i = 0; i < WARMUP; i++) blackhole += benchmark.getAsDouble();
+        long start = System.nanoTime();
+        for(int i = 0; i < ITERATIONS; i++) blackhole += benchmark.getAsDouble();
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-20s %8.3f ms/op   (%s)%n", name, elapsed / 1e6 / ITERATIONS, blackhole);
+    }
+}
@@ -0,0 +1,82 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import utils.FoundationClassUtilities.Statistics;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatisticsTest {
+
+    private List<Integer> numbers;
+
+    @BeforeEach
+    void setUp() {
+        numbers = new ArrayList<>(List.of(2, 4, 4, 4, 5, 5, 7, 9));
+    }
+
+    @Nested
+    class SequentialPath {
+
+        @Test
+        void primitiveVariantsAgreeWithTheBoxedMethods() {
+            Statistics<Integer> statistics = new Statistics<>(numbers);
+            assertEquals(statistics.average((Integer i) -> (double) i), statistics.mean(i -> i));
+            assertEquals(statistics.total((Integer i) -> i > 4), statistics.count(i -> i > 4));
+            assertEquals(statistics.average((Integer i) -> (double) i, (Integer i) -> i > 4), statistics.mean(i -> i, i -> i > 4));
+        }
+
+        @Test
+        void sumMinMaxAndVariance() {
+            Statistics<Integer> statistics = new Statistics<>(new LinkedList<>(numbers));
+            assertEquals(40, statistics.sum(i -> i));
+            assertEquals(40, statistics.sumOfInts(i -> i));
+            assertEquals(26, statistics.sum(i -> i, i -> i > 4));
+            assertEquals(2, statistics.min(i -> i));
+            assertEquals(9, statistics.max(i -> i));
+            assertEquals(4, statistics.variance(i -> i), 1e-9);
+        }
+
+        @Test
+        void percentilesInterpolateBetweenTheClosestRanks() {
+            Statistics<Integer> statistics = new Statistics<>(numbers);
+            assertEquals(2, statistics.percentile(i -> i, 0));
+            assertEquals(4.5, statistics.percentile(i -> i, 50));
+            assertEquals(9, statistics.percentile(i -> i, 100));
+            assertThrows(IllegalArgumentException.class, () -> statistics.percentile(i -> i, 101));
+        }
+
+        @Test
+        void emptyCollectionsGiveNaN() {
+            Statistics<Integer> statistics = new Statistics<>(new ArrayList<>());
+            assertEquals(0, statistics.count(i -> true));
+            assertTrue(Double.isNaN(statistics.mean(i -> i)));
+            assertTrue(Double.isNaN(statistics.min(i -> i)));
+            assertTrue(Double.isNaN(statistics.variance(i -> i)));
+            assertTrue(Double.isNaN(statistics.percentile(i -> i, 50)));
+        }
+    }
+
+    @Nested
+    class ParallelPath {
+
+        @Test
+        void largeCollectionsGiveTheSameResultsInParallel() {
+            List<Integer> large = new ArrayList<>();
+            for(int i = 0; i < Statistics.PARALLEL_THRESHOLD * 5 + 3; i++) large.add(i % 97);
+            Statistics<Integer> sequential = new Statistics<>(large);
+            Statistics<Integer> parallel = new Statistics<>(new LinkedList<>(large)).parallel();
+            assertEquals(sequential.count(i -> i > 50), parallel.count(i -> i > 50));
+            assertEquals(sequential.sum(i -> i), parallel.sum(i -> i));
+            assertEquals(sequential.sumOfInts(i -> i), parallel.sumOfInts(i -> i));
+            assertEquals(sequential.mean(i -> i), parallel.mean(i -> i), 1e-9);
+            assertEquals(sequential.variance(i -> i), parallel.variance(i -> i), 1e-6);
+            assertEquals(0, parallel.min(i -> i));
+            assertEquals(96, parallel.max(i -> i));
+            assertEquals(sequential.percentile(i -> i, 90), parallel.percentile(i -> i, 90));
+        }
+    }
+}
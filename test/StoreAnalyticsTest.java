@@ -0,0 +1,136 @@
+import controllers.AppStoreAPI;
+import controllers.DeveloperAPI;
+import controllers.StoreAnalytics;
+import models.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StoreAnalyticsTest {
+
+    private AppStoreAPI appStore;
+    private DeveloperAPI developers;
+    private Developer developerLego = new Developer("Lego", "www.lego.com");
+    private Developer developerApple = new Developer("Apple", "www.apple.com");
+    private Developer developerSphero = new Developer("Sphero", "www.sphero.com");
+
+    @BeforeEach
+    void setUp() {
+        developers = new DeveloperAPI();
+        developers.addDeveloper(developerLego);
+        developers.addDeveloper(developerApple);
+        developers.addDeveloper(developerSphero);
+        appStore = new AppStoreAPI();
+
+        GameApp spike = new GameApp(developerLego, "Spike", 100, 2.0, 2.0, true);
+        spike.addGenre(GameApp.Genre.Puzzle);
+        spike.addGenre(GameApp.Genre.Racing);
+        spike.addLanguage(Language.English);
+        spike.addRating(new Rating(5, "Ryker", "Great"));
+        spike.addRating(new Rating(4, "Mairead", "Good"));
+        EducationApp wedo = new EducationApp(developerLego, "WeDo", 10, 1.0, 0, 1);
+        wedo.addLanguage(Language.English);
+        wedo.addLanguage(Language.French);
+        wedo.addRating(new Rating(2, "Ryker", "Bad"));
+        ProductivityApp pages = new ProductivityApp(developerApple, "Pages", 200, 1.0, 4.0);
+        appStore.addApp(spike);
+        appStore.addApp(wedo);
+        appStore.addApp(pages);
+    }
+
+    @Nested
+    class Groups {
+
+        @Test
+        void everyAppIsCountedInItsGroups() {
+            StoreAnalytics.Report report = new StoreAnalytics(appStore, developers).analyse();
+            assertEquals(3, report.getTotal().getNumberOfApps());
+            assertEquals(List.of(developerLego, developerApple, developerSphero), List.copyOf(report.getByDeveloper().keySet()));
+            StoreAnalytics.Group lego = report.getByDeveloper().get(developerLego);
+            assertEquals(2, lego.getNumberOfApps());
+            assertEquals(3.25, lego.getAverageRating(), 0.01); // (4.5 + 2) / 2
+            assertEquals(0.5, lego.getRecommendedRatio(), 0.01); // Spike is multiplayer and rated 4.5
+            assertEquals(0, lego.getMinCost());
+            assertEquals(2, lego.getMaxCost());
+            assertEquals(55, lego.getAverageSize(), 0.01);
+            assertEquals(0, report.getByDeveloper().get(developerSphero).getNumberOfApps());
+            assertEquals(0, report.getByDeveloper().get(developerApple).getAverageRating());
+
+            assertEquals(List.of("ProductivityApp", "EducationApp", "GameApp"), List.copyOf(report.getByType().keySet()));
+            assertEquals(1, report.getByType().get("GameApp").getNumberOfApps());
+            assertEquals(1, report.getByGenre().get(GameApp.Genre.Racing).getNumberOfApps());
+            assertNull(report.getByGenre().get(GameApp.Genre.Action));
+            assertEquals(2, report.getByLanguage().get(Language.English).getNumberOfApps());
+            assertEquals(200, report.getByType().get("ProductivityApp").getMaxSize());
+        }
+
+        @Test
+        void appsRatedWithNoStarsAreLeftOutOfTheAverage() {
+            appStore.getAppByName("Pages").addRating(new Rating(0, "Ryker", "No stars"));
+            StoreAnalytics.Report report = new StoreAnalytics(appStore, developers).analyse();
+            assertEquals(0, report.getByDeveloper().get(developerApple).getAverageRating());
+            assertEquals(3.25, report.getTotal().getAverageRating(), 0.01); // (4.5 + 2) / 2 rather than NaN
+        }
+
+        @Test
+        void developersAreGroupedByIdentifierRatherThanByName() {
+            Developer copyOfLego = new Developer("Lego Group", "www.lego.com"); // renamed since the App was added
+            copyOfLego.setDeveloperId(developerLego.getDeveloperId());
+            appStore.addApp(new ProductivityApp(copyOfLego, "Docs", 10, 1.0, 0));
+            Developer unnamed = new Developer(null, "www.unnamed.com"), otherLego = new Developer("Lego", "www.lego.org");
+            appStore.addApp(new ProductivityApp(unnamed, "Notes", 10, 1.0, 0));
+            appStore.addApp(new ProductivityApp(otherLego, "Sheets", 10, 1.0, 0));
+
+            StoreAnalytics.Report report = new StoreAnalytics(appStore, developers).analyse();
+            assertEquals(List.of(developerLego, developerApple, developerSphero, unnamed, otherLego),
+                    List.copyOf(report.getByDeveloper().keySet()));
+            assertEquals(3, report.getByDeveloper().get(developerLego).getNumberOfApps());
+            assertEquals(1, report.getByDeveloper().get(otherLego).getNumberOfApps());
+            assertTrue(report.renderDevelopersOverview().contains("\n" + " ".repeat(22))); // the unnamed developer
+        }
+
+        @Test
+        void reportsRenderEveryGroup() {
+            StoreAnalytics.Report report = new StoreAnalytics(appStore, developers).analyse();
+            String apps = report.renderAppsOverview();
+            assertTrue(apps.contains("EducationApp"));
+            assertTrue(apps.contains("Racing"));
+            assertTrue(apps.contains("French"));
+            assertTrue(report.renderDevelopersOverview().contains("Sphero"));
+            assertEquals("No developers\n", new StoreAnalytics(new AppStoreAPI(), null).analyse().renderDevelopersOverview());
+        }
+    }
+
+    @Nested
+    class ParallelPass {
+
+        @Test
+        void largeStoresGiveTheSameFiguresAsASequentialScan() {
+            int rated = 0, recommended = 0;
+            double ratingSum = 0;
+            for(int i = 0; i < 5000; i++) {
+                GameApp app = new GameApp(i % 2 == 0 ? developerLego : developerSphero, "Game" + i, 1 + i % 1000, 1.0, i % 7, i % 3 == 0);
+                if(i % 5 != 0) app.addRating(new Rating(1 + i % 5, "Ryker", "Great"));
+                appStore.addApp(app);
+            }
+            for(int i = 0; i < appStore.numberOfApps(); i++) {
+                App app = appStore.getAppByIndex(i);
+                if(app.getNumberOfRatings() > 0) {
+                    ++rated;
+                    ratingSum += app.calculateRating();
+                }
+                if(app.isRecommendedApp()) ++recommended;
+            }
+            StoreAnalytics.Group total = new StoreAnalytics(appStore, developers).analyse().getTotal();
+            assertEquals(5003, total.getNumberOfApps());
+            assertEquals(ratingSum / rated, total.getAverageRating(), 1e-9);
+            assertEquals((double) recommended / 5003, total.getRecommendedRatio(), 1e-9);
+            assertEquals(1000, total.getMaxSize());
+            assertEquals(6, total.getMaxCost());
+        }
+    }
+}